@@ -3,7 +3,6 @@ package Interface;
 import Interface.model.Model;
 import Interface.model.ModelDeletionManager;
 import Math.matrix.*;
-import Math.vector.*;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
@@ -172,57 +171,39 @@ public class DeletionModeHandler {
             return;
         }
 
+        // Вершины проецируются один раз на весь кадр подсветки
+        float[] projected = deletionManager.projectVertices(model, centerX, centerY, viewProjection);
+        int vertexCount = model.getVertices().size();
+
         if (currentMode == DeletionMode.VERTEX) {
             gc.setFill(Color.RED);
             for (Integer vertexIndex : selectedVertices) {
-                if (vertexIndex >= 0 && vertexIndex < model.getVertices().size()) {
-                    var vertex = model.getVertices().get(vertexIndex);
-
-                    Vector3D projected = viewProjection.multiply(vertex);
-
-                    if (Math.abs(projected.getX()) > 1.5f ||
-                            Math.abs(projected.getY()) > 1.5f ||
-                            projected.getZ() < 0.0f ||
-                            projected.getZ() > 1.0f) {
-                        continue;
-                    }
-
-                    double x = centerX + (projected.getX() * centerX);
-                    double y = centerY - (projected.getY() * centerY);
-                    gc.fillOval(x - 5, y - 5, 10, 10);
+                if (vertexIndex >= 0 && vertexIndex < vertexCount
+                        && deletionManager.isProjectedVisible(projected, vertexIndex, centerX, centerY)) {
+                    gc.fillOval(projected[3 * vertexIndex] - 5, projected[3 * vertexIndex + 1] - 5, 10, 10);
                 }
             }
 
-            if (hoveredVertex != -1 && hoveredVertex < model.getVertices().size()) {
-                var vertex = model.getVertices().get(hoveredVertex);
-
-                Vector3D projected = viewProjection.multiply(vertex);
-
-                if (Math.abs(projected.getX()) <= 1.5f &&
-                        Math.abs(projected.getY()) <= 1.5f &&
-                        projected.getZ() >= 0.0f &&
-                        projected.getZ() <= 1.0f) {
-
-                    gc.setStroke(Color.YELLOW);
-                    gc.setLineWidth(2.0);
-                    double x = centerX + (projected.getX() * centerX);
-                    double y = centerY - (projected.getY() * centerY);
-                    gc.strokeOval(x - 7, y - 7, 14, 14);
-                }
+            if (hoveredVertex != -1 && hoveredVertex < vertexCount
+                    && deletionManager.isProjectedVisible(projected, hoveredVertex, centerX, centerY)) {
+                gc.setStroke(Color.YELLOW);
+                gc.setLineWidth(2.0);
+                gc.strokeOval(projected[3 * hoveredVertex] - 7, projected[3 * hoveredVertex + 1] - 7, 14, 14);
             }
         } else if (currentMode == DeletionMode.POLYGON) {
             gc.setFill(Color.rgb(255, 0, 0, 0.3));
             for (Integer polygonIndex : selectedPolygons) {
-                renderPolygonHighlight(gc, model, polygonIndex, Color.rgb(255, 0, 0, 0.3));
+                renderPolygonHighlight(gc, model, projected, polygonIndex, Color.rgb(255, 0, 0, 0.3));
             }
 
             if (hoveredPolygon != -1) {
-                renderPolygonHighlight(gc, model, hoveredPolygon, Color.rgb(255, 255, 0, 0.3));
+                renderPolygonHighlight(gc, model, projected, hoveredPolygon, Color.rgb(255, 255, 0, 0.3));
             }
         }
     }
 
-    private void renderPolygonHighlight(GraphicsContext gc, Model model, int polygonIndex, Color color) {
+    private void renderPolygonHighlight(GraphicsContext gc, Model model, float[] projected,
+                                        int polygonIndex, Color color) {
         if (polygonIndex < 0 || polygonIndex >= model.getPolygons().size()) {
             return;
         }
@@ -241,20 +222,13 @@ public class DeletionModeHandler {
         for (int i = 0; i < vertexIndices.size(); i++) {
             int vertexIndex = vertexIndices.get(i);
             if (vertexIndex >= 0 && vertexIndex < model.getVertices().size()) {
-                var vertex = model.getVertices().get(vertexIndex);
-
-                Vector3D projected = viewProjection.multiply(vertex);
-
-                if (Math.abs(projected.getX()) > 1.5f ||
-                        Math.abs(projected.getY()) > 1.5f ||
-                        projected.getZ() < 0.0f ||
-                        projected.getZ() > 1.0f) {
+                if (!deletionManager.isProjectedVisible(projected, vertexIndex, centerX, centerY)) {
                     allVisible = false;
                     break;
                 }
 
-                xPoints[i] = centerX + (projected.getX() * centerX);
-                yPoints[i] = centerY - (projected.getY() * centerY);
+                xPoints[i] = projected[3 * vertexIndex];
+                yPoints[i] = projected[3 * vertexIndex + 1];
             }
         }
 
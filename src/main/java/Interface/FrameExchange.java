@@ -0,0 +1,155 @@
+package Interface;
+
+import RenderingModes.FrameBuffer;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Обмен готовыми кадрами между потоком отрисовки и потоком JavaFX без блокировок.
+// Три кадра: в один рисует поток отрисовки, второй ждёт вывода, третий выведен на
+// canvas. Выведенный кадр разделяет массив пикселей с изображением JavaFX, которое
+// загружается при следующем импульсе, поэтому он возвращается потоку отрисовки
+// только после вывода следующего кадра.
+// Передача - атомарная замена ссылок: кадр, не выведенный до прихода следующего,
+// возвращается потоку отрисовки и переписывается.
+public class FrameExchange {
+
+    private static final int FRAME_COUNT = 3;
+    // Пауза потока отрисовки, пока все кадры заняты потоком JavaFX
+    private static final long WAIT_NANOS = 50_000;
+
+    // Кадр и сведения о нём. Поля пишет поток отрисовки до publish,
+    // поток JavaFX читает после take
+    public static final class Frame {
+        private FrameBuffer buffer;
+        private int width;
+        private int height;
+        private float scale = 1.0f;
+        private long generation;
+        private boolean empty;
+        private String statistics = "";
+        private long frameNanos;
+        private long smoothedFrameNanos;
+
+        // Кадр размером width x height строится в области буфера, уменьшенной в scale раз.
+        // Буфер имеет полный размер вывода и пересоздаётся только при его изменении;
+        // смена масштаба меняет лишь область кадра
+        FrameBuffer prepare(int width, int height, float scale, long generation, boolean empty) {
+            if (buffer == null || buffer.getStride() != width || buffer.getRows() != height) {
+                buffer = new FrameBuffer(width, height);
+            }
+            buffer.setViewport(Math.max(1, Math.round(width * scale)), Math.max(1, Math.round(height * scale)));
+            this.width = width;
+            this.height = height;
+            this.scale = scale;
+            this.generation = generation;
+            this.empty = empty;
+            return buffer;
+        }
+
+        void setStatistics(String statistics) {
+            this.statistics = statistics;
+        }
+
+        void setTiming(long frameNanos, long smoothedFrameNanos) {
+            this.frameNanos = frameNanos;
+            this.smoothedFrameNanos = smoothedFrameNanos;
+        }
+
+        public FrameBuffer getBuffer() {
+            return buffer;
+        }
+
+        // Размер вывода на canvas
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        // Масштаб разрешения буфера относительно размера вывода
+        public float getScale() {
+            return scale;
+        }
+
+        // Время построения кадра в потоке отрисовки
+        public long getFrameNanos() {
+            return frameNanos;
+        }
+
+        public long getSmoothedFrameNanos() {
+            return smoothedFrameNanos;
+        }
+
+        // Номер запроса, по которому построен кадр
+        public long getGeneration() {
+            return generation;
+        }
+
+        // Сцена без моделей: выводится только фон
+        public boolean isEmpty() {
+            return empty;
+        }
+
+        public String getStatistics() {
+            return statistics;
+        }
+    }
+
+    private final AtomicReference<Frame> spare = new AtomicReference<>();
+    private final AtomicReference<Frame> completed = new AtomicReference<>();
+    // Кадр потока отрисовки и число созданных кадров; другие потоки их не трогают
+    private Frame back = new Frame();
+    private int frameCount = 1;
+    // Пишет только поток отрисовки, читает поток JavaFX
+    private volatile long framesPublished;
+    private volatile long framesDropped;
+
+    // Поток отрисовки: кадр для рисования. Кадры создаются по мере нужды, пока их
+    // меньше трёх; затем ждёт возврата выведенного кадра. Опубликованный кадр не забирается
+    public Frame acquire() {
+        while (back == null) {
+            back = spare.getAndSet(null);
+            if (back == null && frameCount < FRAME_COUNT) {
+                back = new Frame();
+                frameCount++;
+            }
+            if (back == null) {
+                LockSupport.parkNanos(WAIT_NANOS);
+            }
+        }
+        return back;
+    }
+
+    // Поток отрисовки: кадр готов. Не выведенный предыдущий кадр становится следующим
+    // задним и считается потерянным
+    public void publish() {
+        back = completed.getAndSet(back);
+        framesPublished++;
+        if (back != null) {
+            framesDropped++;
+        }
+    }
+
+    // Поток JavaFX: последний готовый кадр или null
+    public Frame take() {
+        return completed.getAndSet(null);
+    }
+
+    // Готовые кадры и кадры, заменённые следующим до вывода
+    public long getFramesPublished() {
+        return framesPublished;
+    }
+
+    public long getFramesDropped() {
+        return framesDropped;
+    }
+
+    // Поток JavaFX: кадр больше не выводится и может быть переписан.
+    // Вызывается для предыдущего кадра, когда на canvas выведен следующий
+    public void release(Frame frame) {
+        spare.set(frame);
+    }
+}
@@ -0,0 +1,129 @@
+package Interface;
+
+import javafx.animation.AnimationTimer;
+
+// Планировщик кадров. Обработчики событий (камера, наведение в режиме удаления,
+// изменение размера) только помечают сцену устаревшей через requestRender;
+// кадр строится в импульсе отображения JavaFX (AnimationTimer), не чаще одного
+// раза за импульс. Все события между импульсами дают один кадр.
+// Таймер работает, только пока есть запросы: без изменений сцены импульсы не обрабатываются.
+public class FrameScheduler {
+
+    private final Runnable renderFrame;
+    private AnimationTimer timer;
+    // started - планировщик запущен (start), timerRunning - таймер ждёт импульса
+    private boolean started;
+    private boolean timerRunning;
+    private boolean dirty;
+
+    private long requests;
+    private long framesRendered;
+    private long requestsCoalesced;
+
+    // renderFrame строит кадр; вызывается только из потока JavaFX
+    public FrameScheduler(Runnable renderFrame) {
+        this.renderFrame = renderFrame;
+    }
+
+    // Запросы, пришедшие до запуска, рисуются в первом импульсе
+    public void start() {
+        started = true;
+        if (dirty) {
+            startTimer();
+        }
+    }
+
+    public void stop() {
+        started = false;
+        stopTimer();
+    }
+
+    // Сцена изменилась: кадр будет построен в ближайшем импульсе
+    public void requestRender() {
+        requests++;
+        if (dirty) {
+            requestsCoalesced++;
+        }
+        dirty = true;
+        if (started) {
+            startTimer();
+        }
+    }
+
+    // Таймер ждёт импульса, только пока сцена устарела
+    public boolean isTimerRunning() {
+        return timerRunning;
+    }
+
+    private void startTimer() {
+        if (!timerRunning) {
+            timerRunning = true;
+            startPulses();
+        }
+    }
+
+    private void stopTimer() {
+        if (timerRunning) {
+            timerRunning = false;
+            stopPulses();
+        }
+    }
+
+    // Подписка на импульсы JavaFX. Таймер создаётся при первом запуске:
+    // ему нужен запущенный JavaFX. Тесты без JavaFX подменяют оба метода
+    protected void startPulses() {
+        if (timer == null) {
+            timer = new AnimationTimer() {
+                @Override
+                public void handle(long now) {
+                    onPulse();
+                }
+            };
+        }
+        timer.start();
+    }
+
+    protected void stopPulses() {
+        timer.stop();
+    }
+
+    public boolean isRenderPending() {
+        return dirty;
+    }
+
+    // Импульс отображения. Флаг снимается до отрисовки: запрос, пришедший
+    // во время кадра, даёт ещё один кадр в следующем импульсе.
+    // renderFrame только передаёт снимок сцены потоку отрисовки, поэтому время кадра
+    // и потерянные кадры считает SceneRenderer, а не импульс.
+    // Если новых запросов нет, таймер останавливается до следующего requestRender
+    public void onPulse() {
+        if (!dirty) {
+            stopTimer();
+            return;
+        }
+        dirty = false;
+
+        renderFrame.run();
+        framesRendered++;
+        if (!dirty) {
+            stopTimer();
+        }
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getFramesRendered() {
+        return framesRendered;
+    }
+
+    public long getRequestsCoalesced() {
+        return requestsCoalesced;
+    }
+
+    public String summary() {
+        return String.format("Снимков: %d, запросов: %d, объединено: %d",
+                framesRendered, requests, requestsCoalesced);
+    }
+}
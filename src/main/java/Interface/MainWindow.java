@@ -8,6 +8,14 @@ import Interface.objreader.ObjReaderException;
 import Interface.objwriter.ObjWriter;
 import Interface.objwriter.ObjWriterException;
 import Math.cam.CameraController;
+import RenderingModes.RenderingModes.CullMode;
+import RenderingModes.RenderingModes.RasterizationAlgorithm;
+import RenderingModes.RenderingModes.RasterizationBackend;
+import RenderingModes.RenderingModes.ShadingFrequency;
+import RenderingModes.RenderingModes.WireframeMode;
+import RenderingModes.Texture;
+import RenderingModes.TriangleRasterization;
+import RenderingModes.ZBuffer;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
@@ -46,6 +54,9 @@ public class MainWindow {
     private TextField rotateX, rotateY, rotateZ;
     private TextField scaleX, scaleY, scaleZ;
 
+    // Отсечение граней выбранной модели
+    private RadioButton cullBackRadio, cullFrontRadio, cullNoneRadio;
+
     // ComboBox для списка моделей и камер
     private ComboBox<ModelManager.ModelEntry> toolbarModelList;
     private ComboBox<CameraManager.CameraEntry> cameraComboBox;
@@ -56,9 +67,14 @@ public class MainWindow {
     private Label cameraLabel;
     private Label cursorLabel;
     private Label deletionStatusLabel;
+    private Label renderScaleLabel;
+    private Label statisticsLabel;
 
     private File lastSavedFile;
 
+    // События только помечают сцену устаревшей, кадр строится раз за импульс
+    private final FrameScheduler frameScheduler;
+
     public MainWindow(Stage stage) {
         this.stage = stage;
         this.modelManager = new ModelManager();
@@ -68,6 +84,7 @@ public class MainWindow {
         this.canvas = new Canvas(800, 600);
 
         this.renderer = new SceneRenderer(this.canvas);
+        this.frameScheduler = new FrameScheduler(this::renderFrame);
 
         initUI();
     }
@@ -94,6 +111,9 @@ public class MainWindow {
         stage.setTitle("3D Редактор Моделей");
         stage.setScene(scene);
 
+        stage.setOnHidden(e -> frameScheduler.stop());
+        frameScheduler.start();
+
         // Обновляем отрисовку при запуске
         updateScene();
     }
@@ -124,12 +144,32 @@ public class MainWindow {
         CheckMenuItem textureItem = new CheckMenuItem("Использовать текстуру (Texture)");
         CheckMenuItem lightingItem = new CheckMenuItem("Использовать освещение (Lighting)");
         CheckMenuItem zBufferItem = new CheckMenuItem("Использовать Z-буфер (Z-Buffer)");
+        CheckMenuItem legacyRasterizerItem = new CheckMenuItem("Старый растеризатор (для сравнения)");
+        CheckMenuItem parallelItem = new CheckMenuItem("Многопоточная растеризация");
+        CheckMenuItem fixedDepthItem = new CheckMenuItem("24-битный Z-буфер");
+        CheckMenuItem vectorItem = new CheckMenuItem("Векторная растеризация (SIMD)");
+        CheckMenuItem deferredItem = new CheckMenuItem("Отложенное затенение (буфер видимости)");
+        CheckMenuItem depthSortingItem = new CheckMenuItem("Отрисовка спереди назад");
+        CheckMenuItem hierarchicalDepthItem = new CheckMenuItem("Иерархический Z-буфер (Hi-Z)");
+        CheckMenuItem wireframeOverlayItem = new CheckMenuItem("Каркас в проходе заливки");
+        CheckMenuItem bilinearItem = new CheckMenuItem("Билинейная фильтрация текстуры");
+        Menu textureWrapMenu = new Menu("Адресация текстуры");
+        Menu textureMipmapMenu = new Menu("Мип-уровни текстуры");
+        Menu shadingMenu = new Menu("Затенение");
+        Menu frameBudgetMenu = new Menu("Динамическое разрешение");
 
         wireframeItem.setSelected(renderer.isDrawWireframe());
         filledItem.setSelected(renderer.isDrawFilled());
         textureItem.setSelected(renderer.isUseTextureMapping());
         lightingItem.setSelected(renderer.isUseLighting());
         zBufferItem.setSelected(true);
+        legacyRasterizerItem.setSelected(
+                renderer.getRasterizationAlgorithm() == RasterizationAlgorithm.BARYCENTRIC);
+        parallelItem.setSelected(renderer.getRenderThreads() > 1);
+        fixedDepthItem.setSelected(renderer.getDepthPrecision() == ZBuffer.Precision.FIXED24);
+        vectorItem.setSelected(renderer.getRasterizationBackend() == RasterizationBackend.VECTOR);
+        // Без --add-modules jdk.incubator.vector переключатель ни на что не влияет
+        vectorItem.setDisable(!TriangleRasterization.isVectorBackendAvailable());
 
         wireframeItem.setOnAction(e -> {
             renderer.setDrawWireframe(wireframeItem.isSelected());
@@ -161,7 +201,91 @@ public class MainWindow {
 
         zBufferItem.setOnAction(e -> updateScene());
 
-        renderMenu.getItems().addAll(wireframeItem, filledItem, textureItem, lightingItem, zBufferItem);
+        legacyRasterizerItem.setOnAction(e -> {
+            renderer.setRasterizationAlgorithm(legacyRasterizerItem.isSelected()
+                    ? RasterizationAlgorithm.BARYCENTRIC
+                    : RasterizationAlgorithm.EDGE_FUNCTION);
+            updateScene();
+        });
+
+        parallelItem.setOnAction(e -> {
+            renderer.setRenderThreads(parallelItem.isSelected()
+                    ? Runtime.getRuntime().availableProcessors()
+                    : 1);
+            updateScene();
+        });
+
+        deferredItem.setSelected(renderer.isDeferredShading());
+        deferredItem.setOnAction(e -> {
+            renderer.setDeferredShading(deferredItem.isSelected());
+            updateScene();
+        });
+
+        hierarchicalDepthItem.setSelected(renderer.isHierarchicalDepth());
+        hierarchicalDepthItem.setOnAction(e -> {
+            renderer.setHierarchicalDepth(hierarchicalDepthItem.isSelected());
+            updateScene();
+        });
+
+        depthSortingItem.setSelected(renderer.isDepthSorting());
+        depthSortingItem.setOnAction(e -> {
+            renderer.setDepthSorting(depthSortingItem.isSelected());
+            updateScene();
+        });
+
+        wireframeOverlayItem.setSelected(renderer.getWireframeMode() == WireframeMode.OVERLAY);
+        wireframeOverlayItem.setOnAction(e -> {
+            renderer.setWireframeMode(wireframeOverlayItem.isSelected()
+                    ? WireframeMode.OVERLAY
+                    : WireframeMode.LINES);
+            updateScene();
+        });
+
+        fixedDepthItem.setOnAction(e -> {
+            renderer.setDepthPrecision(fixedDepthItem.isSelected()
+                    ? ZBuffer.Precision.FIXED24
+                    : ZBuffer.Precision.FLOAT32);
+            updateScene();
+        });
+
+        bilinearItem.setSelected(renderer.getTextureFilter() == Texture.Filter.BILINEAR);
+        bilinearItem.setOnAction(e -> {
+            renderer.setTextureFilter(bilinearItem.isSelected() ? Texture.Filter.BILINEAR : Texture.Filter.NEAREST);
+            updateScene();
+        });
+
+        ToggleGroup textureWrapGroup = new ToggleGroup();
+        addTextureWrapItem(textureWrapMenu, textureWrapGroup, "Ограничение (Clamp)", Texture.Wrap.CLAMP);
+        addTextureWrapItem(textureWrapMenu, textureWrapGroup, "Повтор (Repeat)", Texture.Wrap.REPEAT);
+        addTextureWrapItem(textureWrapMenu, textureWrapGroup, "Отражение (Mirror)", Texture.Wrap.MIRROR);
+
+        ToggleGroup textureMipmapGroup = new ToggleGroup();
+        addTextureMipmapItem(textureMipmapMenu, textureMipmapGroup, "Выключены", Texture.Mipmap.NONE);
+        addTextureMipmapItem(textureMipmapMenu, textureMipmapGroup, "Ближайший уровень", Texture.Mipmap.NEAREST);
+        addTextureMipmapItem(textureMipmapMenu, textureMipmapGroup, "Трилинейная фильтрация", Texture.Mipmap.LINEAR);
+
+        ToggleGroup shadingGroup = new ToggleGroup();
+        addShadingItem(shadingMenu, shadingGroup, "Плоское (по граням)", ShadingFrequency.FLAT);
+        addShadingItem(shadingMenu, shadingGroup, "По Гуро (по вершинам)", ShadingFrequency.GOURAUD);
+        addShadingItem(shadingMenu, shadingGroup, "По Фонгу (по пикселям)", ShadingFrequency.PHONG);
+
+        ToggleGroup frameBudgetGroup = new ToggleGroup();
+        addFrameBudgetItem(frameBudgetMenu, frameBudgetGroup, "Выключено (полное разрешение)", 0);
+        addFrameBudgetItem(frameBudgetMenu, frameBudgetGroup, "Кадр за 16 мс (60 к/с)", 1_000_000_000L / 60);
+        addFrameBudgetItem(frameBudgetMenu, frameBudgetGroup, "Кадр за 33 мс (30 к/с)", 1_000_000_000L / 30);
+        addFrameBudgetItem(frameBudgetMenu, frameBudgetGroup, "Кадр за 66 мс (15 к/с)", 1_000_000_000L / 15);
+
+        vectorItem.setOnAction(e -> {
+            renderer.setRasterizationBackend(vectorItem.isSelected()
+                    ? RasterizationBackend.VECTOR
+                    : RasterizationBackend.SCALAR);
+            updateScene();
+        });
+
+        renderMenu.getItems().addAll(wireframeItem, filledItem, textureItem, lightingItem, shadingMenu, zBufferItem,
+                bilinearItem, textureWrapMenu, textureMipmapMenu,
+                new SeparatorMenuItem(), legacyRasterizerItem, parallelItem, fixedDepthItem, vectorItem,
+                deferredItem, depthSortingItem, hierarchicalDepthItem, wireframeOverlayItem, frameBudgetMenu);
 
         // Меню "Камеры"
         Menu cameraMenu = new Menu("Камеры");
@@ -311,12 +435,31 @@ public class MainWindow {
         });
         scaleBtns.getChildren().addAll(applyScaleBtn, resetScaleBtn);
 
+        // Отсечение граней
+        Label cullLabel = new Label("Отсечение граней (Culling):");
+        cullLabel.setStyle("-fx-font-weight: bold;");
+        ToggleGroup cullGroup = new ToggleGroup();
+        cullBackRadio = new RadioButton("Задние");
+        cullFrontRadio = new RadioButton("Передние");
+        cullNoneRadio = new RadioButton("Нет");
+        cullBackRadio.setToggleGroup(cullGroup);
+        cullFrontRadio.setToggleGroup(cullGroup);
+        cullNoneRadio.setToggleGroup(cullGroup);
+        cullNoneRadio.setSelected(true);
+        HBox cullBox = new HBox(5, cullBackRadio, cullFrontRadio, cullNoneRadio);
+
+        cullBackRadio.setOnAction(e -> applyCullMode(CullMode.BACK));
+        cullFrontRadio.setOnAction(e -> applyCullMode(CullMode.FRONT));
+        cullNoneRadio.setOnAction(e -> applyCullMode(CullMode.NONE));
+
         transformBox.getChildren().addAll(
                 translateLabel, translateInputBox, translateBtns,
                 new Separator(),
                 rotateLabel, rotateInputBox, rotateBtns,
                 new Separator(),
-                scaleLabel, scaleInputBox, scaleBtns
+                scaleLabel, scaleInputBox, scaleBtns,
+                new Separator(),
+                cullLabel, cullBox
         );
 
         transformPane.setContent(transformBox);
@@ -482,6 +625,8 @@ public class MainWindow {
         // Создаём Canvas для отрисовки
         canvas = new Canvas(800, 600);
         renderer = new SceneRenderer(canvas);
+        // Кадр строится в потоке отрисовки; статистика обновляется при его выводе
+        renderer.setOnFramePresented(this::updateStatistics);
 
         // Привязываем размер canvas к размеру viewport
         canvas.widthProperty().bind(viewport.widthProperty());
@@ -546,6 +691,8 @@ public class MainWindow {
         renderModeLabel = new Label("Режим: Wireframe");
         cameraLabel = new Label("Камера: Default Camera");
         cursorLabel = new Label("Координаты: X:0, Y:0");
+        renderScaleLabel = new Label();
+        statisticsLabel = new Label();
 
         Region spacer1 = new Region();
         Region spacer2 = new Region();
@@ -558,6 +705,8 @@ public class MainWindow {
                 modelInfoLabel,
                 spacer1,
                 renderModeLabel,
+                renderScaleLabel,
+                statisticsLabel,
                 spacer2,
                 cameraLabel,
                 spacer3,
@@ -643,6 +792,68 @@ public class MainWindow {
         }
     }
 
+    private void addTextureWrapItem(Menu menu, ToggleGroup group, String title, Texture.Wrap wrap) {
+        RadioMenuItem item = new RadioMenuItem(title);
+        item.setToggleGroup(group);
+        item.setSelected(renderer.getTextureWrap() == wrap);
+        item.setOnAction(e -> {
+            renderer.setTextureWrap(wrap);
+            updateScene();
+        });
+        menu.getItems().add(item);
+    }
+
+    private void addTextureMipmapItem(Menu menu, ToggleGroup group, String title, Texture.Mipmap mipmap) {
+        RadioMenuItem item = new RadioMenuItem(title);
+        item.setToggleGroup(group);
+        item.setSelected(renderer.getTextureMipmap() == mipmap);
+        item.setOnAction(e -> {
+            renderer.setTextureMipmap(mipmap);
+            updateScene();
+        });
+        menu.getItems().add(item);
+    }
+
+    private void addFrameBudgetItem(Menu menu, ToggleGroup group, String title, long targetFrameNanos) {
+        RadioMenuItem item = new RadioMenuItem(title);
+        item.setToggleGroup(group);
+        item.setSelected(renderer.getTargetFrameNanos() == targetFrameNanos);
+        item.setOnAction(e -> {
+            renderer.setTargetFrameNanos(targetFrameNanos);
+            updateScene();
+        });
+        menu.getItems().add(item);
+    }
+
+    private void addShadingItem(Menu menu, ToggleGroup group, String title, ShadingFrequency frequency) {
+        RadioMenuItem item = new RadioMenuItem(title);
+        item.setToggleGroup(group);
+        item.setSelected(renderer.getShadingFrequency() == frequency);
+        item.setOnAction(e -> {
+            renderer.setShadingFrequency(frequency);
+            updateScene();
+        });
+        menu.getItems().add(item);
+    }
+
+    private void applyCullMode(CullMode cullMode) {
+        ModelManager.ModelEntry selected = modelManager.getSelectedModel();
+        if (selected == null) {
+            return;
+        }
+        selected.setCullMode(cullMode);
+        updateScene();
+    }
+
+    // Переключатели отсечения показывают режим выбранной модели
+    private void updateCullModeControls() {
+        ModelManager.ModelEntry selected = modelManager.getSelectedModel();
+        CullMode cullMode = selected != null ? selected.getCullMode() : CullMode.NONE;
+        cullBackRadio.setSelected(cullMode == CullMode.BACK);
+        cullFrontRadio.setSelected(cullMode == CullMode.FRONT);
+        cullNoneRadio.setSelected(cullMode == CullMode.NONE);
+    }
+
     // Методы работы с камерами
     private void addCamera() {
         TextInputDialog dialog = new TextInputDialog("Camera " + (cameraManager.getCameraCount() + 1));
@@ -856,6 +1067,8 @@ public class MainWindow {
         if (activeCamera != null) {
             cameraLabel.setText("Камера: " + activeCamera.getName());
         }
+
+        updateCullModeControls();
     }
 
     private void updateRenderModeLabel() {
@@ -873,9 +1086,29 @@ public class MainWindow {
     }
 
     private void updateScene() {
+        frameScheduler.requestRender();
+    }
+
+    private void renderFrame() {
         renderer.renderScene(modelManager, cameraManager);
     }
 
+    private void updateStatistics() {
+        if (renderScaleLabel != null) {
+            renderScaleLabel.setText(modelManager.isEmpty() ? ""
+                    : String.format("Разрешение: %d%%, кадр: %.1f мс (среднее %.1f мс)",
+                    Math.round(renderer.getPresentedScale() * 100),
+                    renderer.getPresentedFrameNanos() / 1e6,
+                    renderer.getPresentedSmoothedFrameNanos() / 1e6));
+        }
+        if (statisticsLabel != null) {
+            statisticsLabel.setText(modelManager.isEmpty() ? ""
+                    : renderer.getPresentedStatistics() + " | " + frameScheduler.summary()
+                    + String.format(", кадров: %d, не выведено: %d",
+                    renderer.getFramesPublished(), renderer.getFramesDropped()));
+        }
+    }
+
     private void toggleTheme() {
         isDarkTheme = !isDarkTheme;
         applyTheme();
@@ -905,6 +1138,8 @@ public class MainWindow {
 
             modelInfoLabel.setStyle("-fx-text-fill: white;");
             renderModeLabel.setStyle("-fx-text-fill: white;");
+            renderScaleLabel.setStyle("-fx-text-fill: white;");
+            statisticsLabel.setStyle("-fx-text-fill: white;");
             cameraLabel.setStyle("-fx-text-fill: white;");
             cursorLabel.setStyle("-fx-text-fill: white;");
 
@@ -965,6 +1200,8 @@ public class MainWindow {
 
             modelInfoLabel.setStyle("-fx-text-fill: black;");
             renderModeLabel.setStyle("-fx-text-fill: black;");
+            renderScaleLabel.setStyle("-fx-text-fill: black;");
+            statisticsLabel.setStyle("-fx-text-fill: black;");
             cameraLabel.setStyle("-fx-text-fill: black;");
             cursorLabel.setStyle("-fx-text-fill: black;");
 
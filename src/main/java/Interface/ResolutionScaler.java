@@ -0,0 +1,81 @@
+package Interface;
+
+// Динамическое разрешение: масштаб внутреннего буфера кадра подбирается так,
+// чтобы время кадра укладывалось в заданный бюджет. Время кадра пропорционально
+// числу пикселей, то есть квадрату масштаба; по каждому кадру оценивается время
+// кадра в полном разрешении, оценка сглаживается, и из неё выводится масштаб.
+// Вызывается только потоком отрисовки, бюджет задаётся из потока JavaFX.
+public class ResolutionScaler {
+
+    public static final float MIN_SCALE = 0.25f;
+    public static final float MAX_SCALE = 1.0f;
+    // Шаг масштаба: мелкие колебания времени кадра не меняют размер буфера
+    public static final float SCALE_STEP = 0.05f;
+    // Вес нового кадра в сглаженной оценке
+    private static final double SMOOTHING = 0.25;
+
+    // 0 - масштабирование выключено
+    private volatile long targetFrameNanos;
+
+    private float scale = MAX_SCALE;
+    private double smoothedFullFrameNanos = -1;
+    private double smoothedFrameNanos = -1;
+
+    public ResolutionScaler(long targetFrameNanos) {
+        setTargetFrameNanos(targetFrameNanos);
+    }
+
+    public void setTargetFrameNanos(long targetFrameNanos) {
+        if (targetFrameNanos < 0) {
+            throw new IllegalArgumentException("Target frame time must not be negative");
+        }
+        this.targetFrameNanos = targetFrameNanos;
+    }
+
+    public long getTargetFrameNanos() {
+        return targetFrameNanos;
+    }
+
+    public boolean isEnabled() {
+        return targetFrameNanos > 0;
+    }
+
+    // Масштаб для следующего кадра
+    public float getScale() {
+        return isEnabled() ? scale : MAX_SCALE;
+    }
+
+    // Кадр с масштабом renderedScale построен за frameNanos
+    public void addFrame(long frameNanos, float renderedScale) {
+        smoothedFrameNanos = smooth(smoothedFrameNanos, frameNanos);
+
+        double fullFrameNanos = frameNanos / ((double) renderedScale * renderedScale);
+        smoothedFullFrameNanos = smooth(smoothedFullFrameNanos, fullFrameNanos);
+
+        long target = targetFrameNanos;
+        if (target <= 0 || smoothedFullFrameNanos <= 0) {
+            scale = MAX_SCALE;
+            return;
+        }
+
+        // Округление вниз по шагу: кадр остаётся в пределах бюджета.
+        // Гистерезис: масштаб меняется, только если идеальный вышел из
+        // [scale, scale + 2 * SCALE_STEP), иначе шум времени кадра у границы шага
+        // переключал бы масштаб, а с ним и область буфера, от кадра к кадру
+        double ideal = Math.sqrt(target / smoothedFullFrameNanos);
+        if (ideal >= scale && ideal < scale + 2 * SCALE_STEP) {
+            return;
+        }
+        float stepped = (float) (Math.floor(ideal / SCALE_STEP + 1e-6) * SCALE_STEP);
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, stepped));
+    }
+
+    // Сглаженное время кадра с текущим масштабом
+    public long getSmoothedFrameNanos() {
+        return (long) Math.max(0, smoothedFrameNanos);
+    }
+
+    private static double smooth(double smoothed, double value) {
+        return smoothed < 0 ? value : smoothed + SMOOTHING * (value - smoothed);
+    }
+}
@@ -1,25 +1,110 @@
 package Interface;
 
+import Interface.model.CompactMesh;
 import Interface.model.Model;
+import Interface.model.ModelBounds;
 import Interface.model.ModelManager;
 import Math.cam.Camera;
+import Math.cam.Frustum;
 import Math.matrix.Matrix4x4;
+import Math.vector.Vector3D;
+import RenderingModes.ClusterOrder;
+import RenderingModes.FrameBuffer;
 import RenderingModes.RenderingModes;
+import RenderingModes.RenderContext;
 import RenderingModes.RenderEngine;
+import RenderingModes.RenderStatistics;
+import RenderingModes.ShadingCache;
+import RenderingModes.TileRasterizer;
+import RenderingModes.VertexProcessor;
+import RenderingModes.VisibilityBuffer;
+import RenderingModes.ZBuffer;
 import RenderingModes.Lighting;
 import RenderingModes.Texture;
+import javafx.application.Platform;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
 public class SceneRenderer {
+    // Максимальный возраст последнего выведенного кадра, при котором устаревший
+    // кадр в работе отменяется
+    private static final long MAX_STALE_FRAME_NANOS = 100_000_000L;
+    // Пауза без новых снимков, после которой кадр строится в полном разрешении
+    private static final long IDLE_NANOS = 200_000_000L;
+    // Бюджет времени кадра по умолчанию (30 кадров в секунду)
+    public static final long DEFAULT_TARGET_FRAME_NANOS = 1_000_000_000L / 30;
+
     private Canvas canvas;
     private GraphicsContext gc;
+    private ZBuffer.Precision depthPrecision = ZBuffer.Precision.FLOAT32;
+    private volatile int renderThreads = Runtime.getRuntime().availableProcessors();
+
+    // Состояние потока отрисовки: буферы и кэши кадра переиспользуются между кадрами
+    private ZBuffer zBuffer;
+    private final TileRasterizer tileRasterizer = new TileRasterizer(renderThreads);
+    private final VertexProcessor vertexProcessor = new VertexProcessor();
+    private final VisibilityBuffer visibilityBuffer = new VisibilityBuffer();
+    // Модели кадра в порядке отрисовки; список переиспользуется
+    private final ArrayList<DrawItem> drawOrder = new ArrayList<>();
+    private final Matrix4x4 renderViewProjection = Matrix4x4.identity();
+
+    // Передача снимков потоку отрисовки и готовых кадров обратно
+    private final FrameExchange frameExchange = new FrameExchange();
+    private final AtomicReference<FrameRequest> pendingRequest = new AtomicReference<>();
+    private final AtomicBoolean presentScheduled = new AtomicBoolean();
+    private Thread renderThread;
+    private long requestedGeneration;
+    // Номер снимка, по которому строится кадр; 0 - поток отрисовки свободен
+    private volatile long renderingGeneration;
+    private volatile boolean renderingRefinement;
+    private final ResolutionScaler resolutionScaler = new ResolutionScaler(DEFAULT_TARGET_FRAME_NANOS);
+    private volatile long lastPublishedNanos = System.nanoTime();
+
+    // Состояние потока JavaFX для вывода кадра
+    // Кадр на canvas; его пиксели ещё нужны JavaFX
+    private FrameExchange.Frame presentedFrame;
+    private ModelManager presentedModels;
+    private String presentedStatistics = "";
+    private float presentedScale = 1.0f;
+    private long presentedFrameNanos;
+    private long presentedSmoothedFrameNanos;
+    private Runnable onFramePresented;
+
+    // Объекты кадра переиспользуются: отрисовка сцены не выделяет память заново
+    private final Matrix4x4 viewProjection = Matrix4x4.identity();
+    private final Matrix4x4 modelMatrix = Matrix4x4.identity();
+    private final Frustum frustum = new Frustum(viewProjection);
+    private final RenderingModes modes = new RenderingModes();
+    // Общее освещение сцены; направление света берётся из позиции камеры при отрисовке
+    private final Lighting sceneLighting = new Lighting(null, null, 0.3f, 0.7f);
 
     private boolean drawWireframe = true;
     private boolean drawFilled = false;
     private boolean useTextureMapping = false; // По умолчанию выключено
     private boolean useLighting = false;       // По умолчанию выключено
+    private RenderingModes.RasterizationAlgorithm rasterizationAlgorithm =
+            RenderingModes.RasterizationAlgorithm.EDGE_FUNCTION;
+    private RenderingModes.RasterizationBackend rasterizationBackend =
+            RenderingModes.RasterizationBackend.SCALAR;
+    private Texture.Filter textureFilter = Texture.Filter.NEAREST;
+    private Texture.Wrap textureWrap = Texture.Wrap.REPEAT;
+    private Texture.Mipmap textureMipmap = Texture.Mipmap.NONE;
+    private RenderingModes.ShadingFrequency shadingFrequency = RenderingModes.ShadingFrequency.PHONG;
+    private RenderingModes.WireframeMode wireframeMode = RenderingModes.WireframeMode.OVERLAY;
+    // Отложенное затенение: цвет считается один раз на видимый пиксель после всех моделей
+    private boolean deferredShading = false;
+    // Отрисовка спереди назад: модели и кластеры граней по удалению от камеры
+    private boolean depthSorting = true;
+    // Отбрасывание перекрытых блоков по иерархическому Z-буферу
+    private boolean hierarchicalDepth = false;
 
     private Color wireframeColor = Color.WHITE;
     private Color fillColor = Color.GRAY;
@@ -38,59 +123,291 @@ public class SceneRenderer {
         gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
     }
 
+    // Поток JavaFX: снимок сцены (камера, режимы, ссылки на сетки моделей) передаётся
+    // потоку отрисовки; готовый кадр выводит presentFrame. Новый снимок заменяет
+    // ещё не начатый и отменяет устаревший кадр в работе
     public void renderScene(ModelManager modelManager, CameraManager cameraManager) {
-        clear();
+        int width = (int) canvas.getWidth();
+        int height = (int) canvas.getHeight();
+        if (width <= 0 || height <= 0) return;
 
-        if (modelManager.isEmpty()) {
-            drawNoModelMessage();
-            return;
+        ArrayList<DrawItem> items = new ArrayList<>();
+        Camera camera = null;
+        if (!modelManager.isEmpty()) {
+            CameraManager.CameraEntry cameraEntry = cameraManager.getActiveCamera();
+            if (cameraEntry == null) return;
+
+            camera = copyCamera(cameraEntry.getCamera());
+            camera.getViewProjectionMatrixInto(viewProjection);
+            deletionModeHandler.updateProjection(width / 2.0, height / 2.0, viewProjection);
+
+            // Сетка модели неизменяема: правка модели строит новую, кадр в работе не затрагивается
+            for (ModelManager.ModelEntry entry : modelManager.getAllModels()) {
+                Model model = entry.getModel();
+                items.add(new DrawItem(model.getCompactMesh(), model.getBounds(), entry.getTexture(),
+                        entry.getCullMode(), entry.getShadingCache(), entry.getClusterOrder()));
+            }
         }
+        presentedModels = modelManager;
 
-        CameraManager.CameraEntry cameraEntry = cameraManager.getActiveCamera();
-        if (cameraEntry == null) return;
+        RenderingModes requestModes = new RenderingModes(drawWireframe, drawFilled, useTextureMapping, useLighting);
+        requestModes.setWireframeMode(wireframeMode);
+        requestModes.setHierarchicalDepth(hierarchicalDepth);
+        requestModes.setRasterizationAlgorithm(rasterizationAlgorithm);
+        requestModes.setRasterizationBackend(rasterizationBackend);
+        requestModes.setShadingFrequency(shadingFrequency);
+        requestModes.setTextureFilter(textureFilter);
+        requestModes.setTextureWrap(textureWrap);
+        requestModes.setTextureMipmap(textureMipmap);
 
-        Camera camera = cameraEntry.getCamera();
-        int width = (int) canvas.getWidth();
-        int height = (int) canvas.getHeight();
+        pendingRequest.set(new FrameRequest(++requestedGeneration, width, height, camera, requestModes, items,
+                deferredShading, depthSorting, depthPrecision, renderThreads, fillColor, backgroundColor));
+
+        // Кадр в работе устарел. Его отменяют, только если недавно был выведен другой:
+        // при непрерывном вводе и долгих кадрах экран всё равно обновляется
+        // Уточнение кадра в полном разрешении отменяется всегда
+        if (renderingGeneration != 0
+                && (renderingRefinement || System.nanoTime() - lastPublishedNanos < MAX_STALE_FRAME_NANOS)) {
+            tileRasterizer.setCancelled(true);
+        }
+
+        if (renderThread == null) {
+            renderThread = new Thread(this::renderLoop, "scene-render");
+            renderThread.setDaemon(true);
+            renderThread.start();
+        }
+        LockSupport.unpark(renderThread);
+    }
+
+    // Поток отрисовки: строит кадры по последнему снимку, между снимками спит.
+    // Отменённый кадр повторяется, если более нового снимка нет
+    // (отмена могла прийти для предыдущего кадра, когда этот уже начался).
+    // Кадр пониженного разрешения, после которого снимков нет дольше IDLE_NANOS,
+    // перестраивается в полном разрешении
+    private void renderLoop() {
+        FrameRequest refinement = null;
+        while (true) {
+            FrameRequest request = pendingRequest.getAndSet(null);
+            boolean refining = false;
+            if (request == null) {
+                long idleNanos = System.nanoTime() - lastPublishedNanos;
+                if (refinement == null) {
+                    LockSupport.park(this);
+                    continue;
+                }
+                if (idleNanos < IDLE_NANOS) {
+                    LockSupport.parkNanos(this, IDLE_NANOS - idleNanos);
+                    continue;
+                }
+                request = refinement;
+                refining = true;
+            }
+            refinement = null;
+
+            float scale = refining || request.items.isEmpty()
+                    ? ResolutionScaler.MAX_SCALE
+                    : resolutionScaler.getScale();
+            renderingRefinement = refining;
+            renderingGeneration = request.generation;
+            tileRasterizer.setCancelled(false);
+            boolean completed = renderFrame(request, scale, !refining);
+            renderingGeneration = 0;
+            renderingRefinement = false;
+
+            if (completed && scale < ResolutionScaler.MAX_SCALE) {
+                refinement = request;
+            } else if (!completed && !refining) {
+                pendingRequest.compareAndSet(null, request);
+            }
+        }
+    }
+
+    // measured - время кадра учитывается при выборе масштаба
+    private boolean renderFrame(FrameRequest request, float scale, boolean measured) {
+        RenderStatistics.reset();
+        tileRasterizer.setParallelism(request.renderThreads);
+
+        FrameExchange.Frame frame = frameExchange.acquire();
+        long start = System.nanoTime();
+        FrameBuffer frameBuffer = frame.prepare(request.width, request.height, scale, request.generation,
+                request.items.isEmpty());
+        frameBuffer.clear(request.backgroundColor);
+
+        if (!request.items.isEmpty() && !drawModels(request, frameBuffer)) {
+            return false;
+        }
+
+        long frameNanos = System.nanoTime() - start;
+        if (measured && !request.items.isEmpty()) {
+            resolutionScaler.addFrame(frameNanos, scale);
+        }
+        frame.setStatistics(RenderStatistics.summary());
+        frame.setTiming(frameNanos, resolutionScaler.getSmoothedFrameNanos());
+        frameExchange.publish();
+        lastPublishedNanos = System.nanoTime();
+        if (!presentScheduled.getAndSet(true)) {
+            Platform.runLater(this::presentFrame);
+        }
+        return true;
+    }
 
-        // Общее освещение сцены
-        Lighting sceneLighting = new Lighting(
-                camera.getPosition(),
-                camera.getTarget(),
-                0.3f,
-                0.7f
-        );
+    // false - кадр отменён
+    private boolean drawModels(FrameRequest request, FrameBuffer frameBuffer) {
+        int width = frameBuffer.getWidth();
+        int height = frameBuffer.getHeight();
+        Camera camera = request.camera;
 
-        Matrix4x4 viewProjection = camera.getProjectionMatrix().multiply(camera.getViewMatrix());
-        deletionModeHandler.updateProjection(width / 2.0, height / 2.0, viewProjection);
+        // Буфер глубины пересоздаётся только при изменении точности; меньший кадр
+        // динамического разрешения занимает его прежние массивы
+        if (zBuffer == null || zBuffer.getPrecision() != request.depthPrecision) {
+            zBuffer = new ZBuffer(width, height, request.depthPrecision);
+        } else {
+            zBuffer.resize(width, height);
+        }
+        zBuffer.clear();
 
-        for (ModelManager.ModelEntry entry : modelManager.getAllModels()) {
-            Model model = entry.getModel();
+        // Модели, чьи ограничивающие объёмы целиком вне кадра, не передаются в RenderEngine
+        camera.getViewProjectionMatrixInto(renderViewProjection);
+        frustum.update(renderViewProjection);
 
-            RenderingModes modes = new RenderingModes();
-            modes.setDrawWireframe(this.drawWireframe);
-            modes.setDrawFilled(this.drawFilled);
+        VisibilityBuffer visibility = request.deferredShading ? visibilityBuffer : null;
+        if (visibility != null) {
+            visibility.begin(width, height);
+        }
+        RenderContext context = new RenderContext(frameBuffer, zBuffer, tileRasterizer, vertexProcessor);
+        context.setVisibility(visibility);
+
+        drawOrder.clear();
+        drawOrder.addAll(request.items);
+        if (request.depthSorting) {
+            sortFrontToBack(drawOrder, camera);
+        }
+
+        RenderingModes requestModes = request.modes;
+        for (DrawItem item : drawOrder) {
+            if (tileRasterizer.isCancelled()) {
+                return false;
+            }
+            if (!isVisible(item.bounds, frustum)) {
+                RenderStatistics.addModelOutsideFrustum();
+                continue;
+            }
+
+            modes.setDrawWireframe(requestModes.isDrawWireframe());
+            modes.setDrawFilled(requestModes.isDrawFilled());
+            modes.setWireframeMode(requestModes.getWireframeMode());
+            modes.setHierarchicalDepth(requestModes.isHierarchicalDepth());
+            modes.setRasterizationAlgorithm(requestModes.getRasterizationAlgorithm());
+            modes.setRasterizationBackend(requestModes.getRasterizationBackend());
+            modes.setCullMode(item.cullMode);
 
             // ТЕПЕРЬ СВЕТ И ТЕКСТУРА ЗАВИСЯТ ОТ НАШИХ ПЕРЕМЕННЫХ
-            modes.setUseLighting(this.useLighting);
+            modes.setUseLighting(requestModes.isUseLighting());
+            modes.setShadingFrequency(requestModes.getShadingFrequency());
 
-            Texture texture = entry.getTexture();
-            modes.setUseTexture(this.useTextureMapping && texture != null);
+            Texture texture = item.texture;
+            modes.setUseTexture(requestModes.isUseTexture() && texture != null);
+            modes.setTextureFilter(requestModes.getTextureFilter());
+            modes.setTextureWrap(requestModes.getTextureWrap());
+            modes.setTextureMipmap(requestModes.getTextureMipmap());
 
             // Передаем свет, только если он включен
-            Lighting activeLighting = this.useLighting ? sceneLighting : null;
-
-            Matrix4x4 modelMatrix = Matrix4x4.identity();
+            Lighting activeLighting = requestModes.isUseLighting() ? sceneLighting : null;
 
+            // Освещённость граней и вершин кэшируется отдельно для каждой модели
             RenderEngine.render(
-                    gc, camera, model, width, height,
-                    texture, activeLighting, fillColor, modes, modelMatrix
+                    context, camera, item.mesh,
+                    texture, activeLighting, request.fillColor, modes, modelMatrix,
+                    item.shadingCache, request.depthSorting ? item.clusterOrder : null
             );
+        }
+
+        if (visibility != null && !tileRasterizer.isCancelled()) {
+            visibility.resolve(frameBuffer, tileRasterizer);
+        }
+        return !tileRasterizer.isCancelled();
+    }
+
+    // Поток JavaFX: вывод последнего готового кадра целиком, выделение рисуется поверх
+    private void presentFrame() {
+        presentScheduled.set(false);
+        FrameExchange.Frame frame = frameExchange.take();
+        if (frame == null) {
+            return;
+        }
+
+        clear();
+        frame.getBuffer().present(gc, frame.getWidth(), frame.getHeight());
+        if (frame.isEmpty()) {
+            drawNoModelMessage();
+        } else if (deletionModeHandler.isActive() && presentedModels != null) {
+            for (ModelManager.ModelEntry entry : presentedModels.getAllModels()) {
+                deletionModeHandler.renderSelection(gc, entry.getModel());
+            }
+        }
+        presentedStatistics = frame.getStatistics();
+        presentedScale = frame.getScale();
+        presentedFrameNanos = frame.getFrameNanos();
+        presentedSmoothedFrameNanos = frame.getSmoothedFrameNanos();
+        // Изображение кадра ещё не загружено JavaFX - до следующего вывода
+        // кадр не возвращается потоку отрисовки
+        if (presentedFrame != null) {
+            frameExchange.release(presentedFrame);
+        }
+        presentedFrame = frame;
+
+        if (onFramePresented != null) {
+            onFramePresented.run();
+        }
+    }
+
+    // Копия камеры для снимка: контроллер продолжает менять исходную
+    private static Camera copyCamera(Camera camera) {
+        Vector3D position = camera.getPosition();
+        Vector3D target = camera.getTarget();
+        return new Camera(new Vector3D(position.getX(), position.getY(), position.getZ()),
+                new Vector3D(target.getX(), target.getY(), target.getZ()),
+                camera.getFov(), camera.getAspectRatio(), camera.getNearPlane(), camera.getFarPlane());
+    }
 
-            if (deletionModeHandler.isActive()) {
-                deletionModeHandler.renderSelection(gc, model);
+    // Модели по глубине ближайшей точки ограничивающей сферы вдоль направления взгляда.
+    // Моделей немного, поэтому порядок считается заново в каждом кадре
+    private static void sortFrontToBack(ArrayList<DrawItem> items, Camera camera) {
+        Vector3D position = camera.getPosition();
+        Vector3D target = camera.getTarget();
+        float fx = target.getX() - position.getX();
+        float fy = target.getY() - position.getY();
+        float fz = target.getZ() - position.getZ();
+        float length = (float) Math.sqrt(fx * fx + fy * fy + fz * fz);
+        if (length == 0.0f) {
+            return;
+        }
+        float inverseLength = 1.0f / length;
+        float dirX = fx * inverseLength;
+        float dirY = fy * inverseLength;
+        float dirZ = fz * inverseLength;
+
+        items.sort(Comparator.comparingDouble(item -> {
+            ModelBounds bounds = item.bounds;
+            if (bounds == null) {
+                return Double.POSITIVE_INFINITY;
             }
+            return (bounds.getCenterX() - position.getX()) * dirX
+                    + (bounds.getCenterY() - position.getY()) * dirY
+                    + (bounds.getCenterZ() - position.getZ()) * dirZ
+                    - bounds.getRadius();
+        }));
+    }
+
+    // Сначала дешёвая проверка сферы, затем более точная - AABB
+    private static boolean isVisible(ModelBounds bounds, Frustum frustum) {
+        if (bounds == null) {
+            return false;
         }
+        return frustum.intersectsSphere(bounds.getCenterX(), bounds.getCenterY(), bounds.getCenterZ(),
+                bounds.getRadius())
+                && frustum.intersectsBox(bounds.getMinX(), bounds.getMinY(), bounds.getMinZ(),
+                bounds.getMaxX(), bounds.getMaxY(), bounds.getMaxZ());
     }
 
     // --- Сеттеры для связи с MainWindow ---
@@ -105,6 +422,149 @@ public class SceneRenderer {
         this.useLighting = useLighting;
     }
 
+    public void setRasterizationAlgorithm(RenderingModes.RasterizationAlgorithm rasterizationAlgorithm) {
+        this.rasterizationAlgorithm = rasterizationAlgorithm;
+    }
+
+    public RenderingModes.RasterizationAlgorithm getRasterizationAlgorithm() {
+        return rasterizationAlgorithm;
+    }
+
+    public void setRasterizationBackend(RenderingModes.RasterizationBackend rasterizationBackend) {
+        this.rasterizationBackend = rasterizationBackend;
+    }
+
+    public RenderingModes.RasterizationBackend getRasterizationBackend() {
+        return rasterizationBackend;
+    }
+
+    public void setTextureFilter(Texture.Filter textureFilter) {
+        this.textureFilter = textureFilter;
+    }
+
+    public Texture.Filter getTextureFilter() {
+        return textureFilter;
+    }
+
+    public void setTextureWrap(Texture.Wrap textureWrap) {
+        this.textureWrap = textureWrap;
+    }
+
+    public Texture.Wrap getTextureWrap() {
+        return textureWrap;
+    }
+
+    public void setTextureMipmap(Texture.Mipmap textureMipmap) {
+        this.textureMipmap = textureMipmap;
+    }
+
+    public Texture.Mipmap getTextureMipmap() {
+        return textureMipmap;
+    }
+
+    public void setShadingFrequency(RenderingModes.ShadingFrequency shadingFrequency) {
+        this.shadingFrequency = shadingFrequency;
+    }
+
+    public RenderingModes.ShadingFrequency getShadingFrequency() {
+        return shadingFrequency;
+    }
+
+    public void setWireframeMode(RenderingModes.WireframeMode wireframeMode) {
+        this.wireframeMode = wireframeMode;
+    }
+
+    public RenderingModes.WireframeMode getWireframeMode() {
+        return wireframeMode;
+    }
+
+    public void setDeferredShading(boolean deferredShading) {
+        this.deferredShading = deferredShading;
+    }
+
+    public boolean isDeferredShading() {
+        return deferredShading;
+    }
+
+    public void setDepthSorting(boolean depthSorting) {
+        this.depthSorting = depthSorting;
+    }
+
+    public boolean isDepthSorting() {
+        return depthSorting;
+    }
+
+    public void setHierarchicalDepth(boolean hierarchicalDepth) {
+        this.hierarchicalDepth = hierarchicalDepth;
+    }
+
+    public boolean isHierarchicalDepth() {
+        return hierarchicalDepth;
+    }
+
+    // Число потоков тайловой растеризации (1 - отрисовка в потоке отрисовки без тайлов).
+    // Применяется потоком отрисовки со следующего кадра
+    public void setRenderThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Render threads must be positive");
+        }
+        this.renderThreads = threads;
+    }
+
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    // Вызывается в потоке JavaFX после вывода каждого кадра
+    public void setOnFramePresented(Runnable onFramePresented) {
+        this.onFramePresented = onFramePresented;
+    }
+
+    // Статистика отрисовки последнего выведенного кадра
+    public String getPresentedStatistics() {
+        return presentedStatistics;
+    }
+
+    // Бюджет времени кадра для динамического разрешения (0 - всегда полное разрешение).
+    // Применяется потоком отрисовки со следующего кадра
+    public void setTargetFrameNanos(long targetFrameNanos) {
+        resolutionScaler.setTargetFrameNanos(targetFrameNanos);
+    }
+
+    public long getTargetFrameNanos() {
+        return resolutionScaler.getTargetFrameNanos();
+    }
+
+    // Масштаб разрешения и время построения последнего выведенного кадра
+    public float getPresentedScale() {
+        return presentedScale;
+    }
+
+    public long getPresentedFrameNanos() {
+        return presentedFrameNanos;
+    }
+
+    public long getPresentedSmoothedFrameNanos() {
+        return presentedSmoothedFrameNanos;
+    }
+
+    // Кадры, построенные потоком отрисовки, и кадры, заменённые следующим до вывода
+    public long getFramesPublished() {
+        return frameExchange.getFramesPublished();
+    }
+
+    public long getFramesDropped() {
+        return frameExchange.getFramesDropped();
+    }
+
+    public void setDepthPrecision(ZBuffer.Precision depthPrecision) {
+        this.depthPrecision = depthPrecision;
+    }
+
+    public ZBuffer.Precision getDepthPrecision() {
+        return depthPrecision;
+    }
+
     public void setFillColor(Color color) { this.fillColor = color; }
     public void setBackgroundColor(Color color) { this.backgroundColor = color; }
     public DeletionModeHandler getDeletionModeHandler() { return deletionModeHandler; }
@@ -137,4 +597,58 @@ public class SceneRenderer {
             y += 25;
         }
     }
-}
\ No newline at end of file
+
+    // Неизменяемый снимок сцены для одного кадра. Строится в потоке JavaFX,
+    // читается только потоком отрисовки
+    private static final class FrameRequest {
+        final long generation;
+        final int width;
+        final int height;
+        final Camera camera;
+        final RenderingModes modes;
+        final List<DrawItem> items;
+        final boolean deferredShading;
+        final boolean depthSorting;
+        final ZBuffer.Precision depthPrecision;
+        final int renderThreads;
+        final Color fillColor;
+        final Color backgroundColor;
+
+        FrameRequest(long generation, int width, int height, Camera camera, RenderingModes modes,
+                     List<DrawItem> items, boolean deferredShading, boolean depthSorting,
+                     ZBuffer.Precision depthPrecision, int renderThreads, Color fillColor, Color backgroundColor) {
+            this.generation = generation;
+            this.width = width;
+            this.height = height;
+            this.camera = camera;
+            this.modes = modes;
+            this.items = items;
+            this.deferredShading = deferredShading;
+            this.depthSorting = depthSorting;
+            this.depthPrecision = depthPrecision;
+            this.renderThreads = renderThreads;
+            this.fillColor = fillColor;
+            this.backgroundColor = backgroundColor;
+        }
+    }
+
+    // Модель в снимке. Кэш освещения и порядок граней меняет только поток отрисовки
+    private static final class DrawItem {
+        final CompactMesh mesh;
+        final ModelBounds bounds;
+        final Texture texture;
+        final RenderingModes.CullMode cullMode;
+        final ShadingCache shadingCache;
+        final ClusterOrder clusterOrder;
+
+        DrawItem(CompactMesh mesh, ModelBounds bounds, Texture texture, RenderingModes.CullMode cullMode,
+                 ShadingCache shadingCache, ClusterOrder clusterOrder) {
+            this.mesh = mesh;
+            this.bounds = bounds;
+            this.texture = texture;
+            this.cullMode = cullMode;
+            this.shadingCache = shadingCache;
+            this.clusterOrder = clusterOrder;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package Interface.model;
+
+import Math.vector.Vector2D;
+import Math.vector.Vector3D;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Компактное представление модели в виде структуры массивов: координаты лежат
+// подряд во float[], индексы углов всех полигонов - в общих int[].
+// Полигон f занимает углы с faceOffsets[f] по faceOffsets[f + 1] - 1.
+// Отсутствующий текстурный индекс или индекс нормали хранится как -1.
+// Массивы отдаются без копирования и не должны изменяться снаружи.
+public final class CompactMesh {
+    private final float[] positions;
+    private final float[] uvs;
+    private final float[] normals;
+
+    private final int[] faceOffsets;
+    private final int[] vertexIndices;
+    private final int[] textureIndices;
+    private final int[] normalIndices;
+
+    // Уникальные рёбра; строятся при первом запросе в потоке отрисовки, а shareTopology
+    // читает их в потоке JavaFX. Массив после построения не меняется, а повторное
+    // построение из другого потока даёт тот же результат
+    private volatile int[] edges;
+
+    public CompactMesh(float[] positions, float[] uvs, float[] normals,
+                       int[] faceOffsets, int[] vertexIndices, int[] textureIndices, int[] normalIndices) {
+        if (faceOffsets.length == 0 || faceOffsets[faceOffsets.length - 1] != vertexIndices.length
+                || textureIndices.length != vertexIndices.length || normalIndices.length != vertexIndices.length) {
+            throw new IllegalArgumentException("Inconsistent face index buffers");
+        }
+        this.positions = positions;
+        this.uvs = uvs;
+        this.normals = normals;
+        this.faceOffsets = faceOffsets;
+        this.vertexIndices = vertexIndices;
+        this.textureIndices = textureIndices;
+        this.normalIndices = normalIndices;
+    }
+
+    public static CompactMesh fromModel(Model model) {
+        float[] positions = toArray3(model.getVertices());
+        float[] normals = toArray3(model.getNormals());
+
+        ArrayList<Vector2D> textureVertices = model.getTextureVertices();
+        int uvCount = textureVertices == null ? 0 : textureVertices.size();
+        float[] uvs = new float[2 * uvCount];
+        for (int i = 0; i < uvCount; i++) {
+            Vector2D uv = textureVertices.get(i);
+            uvs[2 * i] = uv.getX();
+            uvs[2 * i + 1] = uv.getY();
+        }
+
+        ArrayList<Polygon> polygons = model.getPolygons();
+        int[] faceOffsets = new int[polygons.size() + 1];
+        int cornerCount = 0;
+        for (int f = 0; f < polygons.size(); f++) {
+            faceOffsets[f] = cornerCount;
+            cornerCount += polygons.get(f).getVertexIndices().size();
+        }
+        faceOffsets[polygons.size()] = cornerCount;
+
+        int[] vertexIndices = new int[cornerCount];
+        int[] textureIndices = new int[cornerCount];
+        int[] normalIndices = new int[cornerCount];
+        for (int f = 0; f < polygons.size(); f++) {
+            Polygon polygon = polygons.get(f);
+            ArrayList<Integer> vIndices = polygon.getVertexIndices();
+            ArrayList<Integer> tIndices = polygon.getTextureVertexIndices();
+            ArrayList<Integer> nIndices = polygon.getNormalIndices();
+            boolean hasTexture = tIndices != null && tIndices.size() == vIndices.size();
+            boolean hasNormals = nIndices != null && nIndices.size() == vIndices.size();
+
+            int offset = faceOffsets[f];
+            for (int i = 0; i < vIndices.size(); i++) {
+                vertexIndices[offset + i] = vIndices.get(i);
+                textureIndices[offset + i] = hasTexture ? tIndices.get(i) : -1;
+                normalIndices[offset + i] = hasNormals ? nIndices.get(i) : -1;
+            }
+        }
+
+        return new CompactMesh(positions, uvs, normals, faceOffsets, vertexIndices, textureIndices, normalIndices);
+    }
+
+    private static float[] toArray3(ArrayList<Vector3D> vectors) {
+        int count = vectors == null ? 0 : vectors.size();
+        float[] result = new float[3 * count];
+        for (int i = 0; i < count; i++) {
+            Vector3D vector = vectors.get(i);
+            result[3 * i] = vector.getX();
+            result[3 * i + 1] = vector.getY();
+            result[3 * i + 2] = vector.getZ();
+        }
+        return result;
+    }
+
+    public Model toModel() {
+        Model model = new Model();
+
+        ArrayList<Vector3D> vertices = new ArrayList<>(getVertexCount());
+        for (int i = 0; i < getVertexCount(); i++) {
+            vertices.add(new Vector3D(positions[3 * i], positions[3 * i + 1], positions[3 * i + 2]));
+        }
+        ArrayList<Vector2D> textureVertices = new ArrayList<>(getUvCount());
+        for (int i = 0; i < getUvCount(); i++) {
+            textureVertices.add(new Vector2D(uvs[2 * i], uvs[2 * i + 1]));
+        }
+        ArrayList<Vector3D> normalList = new ArrayList<>(getNormalCount());
+        for (int i = 0; i < getNormalCount(); i++) {
+            normalList.add(new Vector3D(normals[3 * i], normals[3 * i + 1], normals[3 * i + 2]));
+        }
+
+        ArrayList<Polygon> polygons = new ArrayList<>(getFaceCount());
+        for (int f = 0; f < getFaceCount(); f++) {
+            int start = faceOffsets[f];
+            int end = faceOffsets[f + 1];
+
+            ArrayList<Integer> vIndices = new ArrayList<>(end - start);
+            ArrayList<Integer> tIndices = new ArrayList<>();
+            ArrayList<Integer> nIndices = new ArrayList<>();
+            for (int c = start; c < end; c++) {
+                vIndices.add(vertexIndices[c]);
+            }
+            if (textureIndices[start] >= 0) {
+                for (int c = start; c < end; c++) {
+                    tIndices.add(textureIndices[c]);
+                }
+            }
+            if (normalIndices[start] >= 0) {
+                for (int c = start; c < end; c++) {
+                    nIndices.add(normalIndices[c]);
+                }
+            }
+
+            Polygon polygon = new Polygon();
+            polygon.setVertexIndices(vIndices);
+            polygon.setTextureVertexIndices(tIndices);
+            polygon.setNormalIndices(nIndices);
+            polygons.add(polygon);
+        }
+
+        model.setVertices(vertices);
+        model.setTextureVertices(textureVertices);
+        model.setNormals(normalList);
+        model.setPolygons(polygons);
+        return model;
+    }
+
+    public int getVertexCount() {
+        return positions.length / 3;
+    }
+
+    public int getUvCount() {
+        return uvs.length / 2;
+    }
+
+    public int getNormalCount() {
+        return normals.length / 3;
+    }
+
+    public int getFaceCount() {
+        return faceOffsets.length - 1;
+    }
+
+    public int getCornerCount() {
+        return vertexIndices.length;
+    }
+
+    public int getFaceStart(int face) {
+        return faceOffsets[face];
+    }
+
+    public int getFaceSize(int face) {
+        return faceOffsets[face + 1] - faceOffsets[face];
+    }
+
+    public float[] getPositions() {
+        return positions;
+    }
+
+    public float[] getUvs() {
+        return uvs;
+    }
+
+    public float[] getNormals() {
+        return normals;
+    }
+
+    public int[] getFaceOffsets() {
+        return faceOffsets;
+    }
+
+    public int[] getVertexIndices() {
+        return vertexIndices;
+    }
+
+    public int[] getTextureIndices() {
+        return textureIndices;
+    }
+
+    public int[] getNormalIndices() {
+        return normalIndices;
+    }
+
+    // Рёбра полигонов без повторов: пары номеров вершин (меньший, больший) подряд.
+    // Общее ребро соседних полигонов входит в список один раз. Полигоны
+    // меньше чем из трёх вершин и рёбра из одной вершины не учитываются
+    public int[] getEdges() {
+        int[] result = edges;
+        if (result == null) {
+            result = buildEdges();
+            edges = result;
+        }
+        return result;
+    }
+
+    public int getEdgeCount() {
+        return getEdges().length / 2;
+    }
+
+    // Представление той же связности (вершины сдвинуты, полигоны прежние)
+    // перенимает уже построенный список рёбер
+    void shareTopology(CompactMesh previous) {
+        if (edges == null) {
+            edges = previous.edges;
+        }
+    }
+
+    // Ребро - пара (меньшая вершина, большая вершина); номер в таблице задаёт порядок в списке
+    private int[] buildEdges() {
+        int faceCount = getFaceCount();
+        int cornerCount = vertexIndices.length;
+        IndexPairTable table = new IndexPairTable(cornerCount);
+
+        int[] result = new int[2 * cornerCount];
+        for (int face = 0; face < faceCount; face++) {
+            int start = faceOffsets[face];
+            int end = faceOffsets[face + 1];
+            if (end - start < 3) {
+                continue;
+            }
+            int previous = vertexIndices[end - 1];
+            for (int corner = start; corner < end; corner++) {
+                int current = vertexIndices[corner];
+                int a = Math.min(previous, current);
+                int b = Math.max(previous, current);
+                previous = current;
+                if (a == b) {
+                    continue;
+                }
+
+                int edge = table.add(a, b);
+                result[2 * edge] = a;
+                result[2 * edge + 1] = b;
+            }
+        }
+        return Arrays.copyOf(result, 2 * table.size());
+    }
+}
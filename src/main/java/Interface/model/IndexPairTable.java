@@ -0,0 +1,44 @@
+package Interface.model;
+
+import java.util.Arrays;
+
+// Номера пар неотрицательных индексов (first, second): новая пара получает
+// следующий номер по порядку, повторная - уже выданный. Открытая адресация
+// по ключу long без упаковки в Long; таблица не растёт, поэтому ёмкость
+// задаётся заранее числом пар, которые могут быть добавлены
+public final class IndexPairTable {
+    private static final long EMPTY = -1L;
+
+    private final long[] keys;
+    private final int[] ids;
+    private final int mask;
+    private final int shift;
+    private int size;
+
+    public IndexPairTable(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+        this.keys = new long[tableSize];
+        this.ids = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(tableSize);
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // Номер пары; если пары ещё нет, она получает номер size() и size() растёт
+    public int add(int first, int second) {
+        long key = ((long) first << 32) | second;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            ids[slot] = size++;
+        }
+        return ids[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+}
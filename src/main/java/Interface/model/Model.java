@@ -11,12 +11,25 @@ public class Model {
     private ArrayList<Vector3D> normals = new ArrayList<Vector3D>();
     private ArrayList<Polygon> polygons = new ArrayList<Polygon>();
 
+    // Номер версии геометрии: увеличивается при каждом изменении модели,
+    // по нему кэши (ограничивающие объёмы и т.п.) понимают, что устарели
+    private long version;
+    // Версия связности (какие вершины соединены полигонами): не меняется,
+    // когда вершины только сдвигаются; по ней живут кэши топологии (список рёбер)
+    private long topologyVersion;
+    private ModelBounds bounds;
+    private long boundsVersion = -1;
+    private CompactMesh compactMesh;
+    private long compactMeshVersion = -1;
+    private long compactMeshTopologyVersion = -1;
+
     public ArrayList<Vector3D> getVertices() {
         return vertices;
     }
 
     public void setVertices(ArrayList<Vector3D> vertices) {
         this.vertices = vertices;
+        markChanged();
     }
 
     public ArrayList<Vector2D> getTextureVertices() {
@@ -25,6 +38,7 @@ public class Model {
 
     public void setTextureVertices(ArrayList<Vector2D> textureVertices) {
         this.textureVertices = textureVertices;
+        markChanged();
     }
 
     public ArrayList<Vector3D> getNormals() {
@@ -33,6 +47,7 @@ public class Model {
 
     public void setNormals(ArrayList<Vector3D> normals) {
         this.normals = normals;
+        markChanged();
     }
 
     public ArrayList<Polygon> getPolygons() {
@@ -41,5 +56,51 @@ public class Model {
 
     public void setPolygons(ArrayList<Polygon> polygons) {
         this.polygons = polygons;
+        markChanged();
+    }
+
+    // Вызывается после изменения вершин, нормалей или полигонов на месте (через get...().set(...))
+    public void markChanged() {
+        version++;
+        topologyVersion++;
+    }
+
+    // То же, если изменились только координаты вершин или нормали, а полигоны
+    // ссылаются на те же вершины: кэши топологии остаются действительными
+    public void markGeometryChanged() {
+        version++;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getTopologyVersion() {
+        return topologyVersion;
+    }
+
+    // Ограничивающие объёмы пересчитываются лениво, только после изменения модели.
+    // null, если у модели нет вершин
+    public ModelBounds getBounds() {
+        if (boundsVersion != version) {
+            bounds = ModelBounds.of(vertices);
+            boundsVersion = version;
+        }
+        return bounds;
+    }
+
+    // Представление для отрисовки (структура массивов). Строится заново только
+    // после изменения модели, поэтому редактирование идёт через списки Model
+    public CompactMesh getCompactMesh() {
+        if (compactMeshVersion != version) {
+            CompactMesh previous = compactMeshTopologyVersion == topologyVersion ? compactMesh : null;
+            compactMesh = CompactMesh.fromModel(this);
+            if (previous != null) {
+                compactMesh.shareTopology(previous);
+            }
+            compactMeshVersion = version;
+            compactMeshTopologyVersion = topologyVersion;
+        }
+        return compactMesh;
     }
-}
\ No newline at end of file
+}
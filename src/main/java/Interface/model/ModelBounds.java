@@ -0,0 +1,71 @@
+package Interface.model;
+
+import Math.vector.Vector3D;
+
+import java.util.List;
+
+// Ограничивающие объёмы модели: выровненный по осям параллелепипед (AABB)
+// и описанная вокруг его центра сфера
+public final class ModelBounds {
+    private final float minX, minY, minZ;
+    private final float maxX, maxY, maxZ;
+    private final float centerX, centerY, centerZ;
+    private final float radius;
+
+    private ModelBounds(float minX, float minY, float minZ, float maxX, float maxY, float maxZ, float radius) {
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+        this.centerX = (minX + maxX) * 0.5f;
+        this.centerY = (minY + maxY) * 0.5f;
+        this.centerZ = (minZ + maxZ) * 0.5f;
+        this.radius = radius;
+    }
+
+    // null для модели без вершин
+    public static ModelBounds of(List<Vector3D> vertices) {
+        if (vertices.isEmpty()) {
+            return null;
+        }
+
+        float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        for (Vector3D vertex : vertices) {
+            minX = Math.min(minX, vertex.getX());
+            minY = Math.min(minY, vertex.getY());
+            minZ = Math.min(minZ, vertex.getZ());
+            maxX = Math.max(maxX, vertex.getX());
+            maxY = Math.max(maxY, vertex.getY());
+            maxZ = Math.max(maxZ, vertex.getZ());
+        }
+
+        // Радиус - наибольшее расстояние от центра AABB до вершин (не больше полудиагонали)
+        float centerX = (minX + maxX) * 0.5f;
+        float centerY = (minY + maxY) * 0.5f;
+        float centerZ = (minZ + maxZ) * 0.5f;
+        float radiusSquared = 0.0f;
+        for (Vector3D vertex : vertices) {
+            float dx = vertex.getX() - centerX;
+            float dy = vertex.getY() - centerY;
+            float dz = vertex.getZ() - centerZ;
+            radiusSquared = Math.max(radiusSquared, dx * dx + dy * dy + dz * dz);
+        }
+
+        return new ModelBounds(minX, minY, minZ, maxX, maxY, maxZ, (float) Math.sqrt(radiusSquared));
+    }
+
+    public float getMinX() { return minX; }
+    public float getMinY() { return minY; }
+    public float getMinZ() { return minZ; }
+    public float getMaxX() { return maxX; }
+    public float getMaxY() { return maxY; }
+    public float getMaxZ() { return maxZ; }
+
+    public float getCenterX() { return centerX; }
+    public float getCenterY() { return centerY; }
+    public float getCenterZ() { return centerZ; }
+    public float getRadius() { return radius; }
+}
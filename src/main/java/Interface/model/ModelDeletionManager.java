@@ -9,6 +9,10 @@ import java.util.Set;
 
 public class ModelDeletionManager {
 
+    // Экранные координаты всех вершин модели, переиспользуются между вызовами
+    private float[] screenPositions = new float[0];
+    private double[] polygonX = new double[0];
+    private double[] polygonY = new double[0];
 
     public void deleteVertices(Model model, Set<Integer> verticesToDelete) {
         if (verticesToDelete.isEmpty()) {
@@ -128,31 +132,48 @@ public class ModelDeletionManager {
         model.setVertices(newVertices);
     }
 
+    // Все вершины проецируются на экран одним пакетным преобразованием.
+    // Возвращается внутренний буфер: x, y на экране и z в NDC для каждой вершины,
+    // действительный до следующего вызова
+    public float[] projectVertices(Model model, double centerX, double centerY, Matrix4x4 viewProjection) {
+        CompactMesh mesh = model.getCompactMesh();
+        int count = mesh.getVertexCount();
+        if (screenPositions.length < 3 * count) {
+            screenPositions = new float[3 * count];
+        }
+        viewProjection.projectToScreen(mesh.getPositions(), screenPositions, count,
+                (float) (2.0 * centerX), (float) (2.0 * centerY));
+        return screenPositions;
+    }
+
+    // Вершина пригодна для выбора, если она в пределах NDC [-1.5, 1.5] по x и y
+    // (четверть экрана запаса с каждой стороны) и z в [0, 1].
+    // Сравнения записаны так, чтобы NaN (w = 0) считался невидимым
+    public boolean isProjectedVisible(float[] projected, int vertex, double centerX, double centerY) {
+        double x = projected[3 * vertex];
+        double y = projected[3 * vertex + 1];
+        float z = projected[3 * vertex + 2];
+        return x >= -0.5 * centerX && x <= 2.5 * centerX
+                && y >= -0.5 * centerY && y <= 2.5 * centerY
+                && z >= 0.0f && z <= 1.0f;
+    }
+
     public int findNearestVertex(Model model, double screenX, double screenY,
                                  double centerX, double centerY,
                                  Matrix4x4 viewProjection) {
-        List<Vector3D> vertices = model.getVertices();
+        float[] projected = projectVertices(model, centerX, centerY, viewProjection);
+        int vertexCount = model.getCompactMesh().getVertexCount();
         int nearestIndex = -1;
         double minDistance = Double.MAX_VALUE;
         double threshold = 15.0;
 
-        for (int i = 0; i < vertices.size(); i++) {
-            Vector3D vertex = vertices.get(i);
-
-            Vector3D projected = viewProjection.multiply(vertex);
-
-            if (Math.abs(projected.getX()) > 1.5f ||
-                    Math.abs(projected.getY()) > 1.5f ||
-                    projected.getZ() < 0.0f ||
-                    projected.getZ() > 1.0f) {
+        for (int i = 0; i < vertexCount; i++) {
+            if (!isProjectedVisible(projected, i, centerX, centerY)) {
                 continue;
             }
 
-            double x = centerX + (projected.getX() * centerX);
-            double y = centerY - (projected.getY() * centerY);
-
-            double dx = screenX - x;
-            double dy = screenY - y;
+            double dx = screenX - projected[3 * i];
+            double dy = screenY - projected[3 * i + 1];
             double distance = Math.sqrt(dx * dx + dy * dy);
 
             if (distance < minDistance && distance < threshold) {
@@ -167,52 +188,49 @@ public class ModelDeletionManager {
     public int findPolygonAtPoint(Model model, double screenX, double screenY,
                                   double centerX, double centerY,
                                   Matrix4x4 viewProjection) {
-        List<Polygon> polygons = model.getPolygons();
-        List<Vector3D> vertices = model.getVertices();
+        float[] projected = projectVertices(model, centerX, centerY, viewProjection);
+        CompactMesh mesh = model.getCompactMesh();
+        int[] vertexIndices = mesh.getVertexIndices();
+        int vertexCount = mesh.getVertexCount();
 
         int closestPolygonIndex = -1;
         double closestDepth = Double.MAX_VALUE;
 
-        for (int i = 0; i < polygons.size(); i++) {
-            Polygon polygon = polygons.get(i);
-            ArrayList<Integer> vertexIndices = polygon.getVertexIndices();
+        for (int i = 0; i < mesh.getFaceCount(); i++) {
+            int start = mesh.getFaceStart(i);
+            int size = mesh.getFaceSize(i);
 
-            if (vertexIndices.size() < 3) {
+            if (size < 3) {
                 continue;
             }
 
-            double[] xPoints = new double[vertexIndices.size()];
-            double[] yPoints = new double[vertexIndices.size()];
-            double[] zDepths = new double[vertexIndices.size()];
-            boolean allVisible = true;
-
-            for (int j = 0; j < vertexIndices.size(); j++) {
-                int vertexIndex = vertexIndices.get(j);
-                if (vertexIndex >= 0 && vertexIndex < vertices.size()) {
-                    Vector3D vertex = vertices.get(vertexIndex);
+            if (polygonX.length < size) {
+                polygonX = new double[size];
+                polygonY = new double[size];
+            }
 
-                    Vector3D projected = viewProjection.multiply(vertex);
+            double depthSum = 0;
+            boolean allVisible = true;
 
-                    if (Math.abs(projected.getX()) > 1.5f ||
-                            Math.abs(projected.getY()) > 1.5f ||
-                            projected.getZ() < 0.0f ||
-                            projected.getZ() > 1.0f) {
+            for (int j = 0; j < size; j++) {
+                int vertexIndex = vertexIndices[start + j];
+                if (vertexIndex >= 0 && vertexIndex < vertexCount) {
+                    if (!isProjectedVisible(projected, vertexIndex, centerX, centerY)) {
                         allVisible = false;
                         break;
                     }
 
-                    xPoints[j] = centerX + (projected.getX() * centerX);
-                    yPoints[j] = centerY - (projected.getY() * centerY);
-                    zDepths[j] = projected.getZ();
+                    polygonX[j] = projected[3 * vertexIndex];
+                    polygonY[j] = projected[3 * vertexIndex + 1];
+                    depthSum += projected[3 * vertexIndex + 2];
+                } else {
+                    polygonX[j] = 0;
+                    polygonY[j] = 0;
                 }
             }
 
-            if (allVisible && isPointInPolygon(screenX, screenY, xPoints, yPoints)) {
-                double avgDepth = 0;
-                for (double depth : zDepths) {
-                    avgDepth += depth;
-                }
-                avgDepth /= zDepths.length;
+            if (allVisible && isPointInPolygon(screenX, screenY, polygonX, polygonY, size)) {
+                double avgDepth = depthSum / size;
 
                 if (avgDepth < closestDepth) {
                     closestDepth = avgDepth;
@@ -224,8 +242,7 @@ public class ModelDeletionManager {
         return closestPolygonIndex;
     }
 
-    private boolean isPointInPolygon(double x, double y, double[] xPoints, double[] yPoints) {
-        int n = xPoints.length;
+    private boolean isPointInPolygon(double x, double y, double[] xPoints, double[] yPoints, int n) {
         boolean inside = false;
 
         for (int i = 0, j = n - 1; i < n; j = i++) {
@@ -77,6 +77,13 @@ public class ModelManager {
         private final Model model;
         private String name;
         private RenderingModes.Texture texture; // Поле для хранения текстуры
+        // Отсечение граней: по умолчанию рисуются все грани - у незамкнутых сеток
+        // задние грани видны; отсечение задних включается для модели явно
+        private RenderingModes.RenderingModes.CullMode cullMode = RenderingModes.RenderingModes.CullMode.NONE;
+        // Освещённость граней/вершин модели между кадрами (плоское затенение и затенение по Гуро)
+        private final RenderingModes.ShadingCache shadingCache = new RenderingModes.ShadingCache();
+        // Кластеры граней и их порядок спереди назад для последней позиции камеры
+        private final RenderingModes.ClusterOrder clusterOrder = new RenderingModes.ClusterOrder();
 
         public ModelEntry(int id, Model model, String name) {
             this.id = id;
@@ -88,6 +95,12 @@ public class ModelManager {
         public RenderingModes.Texture getTexture() { return texture; }
         public void setTexture(RenderingModes.Texture texture) { this.texture = texture; }
 
+        public RenderingModes.RenderingModes.CullMode getCullMode() { return cullMode; }
+        public void setCullMode(RenderingModes.RenderingModes.CullMode cullMode) { this.cullMode = cullMode; }
+
+        public RenderingModes.ShadingCache getShadingCache() { return shadingCache; }
+        public RenderingModes.ClusterOrder getClusterOrder() { return clusterOrder; }
+
         public int getId() { return id; }
         public Model getModel() { return model; }
         public String getName() { return name; }
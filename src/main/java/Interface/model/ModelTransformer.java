@@ -4,6 +4,8 @@ import Math.affine.AffineTransformations;
 import Math.matrix.Matrix4x4;
 import Math.vector.Vector3D;
 
+import java.util.List;
+
 public class ModelTransformer {
     private final AffineTransformations transformations;
 
@@ -30,25 +32,58 @@ public class ModelTransformer {
         applyTransformation(model, scaleMatrix);
     }
 
+    // Вершины и нормали упаковываются в массивы xyz и преобразуются пакетно
     private void applyTransformation(Model model, Matrix4x4 transformationMatrix) {
-        for (int i = 0; i < model.getVertices().size(); i++) {
-            Vector3D vertex = model.getVertices().get(i);
-            Vector3D transformedVertex = transformationMatrix.multiply(vertex);
-            model.getVertices().set(i, transformedVertex);
-        }
+        List<Vector3D> vertices = model.getVertices();
+        float[] positions = pack(vertices);
+        transformationMatrix.transformPoints(positions, positions, vertices.size());
+        unpack(positions, vertices);
 
-        if (model.getNormals() != null) {
-            for (int i = 0; i < model.getNormals().size(); i++) {
-                Vector3D normal = model.getNormals().get(i);
-                Vector3D transformedNormal = transformationMatrix.multiply(normal);
+        List<Vector3D> normals = model.getNormals();
+        if (normals != null && !normals.isEmpty()) {
+            float[] directions = pack(normals);
+            normalMatrix(transformationMatrix).transformDirections(directions, directions, normals.size());
+            for (int i = 0; i < normals.size(); i++) {
+                Vector3D transformedNormal = new Vector3D(directions[3 * i], directions[3 * i + 1], directions[3 * i + 2]);
                 try {
                     transformedNormal = transformedNormal.normalize();
                 } catch (ArithmeticException e) {
                     // Если нормаль стала нулевой, оставляем исходную
+                    transformedNormal = normals.get(i);
                 }
-                model.getNormals().set(i, transformedNormal);
+                normals.set(i, transformedNormal);
             }
         }
+
+        model.markGeometryChanged();
+    }
+
+    // Нормали преобразуются обратной транспонированной матрицей, иначе при неравномерном
+    // масштабе они перестают быть перпендикулярны поверхности. Для вырожденной матрицы
+    // используется она сама
+    private static Matrix4x4 normalMatrix(Matrix4x4 matrix) {
+        try {
+            return matrix.inverse().transpose();
+        } catch (ArithmeticException e) {
+            return matrix;
+        }
+    }
+
+    private static float[] pack(List<Vector3D> vectors) {
+        float[] packed = new float[3 * vectors.size()];
+        for (int i = 0; i < vectors.size(); i++) {
+            Vector3D vector = vectors.get(i);
+            packed[3 * i] = vector.getX();
+            packed[3 * i + 1] = vector.getY();
+            packed[3 * i + 2] = vector.getZ();
+        }
+        return packed;
+    }
+
+    private static void unpack(float[] packed, List<Vector3D> vectors) {
+        for (int i = 0; i < vectors.size(); i++) {
+            vectors.set(i, new Vector3D(packed[3 * i], packed[3 * i + 1], packed[3 * i + 2]));
+        }
     }
 
     public Vector3D getModelCenter(Model model) {
@@ -2,6 +2,7 @@
 package Math.cam;
 
 import Math.matrix.Matrix4x4;
+import Math.vector.Vec3f;
 import Math.vector.Vector3D;
 
 public class Camera {
@@ -14,6 +15,15 @@ public class Camera {
     private float nearPlane;
     private float farPlane;
 
+    // Рабочие векторы и матрицы для вариантов ...Into: камера используется одним потоком
+    private final Vec3f scratchPosition = new Vec3f();
+    private final Vec3f scratchUp = new Vec3f();
+    private final Vec3f zAxis = new Vec3f();
+    private final Vec3f xAxis = new Vec3f();
+    private final Vec3f yAxis = new Vec3f();
+    private final Matrix4x4 scratchView = Matrix4x4.zero();
+    private final Matrix4x4 scratchProjection = Matrix4x4.zero();
+
     public Camera(Vector3D position, Vector3D target, float fov, float aspectRatio, float nearPlane, float farPlane) {
         this.position = position;
         this.target = target;
@@ -77,36 +87,51 @@ public class Camera {
     }
 
     public Matrix4x4 getViewMatrix() {
-        Vector3D zAxis = position.subtract(target).normalize();
-        Vector3D xAxis = up.cross(zAxis).normalize();
-        Vector3D yAxis = zAxis.cross(xAxis);
+        return getViewMatrixInto(Matrix4x4.zero());
+    }
+
+    public Matrix4x4 getViewMatrixInto(Matrix4x4 dst) {
+        scratchPosition.set(position);
+        scratchUp.set(up);
+        scratchPosition.subtractInto(zAxis.set(target), zAxis).normalizeInto(zAxis);
+        scratchUp.crossInto(zAxis, xAxis).normalizeInto(xAxis);
+        zAxis.crossInto(xAxis, yAxis);
 
-        float[][] viewData = {
-                {xAxis.getX(), xAxis.getY(), xAxis.getZ(), -xAxis.dot(position)},
-                {yAxis.getX(), yAxis.getY(), yAxis.getZ(), -yAxis.dot(position)},
-                {zAxis.getX(), zAxis.getY(), zAxis.getZ(), -zAxis.dot(position)},
-                {0, 0, 0, 1}
-        };
-        return new Matrix4x4(viewData);
+        setRow(dst, 0, xAxis.getX(), xAxis.getY(), xAxis.getZ(), -xAxis.dot(scratchPosition));
+        setRow(dst, 1, yAxis.getX(), yAxis.getY(), yAxis.getZ(), -yAxis.dot(scratchPosition));
+        setRow(dst, 2, zAxis.getX(), zAxis.getY(), zAxis.getZ(), -zAxis.dot(scratchPosition));
+        setRow(dst, 3, 0, 0, 0, 1);
+        return dst;
     }
 
     public Matrix4x4 getProjectionMatrix() {
+        return getProjectionMatrixInto(Matrix4x4.zero());
+    }
+
+    public Matrix4x4 getProjectionMatrixInto(Matrix4x4 dst) {
         float fovRad = (float) Math.toRadians(fov);
         float tanHalfFov = (float) Math.tan(fovRad / 2.0f);
 
-        float[][] projData = new float[4][4];
-
-        projData[0][0] = 1.0f / (aspectRatio * tanHalfFov);
-        projData[1][1] = 1.0f / tanHalfFov;
-        projData[2][2] = -(farPlane + nearPlane) / (farPlane - nearPlane);
-        projData[2][3] = -(2.0f * farPlane * nearPlane) / (farPlane - nearPlane);
-        projData[3][2] = -1.0f;
-        projData[3][3] = 0.0f;
-
-        return new Matrix4x4(projData);
+        setRow(dst, 0, 1.0f / (aspectRatio * tanHalfFov), 0, 0, 0);
+        setRow(dst, 1, 0, 1.0f / tanHalfFov, 0, 0);
+        setRow(dst, 2, 0, 0, -(farPlane + nearPlane) / (farPlane - nearPlane),
+                -(2.0f * farPlane * nearPlane) / (farPlane - nearPlane));
+        setRow(dst, 3, 0, 0, -1.0f, 0.0f);
+        return dst;
     }
 
     public Matrix4x4 getViewProjectionMatrix() {
         return getProjectionMatrix().multiply(getViewMatrix());
     }
-}
\ No newline at end of file
+
+    public Matrix4x4 getViewProjectionMatrixInto(Matrix4x4 dst) {
+        return getProjectionMatrixInto(scratchProjection).multiplyInto(getViewMatrixInto(scratchView), dst);
+    }
+
+    private static void setRow(Matrix4x4 matrix, int row, float a, float b, float c, float d) {
+        matrix.set(row, 0, a);
+        matrix.set(row, 1, b);
+        matrix.set(row, 2, c);
+        matrix.set(row, 3, d);
+    }
+}
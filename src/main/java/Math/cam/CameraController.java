@@ -1,6 +1,6 @@
 package Math.cam;
 
-import Math.vector.Vector3D;
+import Math.vector.Vec3f;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.input.MouseButton;
 
@@ -17,6 +17,18 @@ public class CameraController {
     private static final float MOVEMENT_SENSITIVITY = 0.005f;
     private static final float ZOOM_SENSITIVITY = 0.01f;
 
+    // Рабочие векторы: обработка событий мыши не создаёт промежуточных объектов
+    private static final Vec3f WORLD_UP = new Vec3f(0, 1, 0);
+    private final Vec3f position = new Vec3f();
+    private final Vec3f target = new Vec3f();
+    private final Vec3f viewVec = new Vec3f();
+    private final Vec3f look = new Vec3f();
+    private final Vec3f right = new Vec3f();
+    private final Vec3f up = new Vec3f();
+    private final Vec3f offset = new Vec3f();
+    private final Vec3f axis = new Vec3f();
+    private final Vec3f cross = new Vec3f();
+
     public CameraController(Camera camera, Canvas canvas) {
         this.camera = camera;
         setupControlHandlers(canvas);
@@ -72,52 +84,58 @@ public class CameraController {
     }
 
     private void handleRotation(float dx, float dy) {
-        Vector3D pos = camera.getPosition();
-        Vector3D target = camera.getTarget();
-        Vector3D viewVec = pos.subtract(target);
+        position.set(camera.getPosition());
+        target.set(camera.getTarget());
+        position.subtractInto(target, viewVec);
         float radius = viewVec.length();
 
-        viewVec = rotateVectorAroundAxis(viewVec, new Vector3D(0, 1, 0), -dx * ROTATION_SENSITIVITY);
+        rotateVectorAroundAxis(viewVec, WORLD_UP, -dx * ROTATION_SENSITIVITY);
 
-        Vector3D right = new Vector3D(0, 1, 0).cross(viewVec).normalize();
-        viewVec = rotateVectorAroundAxis(viewVec, right, dy * ROTATION_SENSITIVITY);
+        WORLD_UP.crossInto(viewVec, right).normalizeInto(right);
+        rotateVectorAroundAxis(viewVec, right, dy * ROTATION_SENSITIVITY);
 
-        camera.setPosition(target.add(viewVec.normalize().multiply(radius)));
+        viewVec.normalizeInto(viewVec).multiplyInto(radius, viewVec);
+        camera.setPosition(target.addInto(viewVec, position).toVector3D());
     }
 
     private void handleMovement(float dx, float dy) {
-        Vector3D pos = camera.getPosition();
-        Vector3D target = camera.getTarget();
+        position.set(camera.getPosition());
+        target.set(camera.getTarget());
 
-        Vector3D look = target.subtract(pos).normalize();
-        Vector3D right = new Vector3D(0, 1, 0).cross(look).normalize();
-        Vector3D up = look.cross(right).normalize();
+        target.subtractInto(position, look).normalizeInto(look);
+        WORLD_UP.crossInto(look, right).normalizeInto(right);
+        look.crossInto(right, up).normalizeInto(up);
 
-        float factor = pos.subtract(target).length() * MOVEMENT_SENSITIVITY;
+        float factor = position.distance(target) * MOVEMENT_SENSITIVITY;
 
-        Vector3D offset = right.multiply(-dx * factor).add(up.multiply(dy * factor));
+        right.multiplyInto(-dx * factor, offset).addScaledInto(up, dy * factor, offset);
 
-        camera.setPosition(pos.add(offset));
-        camera.setTarget(target.add(offset));
+        camera.setPosition(position.addInto(offset, position).toVector3D());
+        camera.setTarget(target.addInto(offset, target).toVector3D());
     }
 
     private void handleZoom(float delta) {
-        Vector3D pos = camera.getPosition();
-        Vector3D target = camera.getTarget();
-        Vector3D dir = pos.subtract(target);
+        position.set(camera.getPosition());
+        target.set(camera.getTarget());
+        position.subtractInto(target, viewVec);
 
-        float newDist = Math.max(0.1f, dir.length() - delta * ZOOM_SENSITIVITY);
-        camera.setPosition(target.add(dir.normalize().multiply(newDist)));
+        float newDist = Math.max(0.1f, viewVec.length() - delta * ZOOM_SENSITIVITY);
+        viewVec.normalizeInto(viewVec).multiplyInto(newDist, viewVec);
+        camera.setPosition(target.addInto(viewVec, position).toVector3D());
     }
 
-    private Vector3D rotateVectorAroundAxis(Vector3D vector, Vector3D axis, float angleDeg) {
+    // Поворот vector вокруг оси (формула Родрига); результат записывается в vector
+    private void rotateVectorAroundAxis(Vec3f vector, Vec3f axisVector, float angleDeg) {
         float rad = (float) Math.toRadians(angleDeg);
         float cos = (float) Math.cos(rad);
         float sin = (float) Math.sin(rad);
 
-        Vector3D a = axis.normalize();
-        return vector.multiply(cos)
-                .add(a.cross(vector).multiply(sin))
-                .add(a.multiply(a.dot(vector) * (1 - cos)));
+        axisVector.normalizeInto(axis);
+        axis.crossInto(vector, cross);
+        float projection = axis.dot(vector) * (1 - cos);
+
+        vector.multiplyInto(cos, vector)
+                .addScaledInto(cross, sin, vector)
+                .addScaledInto(axis, projection, vector);
     }
-}
\ No newline at end of file
+}
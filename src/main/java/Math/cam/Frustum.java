@@ -0,0 +1,69 @@
+package Math.cam;
+
+import Math.matrix.Matrix4x4;
+
+// Шесть плоскостей видимого объёма, извлечённые из матрицы вида-проекции
+// (метод Gribb-Hartmann). Плоскость хранится как (a, b, c, d): точка p внутри,
+// если a*x + b*y + c*z + d >= 0. Плоскости не нормированы, поэтому для сферы
+// радиус масштабируется длиной нормали.
+public class Frustum {
+    private static final int PLANE_COUNT = 6;
+
+    private final float[] planes = new float[PLANE_COUNT * 4];
+    private final float[] normalLengths = new float[PLANE_COUNT];
+
+    public Frustum(Matrix4x4 viewProjection) {
+        update(viewProjection);
+    }
+
+    public Frustum(Camera camera) {
+        this(camera.getViewProjectionMatrix());
+    }
+
+    // Пересчёт плоскостей на месте: один объект служит всем кадрам
+    public void update(Matrix4x4 viewProjection) {
+        // left, right, bottom, top, near, far: w ± x, w ± y, w ± z
+        for (int axis = 0; axis < 3; axis++) {
+            for (int side = 0; side < 2; side++) {
+                int plane = axis * 2 + side;
+                float sign = side == 0 ? 1.0f : -1.0f;
+                for (int col = 0; col < 4; col++) {
+                    planes[plane * 4 + col] = viewProjection.get(3, col) + sign * viewProjection.get(axis, col);
+                }
+                float a = planes[plane * 4];
+                float b = planes[plane * 4 + 1];
+                float c = planes[plane * 4 + 2];
+                normalLengths[plane] = (float) Math.sqrt(a * a + b * b + c * c);
+            }
+        }
+    }
+
+    // false, если сфера целиком снаружи хотя бы одной плоскости
+    public boolean intersectsSphere(float centerX, float centerY, float centerZ, float radius) {
+        for (int plane = 0; plane < PLANE_COUNT; plane++) {
+            if (distance(plane, centerX, centerY, centerZ) < -radius * normalLengths[plane]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // false, если параллелепипед целиком снаружи хотя бы одной плоскости:
+    // проверяется его вершина, дальше всех продвинутая вдоль нормали плоскости
+    public boolean intersectsBox(float minX, float minY, float minZ, float maxX, float maxY, float maxZ) {
+        for (int plane = 0; plane < PLANE_COUNT; plane++) {
+            float x = planes[plane * 4] >= 0 ? maxX : minX;
+            float y = planes[plane * 4 + 1] >= 0 ? maxY : minY;
+            float z = planes[plane * 4 + 2] >= 0 ? maxZ : minZ;
+            if (distance(plane, x, y, z) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private float distance(int plane, float x, float y, float z) {
+        int offset = plane * 4;
+        return planes[offset] * x + planes[offset + 1] * y + planes[offset + 2] * z + planes[offset + 3];
+    }
+}
@@ -2,10 +2,13 @@ package Math.matrix;
 
 import Math.vector.AbstractVector;
 
+// Элементы хранятся одним плоским массивом по строкам: элемент (i, j) лежит в data[i * cols + j].
+// Конструктор из float[][] копирует данные; результаты операций передаются
+// в createNew без повторного копирования.
 public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends AbstractVector<V>>
         implements Matrix<T, V> {
 
-    protected final float[][] data;
+    protected final float[] data;
     protected final int rows;
     protected final int cols;
 
@@ -13,19 +16,27 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
         validateMatrix(data, rows, cols);
         this.rows = rows;
         this.cols = cols;
-        this.data = deepCopy(data);
+        this.data = flatten(data, rows, cols);
     }
 
-    protected abstract T createNew(float[][] data);
+    // Массив не копируется: вызывающий передаёт матрице владение им
+    protected AbstractMatrix(float[] data, int rows, int cols) {
+        if (data == null || data.length != rows * cols) {
+            throw new IllegalArgumentException("Invalid matrix dimensions");
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    protected abstract T createNew(float[] data);
 
     @Override
     public T add(T other) {
         checkDimensions(other);
-        float[][] result = new float[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                result[i][j] = this.data[i][j] + other.data[i][j];
-            }
+        float[] result = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            result[i] = this.data[i] + other.data[i];
         }
         return createNew(result);
     }
@@ -33,22 +44,18 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
     @Override
     public T subtract(T other) {
         checkDimensions(other);
-        float[][] result = new float[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                result[i][j] = this.data[i][j] - other.data[i][j];
-            }
+        float[] result = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            result[i] = this.data[i] - other.data[i];
         }
         return createNew(result);
     }
 
     @Override
     public T multiply(float scalar) {
-        float[][] result = new float[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                result[i][j] = this.data[i][j] * scalar;
-            }
+        float[] result = new float[data.length];
+        for (int i = 0; i < data.length; i++) {
+            result[i] = this.data[i] * scalar;
         }
         return createNew(result);
     }
@@ -59,14 +66,14 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
             throw new IllegalArgumentException("Matrix dimensions don't match for multiplication");
         }
 
-        float[][] result = new float[this.rows][other.cols];
+        float[] result = new float[this.rows * other.cols];
         for (int i = 0; i < this.rows; i++) {
             for (int j = 0; j < other.cols; j++) {
                 float sum = 0;
                 for (int k = 0; k < this.cols; k++) {
-                    sum += this.data[i][k] * other.data[k][j];
+                    sum += this.data[i * this.cols + k] * other.data[k * other.cols + j];
                 }
-                result[i][j] = sum;
+                result[i * other.cols + j] = sum;
             }
         }
         return createNew(result);
@@ -74,10 +81,10 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
 
     @Override
     public T transpose() {
-        float[][] result = new float[cols][rows];
+        float[] result = new float[data.length];
         for (int i = 0; i < rows; i++) {
             for (int j = 0; j < cols; j++) {
-                result[j][i] = this.data[i][j];
+                result[j * rows + i] = this.data[i * cols + j];
             }
         }
         return createNew(result);
@@ -92,7 +99,7 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
     @Override
     public float get(int row, int col) {
         checkIndices(row, col);
-        return data[row][col];
+        return data[row * cols + col];
     }
 
     protected void checkDimensions(T other) {
@@ -118,19 +125,23 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
         }
     }
 
-    protected float[][] deepCopy(float[][] original) {
-        float[][] copy = new float[original.length][];
-        for (int i = 0; i < original.length; i++) {
-            copy[i] = original[i].clone();
+    private static float[] flatten(float[][] matrix, int rows, int cols) {
+        float[] flat = new float[rows * cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(matrix[i], 0, flat, i * cols, cols);
         }
-        return copy;
+        return flat;
     }
 
     public float[][] getData() {
-        return deepCopy(data);
+        float[][] copy = new float[rows][cols];
+        for (int i = 0; i < rows; i++) {
+            System.arraycopy(data, i * cols, copy[i], 0, cols);
+        }
+        return copy;
     }
 
-    protected float[][] getDataDirect() {
+    protected float[] getDataDirect() {
         return data;
     }
 
@@ -142,11 +153,9 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
         AbstractMatrix<?, ?> other = (AbstractMatrix<?, ?>) obj;
         if (this.rows != other.rows || this.cols != other.cols) return false;
 
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (Math.abs(this.data[i][j] - other.data[i][j]) >= 1e-6f) {
-                    return false;
-                }
+        for (int i = 0; i < data.length; i++) {
+            if (Math.abs(this.data[i] - other.data[i]) >= 1e-6f) {
+                return false;
             }
         }
         return true;
@@ -159,10 +168,10 @@ public abstract class AbstractMatrix<T extends AbstractMatrix<T, V>, V extends A
         for (int i = 0; i < rows; i++) {
             sb.append("[ ");
             for (int j = 0; j < cols; j++) {
-                sb.append(String.format("%8.3f ", data[i][j]));
+                sb.append(String.format("%8.3f ", data[i * cols + j]));
             }
             sb.append("]\n");
         }
         return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -8,25 +8,29 @@ public class CustomMatrix extends AbstractMatrix<CustomMatrix, Vector3D> {
         super(data, 3, 3);
     }
 
+    private CustomMatrix(float[] data) {
+        super(data, 3, 3);
+    }
+
     @Override
-    protected CustomMatrix createNew(float[][] data) {
+    protected CustomMatrix createNew(float[] data) {
         return new CustomMatrix(data);
     }
 
     @Override
     public Vector3D multiply(Vector3D vector) {
-        float x = data[0][0] * vector.getX() + data[0][1] * vector.getY() + data[0][2] * vector.getZ();
-        float y = data[1][0] * vector.getX() + data[1][1] * vector.getY() + data[1][2] * vector.getZ();
-        float z = data[2][0] * vector.getX() + data[2][1] * vector.getY() + data[2][2] * vector.getZ();
+        float x = data[0] * vector.getX() + data[1] * vector.getY() + data[2] * vector.getZ();
+        float y = data[3] * vector.getX() + data[4] * vector.getY() + data[5] * vector.getZ();
+        float z = data[6] * vector.getX() + data[7] * vector.getY() + data[8] * vector.getZ();
         return new Vector3D(x, y, z);
     }
 
     @Override
     public float determinant() {
         // Базовая реализация определителя 3x3
-        float a = data[0][0], b = data[0][1], c = data[0][2];
-        float d = data[1][0], e = data[1][1], f = data[1][2];
-        float g = data[2][0], h = data[2][1], i = data[2][2];
+        float a = data[0], b = data[1], c = data[2];
+        float d = data[3], e = data[4], f = data[5];
+        float g = data[6], h = data[7], i = data[8];
 
         return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
     }
@@ -38,9 +42,9 @@ public class CustomMatrix extends AbstractMatrix<CustomMatrix, Vector3D> {
             throw new ArithmeticException("Matrix is singular, cannot invert");
         }
 
-        float a = data[0][0], b = data[0][1], c = data[0][2];
-        float d = data[1][0], e = data[1][1], f = data[1][2];
-        float g = data[2][0], h = data[2][1], i = data[2][2];
+        float a = data[0], b = data[1], c = data[2];
+        float d = data[3], e = data[4], f = data[5];
+        float g = data[6], h = data[7], i = data[8];
 
         float invDet = 1.0f / det;
         float[][] result = {
@@ -62,7 +66,7 @@ public class CustomMatrix extends AbstractMatrix<CustomMatrix, Vector3D> {
         float[][] result = new float[3][3];
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 3; j++) {
-                result[i][j] = data[i][j] * 2; // Пример операции
+                result[i][j] = data[i * 3 + j] * 2; // Пример операции
             }
         }
         return new CustomMatrix(result);
@@ -8,8 +8,12 @@ public final class Matrix3x3 extends AbstractMatrix<Matrix3x3, Vector3D> {
         super(data, 3, 3);
     }
 
+    private Matrix3x3(float[] data) {
+        super(data, 3, 3);
+    }
+
     @Override
-    protected Matrix3x3 createNew(float[][] data) {
+    protected Matrix3x3 createNew(float[] data) {
         return new Matrix3x3(data);
     }
 
@@ -27,17 +31,17 @@ public final class Matrix3x3 extends AbstractMatrix<Matrix3x3, Vector3D> {
 
     @Override
     public Vector3D multiply(Vector3D vector) {
-        float x = data[0][0] * vector.getX() + data[0][1] * vector.getY() + data[0][2] * vector.getZ();
-        float y = data[1][0] * vector.getX() + data[1][1] * vector.getY() + data[1][2] * vector.getZ();
-        float z = data[2][0] * vector.getX() + data[2][1] * vector.getY() + data[2][2] * vector.getZ();
+        float x = data[0] * vector.getX() + data[1] * vector.getY() + data[2] * vector.getZ();
+        float y = data[3] * vector.getX() + data[4] * vector.getY() + data[5] * vector.getZ();
+        float z = data[6] * vector.getX() + data[7] * vector.getY() + data[8] * vector.getZ();
         return new Vector3D(x, y, z);
     }
 
     @Override
     public float determinant() {
-        float a = data[0][0], b = data[0][1], c = data[0][2];
-        float d = data[1][0], e = data[1][1], f = data[1][2];
-        float g = data[2][0], h = data[2][1], i = data[2][2];
+        float a = data[0], b = data[1], c = data[2];
+        float d = data[3], e = data[4], f = data[5];
+        float g = data[6], h = data[7], i = data[8];
 
         return a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
     }
@@ -49,9 +53,9 @@ public final class Matrix3x3 extends AbstractMatrix<Matrix3x3, Vector3D> {
             throw new ArithmeticException("Matrix is singular, cannot invert");
         }
 
-        float a = data[0][0], b = data[0][1], c = data[0][2];
-        float d = data[1][0], e = data[1][1], f = data[1][2];
-        float g = data[2][0], h = data[2][1], i = data[2][2];
+        float a = data[0], b = data[1], c = data[2];
+        float d = data[3], e = data[4], f = data[5];
+        float g = data[6], h = data[7], i = data[8];
 
         float invDet = 1.0f / det;
         float[][] result = {
@@ -72,7 +76,7 @@ public final class Matrix3x3 extends AbstractMatrix<Matrix3x3, Vector3D> {
         float[][] augmented = new float[3][4];
 
         for (int i = 0; i < 3; i++) {
-            System.arraycopy(data[i], 0, augmented[i], 0, 3);
+            System.arraycopy(data, i * 3, augmented[i], 0, 3);
             switch(i) {
                 case 0: augmented[i][3] = b.getX(); break;
                 case 1: augmented[i][3] = b.getY(); break;
@@ -1,83 +1,389 @@
 package Math.matrix;
 
+import Math.vector.Vec3f;
 import Math.vector.Vector3D;
 import Math.vector.Vector4D;
 
+// Матрица 4x4 в плоском массиве float[16] по строкам.
+// Флаг affine означает, что последняя строка равна (0, 0, 0, 1): для таких матриц
+// преобразование точки не требует деления на w, а обратная матрица считается
+// через обратную 3x3 и перенос.
 public final class Matrix4x4 extends AbstractMatrix<Matrix4x4, Vector4D> {
 
+    private boolean affine;
+
     public Matrix4x4(float[][] data) {
         super(data, 4, 4);
+        updateAffine();
+    }
+
+    private Matrix4x4(float[] data) {
+        super(data, 4, 4);
+        updateAffine();
     }
 
     @Override
-    protected Matrix4x4 createNew(float[][] data) {
+    protected Matrix4x4 createNew(float[] data) {
         return new Matrix4x4(data);
     }
 
+    // 16 элементов по строкам; массив копируется
+    public static Matrix4x4 fromRowMajor(float[] values) {
+        if (values == null || values.length != 16) {
+            throw new IllegalArgumentException("Invalid matrix dimensions");
+        }
+        return new Matrix4x4(values.clone());
+    }
+
     public static Matrix4x4 identity() {
-        return new Matrix4x4(new float[][]{
-                {1, 0, 0, 0},
-                {0, 1, 0, 0},
-                {0, 0, 1, 0},
-                {0, 0, 0, 1}
+        return new Matrix4x4(new float[]{
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, 1, 0,
+                0, 0, 0, 1
         });
     }
 
     public static Matrix4x4 zero() {
-        return new Matrix4x4(new float[4][4]);
+        return new Matrix4x4(new float[16]);
     }
 
     public static Matrix4x4 translation(float x, float y, float z) {
-        return new Matrix4x4(new float[][]{
-                {1, 0, 0, x},
-                {0, 1, 0, y},
-                {0, 0, 1, z},
-                {0, 0, 0, 1}
+        return new Matrix4x4(new float[]{
+                1, 0, 0, x,
+                0, 1, 0, y,
+                0, 0, 1, z,
+                0, 0, 0, 1
         });
     }
 
+    private void updateAffine() {
+        affine = data[12] == 0.0f && data[13] == 0.0f && data[14] == 0.0f && data[15] == 1.0f;
+    }
+
+    public boolean isAffine() {
+        return affine;
+    }
+
+    // Копия элементов по строкам в dst[0..15]
+    public void copyTo(float[] dst) {
+        System.arraycopy(data, 0, dst, 0, 16);
+    }
+
     @Override
     public Vector4D multiply(Vector4D vector) {
-        float x = data[0][0] * vector.getX() + data[0][1] * vector.getY() +
-                data[0][2] * vector.getZ() + data[0][3] * vector.getW();
-        float y = data[1][0] * vector.getX() + data[1][1] * vector.getY() +
-                data[1][2] * vector.getZ() + data[1][3] * vector.getW();
-        float z = data[2][0] * vector.getX() + data[2][1] * vector.getY() +
-                data[2][2] * vector.getZ() + data[2][3] * vector.getW();
-        float w = data[3][0] * vector.getX() + data[3][1] * vector.getY() +
-                data[3][2] * vector.getZ() + data[3][3] * vector.getW();
-        return new Vector4D(x, y, z, w);
+        float vx = vector.getX();
+        float vy = vector.getY();
+        float vz = vector.getZ();
+        float vw = vector.getW();
+        return new Vector4D(
+                data[0] * vx + data[1] * vy + data[2] * vz + data[3] * vw,
+                data[4] * vx + data[5] * vy + data[6] * vz + data[7] * vw,
+                data[8] * vx + data[9] * vy + data[10] * vz + data[11] * vw,
+                data[12] * vx + data[13] * vy + data[14] * vz + data[15] * vw);
     }
 
+    // Точка (w = 1). Для аффинной матрицы w всегда равно 1 и деление пропускается
     public Vector3D multiply(Vector3D vector) {
-        Vector4D homogeneous = new Vector4D(vector, 1.0f);
-        Vector4D result = multiply(homogeneous);
-        return result.toVector3D();
+        float vx = vector.getX();
+        float vy = vector.getY();
+        float vz = vector.getZ();
+        float x = data[0] * vx + data[1] * vy + data[2] * vz + data[3] * 1.0f;
+        float y = data[4] * vx + data[5] * vy + data[6] * vz + data[7] * 1.0f;
+        float z = data[8] * vx + data[9] * vy + data[10] * vz + data[11] * 1.0f;
+        if (affine) {
+            return new Vector3D(x, y, z);
+        }
+
+        float w = data[12] * vx + data[13] * vy + data[14] * vz + data[15] * 1.0f;
+        if (Math.abs(w) < 1e-12f) {
+            throw new ArithmeticException("Cannot project vector with w=0");
+        }
+        return new Vector3D(x / w, y / w, z / w);
     }
 
     @Override
-    public float determinant() {
-        float det = 0;
-        for (int j = 0; j < 4; j++) {
-            det += data[0][j] * cofactor(0, j);
+    public Matrix4x4 multiply(Matrix4x4 other) {
+        return multiplyInto(other, zero());
+    }
+
+    public void set(int row, int col, float value) {
+        checkIndices(row, col);
+        data[row * 4 + col] = value;
+        if (row == 3) {
+            updateAffine();
+        }
+    }
+
+    public void set(Matrix4x4 other) {
+        System.arraycopy(other.data, 0, data, 0, 16);
+        affine = other.affine;
+    }
+
+    // Изменяемый API без выделения памяти: матрица-приёмник переиспользуется между кадрами.
+    // Значения совпадают с multiply(...) побитово.
+    // dst = this * other. Все элементы читаются до записи, поэтому dst
+    // может совпадать с любым из множителей
+    public Matrix4x4 multiplyInto(Matrix4x4 other, Matrix4x4 dst) {
+        float[] a = this.data;
+        float[] b = other.data;
+        float a00 = a[0], a01 = a[1], a02 = a[2], a03 = a[3];
+        float a10 = a[4], a11 = a[5], a12 = a[6], a13 = a[7];
+        float a20 = a[8], a21 = a[9], a22 = a[10], a23 = a[11];
+        float a30 = a[12], a31 = a[13], a32 = a[14], a33 = a[15];
+        float b00 = b[0], b01 = b[1], b02 = b[2], b03 = b[3];
+        float b10 = b[4], b11 = b[5], b12 = b[6], b13 = b[7];
+        float b20 = b[8], b21 = b[9], b22 = b[10], b23 = b[11];
+        float b30 = b[12], b31 = b[13], b32 = b[14], b33 = b[15];
+
+        float[] r = dst.data;
+        r[0] = a00 * b00 + a01 * b10 + a02 * b20 + a03 * b30;
+        r[1] = a00 * b01 + a01 * b11 + a02 * b21 + a03 * b31;
+        r[2] = a00 * b02 + a01 * b12 + a02 * b22 + a03 * b32;
+        r[3] = a00 * b03 + a01 * b13 + a02 * b23 + a03 * b33;
+        r[4] = a10 * b00 + a11 * b10 + a12 * b20 + a13 * b30;
+        r[5] = a10 * b01 + a11 * b11 + a12 * b21 + a13 * b31;
+        r[6] = a10 * b02 + a11 * b12 + a12 * b22 + a13 * b32;
+        r[7] = a10 * b03 + a11 * b13 + a12 * b23 + a13 * b33;
+        r[8] = a20 * b00 + a21 * b10 + a22 * b20 + a23 * b30;
+        r[9] = a20 * b01 + a21 * b11 + a22 * b21 + a23 * b31;
+        r[10] = a20 * b02 + a21 * b12 + a22 * b22 + a23 * b32;
+        r[11] = a20 * b03 + a21 * b13 + a22 * b23 + a23 * b33;
+        r[12] = a30 * b00 + a31 * b10 + a32 * b20 + a33 * b30;
+        r[13] = a30 * b01 + a31 * b11 + a32 * b21 + a33 * b31;
+        r[14] = a30 * b02 + a31 * b12 + a32 * b22 + a33 * b32;
+        r[15] = a30 * b03 + a31 * b13 + a32 * b23 + a33 * b33;
+        dst.updateAffine();
+        return dst;
+    }
+
+    // Точка (w = 1) с делением на w, как multiply(Vector3D), без выделения памяти;
+    // результат совпадает побитово
+    public Vec3f multiplyPointInto(Vec3f point, Vec3f dst) {
+        float px = point.getX();
+        float py = point.getY();
+        float pz = point.getZ();
+        float x = data[0] * px + data[1] * py + data[2] * pz + data[3] * 1.0f;
+        float y = data[4] * px + data[5] * py + data[6] * pz + data[7] * 1.0f;
+        float z = data[8] * px + data[9] * py + data[10] * pz + data[11] * 1.0f;
+        if (affine) {
+            return dst.set(x, y, z);
+        }
+
+        float w = data[12] * px + data[13] * py + data[14] * pz + data[15] * 1.0f;
+        if (Math.abs(w) < 1e-12f) {
+            throw new ArithmeticException("Cannot project vector with w=0");
+        }
+        return dst.set(x / w, y / w, z / w);
+    }
+
+    // Пакетные преобразования массивов xyz (вершина i лежит в [3i, 3i + 3)).
+    // Циклы без объектов и ветвлений внутри; ветка affine вынесена из цикла.
+    // Результат совпадает с multiply(Vector3D) побитово, но при w = 0 исключение
+    // не бросается: получаются бесконечности или NaN, проверять их должен вызывающий.
+    // src и dst могут совпадать.
+
+    public void transformPoints(float[] src, float[] dst, int count) {
+        transformPoints(src, 0, dst, 0, count);
+    }
+
+    public void transformPoints(float[] src, int srcIndex, float[] dst, int dstIndex, int count) {
+        float m00 = data[0], m01 = data[1], m02 = data[2], m03 = data[3];
+        float m10 = data[4], m11 = data[5], m12 = data[6], m13 = data[7];
+        float m20 = data[8], m21 = data[9], m22 = data[10], m23 = data[11];
+        float m30 = data[12], m31 = data[13], m32 = data[14], m33 = data[15];
+        int s = 3 * srcIndex;
+        int d = 3 * dstIndex;
+        if (affine) {
+            for (int i = 0; i < count; i++, s += 3, d += 3) {
+                float vx = src[s], vy = src[s + 1], vz = src[s + 2];
+                dst[d] = m00 * vx + m01 * vy + m02 * vz + m03 * 1.0f;
+                dst[d + 1] = m10 * vx + m11 * vy + m12 * vz + m13 * 1.0f;
+                dst[d + 2] = m20 * vx + m21 * vy + m22 * vz + m23 * 1.0f;
+            }
+            return;
+        }
+        for (int i = 0; i < count; i++, s += 3, d += 3) {
+            float vx = src[s], vy = src[s + 1], vz = src[s + 2];
+            float w = m30 * vx + m31 * vy + m32 * vz + m33 * 1.0f;
+            dst[d] = (m00 * vx + m01 * vy + m02 * vz + m03 * 1.0f) / w;
+            dst[d + 1] = (m10 * vx + m11 * vy + m12 * vz + m13 * 1.0f) / w;
+            dst[d + 2] = (m20 * vx + m21 * vy + m22 * vz + m23 * 1.0f) / w;
+        }
+    }
+
+    // Направления (w = 0): действует только верхний блок 3x3, перенос не учитывается.
+    // Длина не нормируется
+    public void transformDirections(float[] src, float[] dst, int count) {
+        transformDirections(src, 0, dst, 0, count);
+    }
+
+    public void transformDirections(float[] src, int srcIndex, float[] dst, int dstIndex, int count) {
+        float m00 = data[0], m01 = data[1], m02 = data[2];
+        float m10 = data[4], m11 = data[5], m12 = data[6];
+        float m20 = data[8], m21 = data[9], m22 = data[10];
+        int s = 3 * srcIndex;
+        int d = 3 * dstIndex;
+        for (int i = 0; i < count; i++, s += 3, d += 3) {
+            float vx = src[s], vy = src[s + 1], vz = src[s + 2];
+            dst[d] = m00 * vx + m01 * vy + m02 * vz;
+            dst[d + 1] = m10 * vx + m11 * vy + m12 * vz;
+            dst[d + 2] = m20 * vx + m21 * vy + m22 * vz;
+        }
+    }
+
+    // Точки xyz в однородные координаты xyzw без деления (пространство отсечения).
+    // dst хранит по четыре числа на вершину
+    public void transformHomogeneous(float[] src, int srcIndex, float[] dst, int dstIndex, int count) {
+        float m00 = data[0], m01 = data[1], m02 = data[2], m03 = data[3];
+        float m10 = data[4], m11 = data[5], m12 = data[6], m13 = data[7];
+        float m20 = data[8], m21 = data[9], m22 = data[10], m23 = data[11];
+        float m30 = data[12], m31 = data[13], m32 = data[14], m33 = data[15];
+        int s = 3 * srcIndex;
+        int d = 4 * dstIndex;
+        for (int i = 0; i < count; i++, s += 3, d += 4) {
+            float vx = src[s], vy = src[s + 1], vz = src[s + 2];
+            dst[d] = m00 * vx + m01 * vy + m02 * vz + m03 * 1.0f;
+            dst[d + 1] = m10 * vx + m11 * vy + m12 * vz + m13 * 1.0f;
+            dst[d + 2] = m20 * vx + m21 * vy + m22 * vz + m23 * 1.0f;
+            dst[d + 3] = m30 * vx + m31 * vy + m32 * vz + m33 * 1.0f;
         }
-        return det;
+    }
+
+    // Проекция на экран: деление на w и отображение NDC [-1, 1] на [0, viewportWidth] x [0, viewportHeight]
+    // (ось y направлена вниз). В dst пишутся экранные x, y и z в NDC.
+    // Формула та же, что в VertexProcessor при viewportWidth = width - 1
+    public void projectToScreen(float[] src, float[] dst, int count, float viewportWidth, float viewportHeight) {
+        float m00 = data[0], m01 = data[1], m02 = data[2], m03 = data[3];
+        float m10 = data[4], m11 = data[5], m12 = data[6], m13 = data[7];
+        float m20 = data[8], m21 = data[9], m22 = data[10], m23 = data[11];
+        float m30 = data[12], m31 = data[13], m32 = data[14], m33 = data[15];
+        for (int i = 0, p = 0; i < count; i++, p += 3) {
+            float vx = src[p], vy = src[p + 1], vz = src[p + 2];
+            float x = m00 * vx + m01 * vy + m02 * vz + m03 * 1.0f;
+            float y = m10 * vx + m11 * vy + m12 * vz + m13 * 1.0f;
+            float z = m20 * vx + m21 * vy + m22 * vz + m23 * 1.0f;
+            float w = m30 * vx + m31 * vy + m32 * vz + m33 * 1.0f;
+            dst[p] = (x / w + 1.0f) * 0.5f * viewportWidth;
+            dst[p + 1] = (1.0f - y / w) * 0.5f * viewportHeight;
+            dst[p + 2] = z / w;
+        }
+    }
+
+    // Определитель и обратная матрица в замкнутой форме: через шесть миноров 2x2
+    // верхних двух строк (s) и шесть миноров 2x2 нижних двух строк (c)
+    @Override
+    public float determinant() {
+        float[] m = data;
+        float s0 = m[0] * m[5] - m[4] * m[1];
+        float s1 = m[0] * m[6] - m[4] * m[2];
+        float s2 = m[0] * m[7] - m[4] * m[3];
+        float s3 = m[1] * m[6] - m[5] * m[2];
+        float s4 = m[1] * m[7] - m[5] * m[3];
+        float s5 = m[2] * m[7] - m[6] * m[3];
+
+        float c5 = m[10] * m[15] - m[14] * m[11];
+        float c4 = m[9] * m[15] - m[13] * m[11];
+        float c3 = m[9] * m[14] - m[13] * m[10];
+        float c2 = m[8] * m[15] - m[12] * m[11];
+        float c1 = m[8] * m[14] - m[12] * m[10];
+        float c0 = m[8] * m[13] - m[12] * m[9];
+
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
     }
 
     @Override
     public Matrix4x4 inverse() {
-        float det = determinant();
+        return inverseInto(zero());
+    }
+
+    // dst может совпадать с this
+    public Matrix4x4 inverseInto(Matrix4x4 dst) {
+        if (affine) {
+            return affineInverseInto(dst);
+        }
+
+        float[] m = data;
+        float s0 = m[0] * m[5] - m[4] * m[1];
+        float s1 = m[0] * m[6] - m[4] * m[2];
+        float s2 = m[0] * m[7] - m[4] * m[3];
+        float s3 = m[1] * m[6] - m[5] * m[2];
+        float s4 = m[1] * m[7] - m[5] * m[3];
+        float s5 = m[2] * m[7] - m[6] * m[3];
+
+        float c5 = m[10] * m[15] - m[14] * m[11];
+        float c4 = m[9] * m[15] - m[13] * m[11];
+        float c3 = m[9] * m[14] - m[13] * m[10];
+        float c2 = m[8] * m[15] - m[12] * m[11];
+        float c1 = m[8] * m[14] - m[12] * m[10];
+        float c0 = m[8] * m[13] - m[12] * m[9];
+
+        float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
         if (Math.abs(det) < 1e-12f) {
             throw new ArithmeticException("Matrix is singular, cannot invert");
         }
+        float invDet = 1.0f / det;
 
-        float[][] result = new float[4][4];
-        for (int i = 0; i < 4; i++) {
-            for (int j = 0; j < 4; j++) {
-                result[j][i] = cofactor(i, j) / det;
-            }
+        float r0 = (m[5] * c5 - m[6] * c4 + m[7] * c3) * invDet;
+        float r1 = (-m[1] * c5 + m[2] * c4 - m[3] * c3) * invDet;
+        float r2 = (m[13] * s5 - m[14] * s4 + m[15] * s3) * invDet;
+        float r3 = (-m[9] * s5 + m[10] * s4 - m[11] * s3) * invDet;
+
+        float r4 = (-m[4] * c5 + m[6] * c2 - m[7] * c1) * invDet;
+        float r5 = (m[0] * c5 - m[2] * c2 + m[3] * c1) * invDet;
+        float r6 = (-m[12] * s5 + m[14] * s2 - m[15] * s1) * invDet;
+        float r7 = (m[8] * s5 - m[10] * s2 + m[11] * s1) * invDet;
+
+        float r8 = (m[4] * c4 - m[5] * c2 + m[7] * c0) * invDet;
+        float r9 = (-m[0] * c4 + m[1] * c2 - m[3] * c0) * invDet;
+        float r10 = (m[12] * s4 - m[13] * s2 + m[15] * s0) * invDet;
+        float r11 = (-m[8] * s4 + m[9] * s2 - m[11] * s0) * invDet;
+
+        float r12 = (-m[4] * c3 + m[5] * c1 - m[6] * c0) * invDet;
+        float r13 = (m[0] * c3 - m[1] * c1 + m[2] * c0) * invDet;
+        float r14 = (-m[12] * s3 + m[13] * s1 - m[14] * s0) * invDet;
+        float r15 = (m[8] * s3 - m[9] * s1 + m[10] * s0) * invDet;
+
+        float[] r = dst.data;
+        r[0] = r0; r[1] = r1; r[2] = r2; r[3] = r3;
+        r[4] = r4; r[5] = r5; r[6] = r6; r[7] = r7;
+        r[8] = r8; r[9] = r9; r[10] = r10; r[11] = r11;
+        r[12] = r12; r[13] = r13; r[14] = r14; r[15] = r15;
+        dst.updateAffine();
+        return dst;
+    }
+
+    // [A t; 0 1]^-1 = [A^-1  -A^-1 t; 0 1]: обратная 3x3 и один перенос
+    private Matrix4x4 affineInverseInto(Matrix4x4 dst) {
+        float[] m = data;
+        float a = m[0], b = m[1], c = m[2];
+        float d = m[4], e = m[5], f = m[6];
+        float g = m[8], h = m[9], i = m[10];
+        float tx = m[3], ty = m[7], tz = m[11];
+
+        float det = a * (e * i - f * h) - b * (d * i - f * g) + c * (d * h - e * g);
+        if (Math.abs(det) < 1e-12f) {
+            throw new ArithmeticException("Matrix is singular, cannot invert");
         }
-        return new Matrix4x4(result);
+        float invDet = 1.0f / det;
+
+        float r0 = (e * i - f * h) * invDet;
+        float r1 = (c * h - b * i) * invDet;
+        float r2 = (b * f - c * e) * invDet;
+        float r4 = (f * g - d * i) * invDet;
+        float r5 = (a * i - c * g) * invDet;
+        float r6 = (c * d - a * f) * invDet;
+        float r8 = (d * h - e * g) * invDet;
+        float r9 = (b * g - a * h) * invDet;
+        float r10 = (a * e - b * d) * invDet;
+
+        float[] r = dst.data;
+        r[0] = r0; r[1] = r1; r[2] = r2; r[3] = -(r0 * tx + r1 * ty + r2 * tz);
+        r[4] = r4; r[5] = r5; r[6] = r6; r[7] = -(r4 * tx + r5 * ty + r6 * tz);
+        r[8] = r8; r[9] = r9; r[10] = r10; r[11] = -(r8 * tx + r9 * ty + r10 * tz);
+        r[12] = 0; r[13] = 0; r[14] = 0; r[15] = 1;
+        dst.affine = true;
+        return dst;
     }
 
     @Override
@@ -89,7 +395,7 @@ public final class Matrix4x4 extends AbstractMatrix<Matrix4x4, Vector4D> {
         float[][] augmented = new float[4][5];
 
         for (int i = 0; i < 4; i++) {
-            System.arraycopy(data[i], 0, augmented[i], 0, 4);
+            System.arraycopy(data, i * 4, augmented[i], 0, 4);
             switch(i) {
                 case 0: augmented[i][4] = b.getX(); break;
                 case 1: augmented[i][4] = b.getY(); break;
@@ -133,28 +439,4 @@ public final class Matrix4x4 extends AbstractMatrix<Matrix4x4, Vector4D> {
 
         return new Vector4D(solution[0], solution[1], solution[2], solution[3]);
     }
-
-    private float minor(int row, int col) {
-        float[][] minorMatrix = new float[3][3];
-        int minorRow = 0;
-
-        for (int i = 0; i < 4; i++) {
-            if (i == row) continue;
-            int minorCol = 0;
-            for (int j = 0; j < 4; j++) {
-                if (j == col) continue;
-                minorMatrix[minorRow][minorCol] = data[i][j];
-                minorCol++;
-            }
-            minorRow++;
-        }
-
-        Matrix3x3 minor = new Matrix3x3(minorMatrix);
-        return minor.determinant();
-    }
-
-    private float cofactor(int row, int col) {
-        float minor = minor(row, col);
-        return ((row + col) % 2 == 0) ? minor : -minor;
-    }
-}
\ No newline at end of file
+}
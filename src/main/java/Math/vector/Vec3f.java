@@ -0,0 +1,107 @@
+package Math.vector;
+
+// Изменяемый трёхмерный вектор для горячих путей (растеризация, камера).
+// В отличие от Vector3D, операции не создают новых объектов: результат
+// записывается в переданный вектор dst и он же возвращается. dst может совпадать
+// с одним из аргументов. Порядок вычислений совпадает с Vector3D, поэтому
+// результаты побитово равны.
+public final class Vec3f {
+    private float x;
+    private float y;
+    private float z;
+
+    public Vec3f() {
+    }
+
+    public Vec3f(float x, float y, float z) {
+        set(x, y, z);
+    }
+
+    public Vec3f(Vector3D vector) {
+        set(vector);
+    }
+
+    public float getX() { return x; }
+    public float getY() { return y; }
+    public float getZ() { return z; }
+
+    public Vec3f set(float x, float y, float z) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        return this;
+    }
+
+    public Vec3f set(Vector3D vector) {
+        return set(vector.getX(), vector.getY(), vector.getZ());
+    }
+
+    public Vec3f set(Vec3f vector) {
+        return set(vector.x, vector.y, vector.z);
+    }
+
+    public Vec3f addInto(Vec3f other, Vec3f dst) {
+        return dst.set(x + other.x, y + other.y, z + other.z);
+    }
+
+    public Vec3f subtractInto(Vec3f other, Vec3f dst) {
+        return dst.set(x - other.x, y - other.y, z - other.z);
+    }
+
+    public Vec3f multiplyInto(float scalar, Vec3f dst) {
+        return dst.set(x * scalar, y * scalar, z * scalar);
+    }
+
+    // dst = this + other * scalar
+    public Vec3f addScaledInto(Vec3f other, float scalar, Vec3f dst) {
+        return dst.set(x + other.x * scalar, y + other.y * scalar, z + other.z * scalar);
+    }
+
+    public Vec3f crossInto(Vec3f other, Vec3f dst) {
+        return dst.set(
+                y * other.z - z * other.y,
+                z * other.x - x * other.z,
+                x * other.y - y * other.x
+        );
+    }
+
+    public Vec3f normalizeInto(Vec3f dst) {
+        float len = length();
+        if (len < 1e-12f) {
+            throw new ArithmeticException("Cannot normalize zero vector");
+        }
+        return multiplyInto(1.0f / len, dst);
+    }
+
+    public float dot(Vec3f other) {
+        float result = 0;
+        result += x * other.x;
+        result += y * other.y;
+        result += z * other.z;
+        return result;
+    }
+
+    public float length() {
+        float sum = 0;
+        sum += x * x;
+        sum += y * y;
+        sum += z * z;
+        return (float) Math.sqrt(sum);
+    }
+
+    public float distance(Vec3f other) {
+        float dx = x - other.x;
+        float dy = y - other.y;
+        float dz = z - other.z;
+        return (float) Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    public Vector3D toVector3D() {
+        return new Vector3D(x, y, z);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Vec3f(%.3f, %.3f, %.3f)", x, y, z);
+    }
+}
@@ -0,0 +1,222 @@
+package RenderingModes;
+
+import Interface.model.CompactMesh;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vector3D;
+
+import java.util.Arrays;
+
+// Порядок отрисовки граней модели спереди назад: ближние грани записываются первыми,
+// и тест глубины (с Hi-Z) отбрасывает перекрытые фрагменты до затенения.
+// Грани один раз на сетку группируются в пространственные кластеры: центры граней
+// упорядочиваются по кривой Мортона, подряд идущие CLUSTER_SIZE граней образуют кластер.
+// В кадре сортируются только кластеры - по расстоянию от камеры до их центров.
+// Сортировка повторяется, если камера сместилась больше чем на долю размера модели
+// или изменилась матрица модели; повороты камеры расстояний не меняют.
+// Экземпляр принадлежит одной модели и живёт между кадрами.
+public class ClusterOrder {
+
+    static final int CLUSTER_SIZE = 128;
+
+    // Смещение камеры (в долях размера модели), после которого порядок пересчитывается
+    private static final float RESORT_DISTANCE_FRACTION = 0.02f;
+
+    // Бит на ось в коде Мортона: 3 * 10 бит помещаются в старшую половину long
+    private static final int MORTON_BITS = 10;
+
+    private CompactMesh mesh;
+    private int clusterCount;
+    private int[] clusterFaces = new int[0];
+    private int[] clusterOffsets = new int[0];
+    private float[] clusterCenters = new float[0];
+    private float[] worldCenters = new float[0];
+    private long[] keys = new long[0];
+    private int[] faceOrder = new int[0];
+
+    private final float[] modelMatrix = new float[16];
+    private final float[] scratchMatrix = new float[16];
+    private float cameraX;
+    private float cameraY;
+    private float cameraZ;
+    private float resortDistanceSquared;
+    private boolean sorted;
+    private int sortCount;
+
+    // Номера граней сетки в порядке отрисовки для этой камеры и матрицы модели
+    public int[] getFaceOrder(CompactMesh mesh, Matrix4x4 modelMatrix, Vector3D cameraPosition) {
+        if (mesh != this.mesh) {
+            build(mesh);
+        }
+        if (!sorted || isMoved(modelMatrix, cameraPosition)) {
+            sort(modelMatrix, cameraPosition);
+        }
+        return faceOrder;
+    }
+
+    public int getClusterCount() {
+        return clusterCount;
+    }
+
+    // Сколько раз порядок пересчитывался (для проверки кэширования)
+    public int getSortCount() {
+        return sortCount;
+    }
+
+    private boolean isMoved(Matrix4x4 modelMatrix, Vector3D cameraPosition) {
+        float dx = cameraPosition.getX() - cameraX;
+        float dy = cameraPosition.getY() - cameraY;
+        float dz = cameraPosition.getZ() - cameraZ;
+        if (dx * dx + dy * dy + dz * dz > resortDistanceSquared) {
+            return true;
+        }
+        modelMatrix.copyTo(scratchMatrix);
+        return !Arrays.equals(scratchMatrix, this.modelMatrix);
+    }
+
+    // Кластеры по центрам граней, упорядоченным по кривой Мортона внутри
+    // ограничивающего прямоугольника центров
+    private void build(CompactMesh mesh) {
+        int faceCount = mesh.getFaceCount();
+        int[] faceOffsets = mesh.getFaceOffsets();
+        int[] vIndices = mesh.getVertexIndices();
+        float[] positions = mesh.getPositions();
+
+        float[] centroids = new float[3 * faceCount];
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        for (int face = 0; face < faceCount; face++) {
+            int start = faceOffsets[face];
+            int end = faceOffsets[face + 1];
+            float x = 0.0f;
+            float y = 0.0f;
+            float z = 0.0f;
+            for (int corner = start; corner < end; corner++) {
+                int p = 3 * vIndices[corner];
+                x += positions[p];
+                y += positions[p + 1];
+                z += positions[p + 2];
+            }
+            float inverseCount = end > start ? 1.0f / (end - start) : 0.0f;
+            x *= inverseCount;
+            y *= inverseCount;
+            z *= inverseCount;
+            centroids[3 * face] = x;
+            centroids[3 * face + 1] = y;
+            centroids[3 * face + 2] = z;
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+        }
+
+        // Код Мортона в старших битах, номер грани - в младших
+        int cells = (1 << MORTON_BITS) - 1;
+        float scaleX = maxX > minX ? cells / (maxX - minX) : 0.0f;
+        float scaleY = maxY > minY ? cells / (maxY - minY) : 0.0f;
+        float scaleZ = maxZ > minZ ? cells / (maxZ - minZ) : 0.0f;
+        long[] faceKeys = new long[faceCount];
+        for (int face = 0; face < faceCount; face++) {
+            long code = spreadBits((int) ((centroids[3 * face] - minX) * scaleX))
+                    | spreadBits((int) ((centroids[3 * face + 1] - minY) * scaleY)) << 1
+                    | spreadBits((int) ((centroids[3 * face + 2] - minZ) * scaleZ)) << 2;
+            faceKeys[face] = code << 32 | face;
+        }
+        Arrays.sort(faceKeys);
+
+        clusterCount = (faceCount + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+        clusterFaces = new int[faceCount];
+        clusterOffsets = new int[clusterCount + 1];
+        clusterCenters = new float[3 * clusterCount];
+        worldCenters = new float[3 * clusterCount];
+        keys = new long[clusterCount];
+        faceOrder = new int[faceCount];
+
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            int start = cluster * CLUSTER_SIZE;
+            int end = Math.min(faceCount, start + CLUSTER_SIZE);
+            clusterOffsets[cluster] = start;
+            float x = 0.0f;
+            float y = 0.0f;
+            float z = 0.0f;
+            for (int i = start; i < end; i++) {
+                int face = (int) faceKeys[i];
+                clusterFaces[i] = face;
+                x += centroids[3 * face];
+                y += centroids[3 * face + 1];
+                z += centroids[3 * face + 2];
+            }
+            float inverseCount = 1.0f / (end - start);
+            clusterCenters[3 * cluster] = x * inverseCount;
+            clusterCenters[3 * cluster + 1] = y * inverseCount;
+            clusterCenters[3 * cluster + 2] = z * inverseCount;
+        }
+        clusterOffsets[clusterCount] = faceCount;
+
+        this.mesh = mesh;
+        this.sorted = false;
+    }
+
+    // Биты числа через два: b2 b1 b0 -> b2 0 0 b1 0 0 b0
+    private static long spreadBits(int value) {
+        long x = value & 0x3FF;
+        x = (x | x << 16) & 0x30000FFL;
+        x = (x | x << 8) & 0x300F00FL;
+        x = (x | x << 4) & 0x30C30C3L;
+        x = (x | x << 2) & 0x9249249L;
+        return x;
+    }
+
+    // Кластеры по возрастанию квадрата расстояния до камеры. Неотрицательный float
+    // сравнивается как int, поэтому ключ - его биты в старшей половине long
+    private void sort(Matrix4x4 modelMatrix, Vector3D cameraPosition) {
+        modelMatrix.copyTo(this.modelMatrix);
+        cameraX = cameraPosition.getX();
+        cameraY = cameraPosition.getY();
+        cameraZ = cameraPosition.getZ();
+        modelMatrix.transformPoints(clusterCenters, worldCenters, clusterCount);
+
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float maxZ = Float.NEGATIVE_INFINITY;
+        for (int cluster = 0; cluster < clusterCount; cluster++) {
+            float x = worldCenters[3 * cluster];
+            float y = worldCenters[3 * cluster + 1];
+            float z = worldCenters[3 * cluster + 2];
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            minZ = Math.min(minZ, z);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+            maxZ = Math.max(maxZ, z);
+            float dx = x - cameraX;
+            float dy = y - cameraY;
+            float dz = z - cameraZ;
+            keys[cluster] = (long) Float.floatToRawIntBits(dx * dx + dy * dy + dz * dz) << 32 | cluster;
+        }
+        Arrays.sort(keys, 0, clusterCount);
+
+        int next = 0;
+        for (int i = 0; i < clusterCount; i++) {
+            int cluster = (int) keys[i];
+            int start = clusterOffsets[cluster];
+            int count = clusterOffsets[cluster + 1] - start;
+            System.arraycopy(clusterFaces, start, faceOrder, next, count);
+            next += count;
+        }
+
+        float size = Math.max(maxX - minX, Math.max(maxY - minY, maxZ - minZ));
+        float resortDistance = RESORT_DISTANCE_FRACTION * (clusterCount > 0 ? size : 0.0f);
+        resortDistanceSquared = resortDistance * resortDistance;
+        sorted = true;
+        sortCount++;
+    }
+}
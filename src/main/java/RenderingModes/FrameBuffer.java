@@ -0,0 +1,181 @@
+package RenderingModes;
+
+// Буфер кадра: упакованные ARGB-пиксели в int[].
+// Растеризаторы пишут прямо в массив, а на Canvas кадр выводится один раз
+// через WritableImage, который разделяет этот же массив (PixelBuffer) без копирования.
+// Кадр пониженного разрешения занимает левый верхний угол массива (setViewport):
+// строки по-прежнему идут с шагом stride, поэтому смена масштаба не пересоздаёт
+// ни массив, ни изображение.
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+public class FrameBuffer {
+    // Размер массива: длина строки и число строк
+    private final int stride;
+    private final int rows;
+    // Область кадра в левом верхнем углу
+    private int width;
+    private int height;
+    private final int[] pixels;
+
+    private PixelBuffer<IntBuffer> pixelBuffer;
+    private WritableImage image;
+    // Изменившаяся часть изображения при выводе кадра пониженного разрешения
+    private Rectangle2D dirtyRegion;
+
+    public FrameBuffer(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be positive");
+        }
+
+        this.stride = width;
+        this.rows = height;
+        this.width = width;
+        this.height = height;
+        this.pixels = new int[width * height];
+    }
+
+    // Кадр размером width x height в левом верхнем углу массива
+    public void setViewport(int width, int height) {
+        if (width <= 0 || height <= 0 || width > stride || height > rows) {
+            throw new IllegalArgumentException("Viewport must fit the buffer");
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    // Вместе с областью кадра очищаются соседние столбец и строка: их читает
+    // билинейная фильтрация при растяжении кадра на границе области
+    public void clear(int argb) {
+        if (width == stride && height == rows) {
+            Arrays.fill(pixels, argb);
+            return;
+        }
+        int clearedWidth = Math.min(width + 1, stride);
+        int clearedHeight = Math.min(height + 1, rows);
+        for (int y = 0; y < clearedHeight; y++) {
+            Arrays.fill(pixels, y * stride, y * stride + clearedWidth, argb);
+        }
+    }
+
+    public void clear(Color color) {
+        clear(toArgb(color));
+    }
+
+    public void setPixel(int x, int y, int argb) {
+        pixels[y * stride + x] = argb;
+    }
+
+    public void setColor(int x, int y, Color color) {
+        pixels[y * stride + x] = toArgb(color);
+    }
+
+    public int getPixel(int x, int y) {
+        return pixels[y * stride + x];
+    }
+
+    // Пиксель (x, y) лежит в pixels[y * getStride() + x]
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    // Размер кадра
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // Размер массива
+    public int getStride() {
+        return stride;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    // Вывод кадра: изображение создаётся один раз поверх всего массива пикселей,
+    // далее достаточно сообщить JavaFX, какая его часть изменилась
+    public void present(GraphicsContext gc) {
+        present(gc, width, height);
+    }
+
+    // Вывод кадра с растяжением до width x height. Кадр пониженного разрешения
+    // увеличивается билинейной фильтрацией при отрисовке изображения
+    public void present(GraphicsContext gc, int width, int height) {
+        WritableImage frame = updateImage();
+        if (width == this.width && height == this.height) {
+            gc.drawImage(frame, 0, 0, width, height, 0, 0, width, height);
+            return;
+        }
+        boolean smoothing = gc.isImageSmoothing();
+        gc.setImageSmoothing(true);
+        gc.drawImage(frame, 0, 0, this.width, this.height, 0, 0, width, height);
+        gc.setImageSmoothing(smoothing);
+    }
+
+    private WritableImage updateImage() {
+        if (image == null) {
+            pixelBuffer = new PixelBuffer<>(stride, rows, IntBuffer.wrap(pixels),
+                    PixelFormat.getIntArgbPreInstance());
+            image = new WritableImage(pixelBuffer);
+        } else if (width == stride && height == rows) {
+            pixelBuffer.updateBuffer(buffer -> null);
+        } else {
+            int dirtyWidth = Math.min(width + 1, stride);
+            int dirtyHeight = Math.min(height + 1, rows);
+            if (dirtyRegion == null || dirtyRegion.getWidth() != dirtyWidth || dirtyRegion.getHeight() != dirtyHeight) {
+                dirtyRegion = new Rectangle2D(0, 0, dirtyWidth, dirtyHeight);
+            }
+            pixelBuffer.updateBuffer(buffer -> dirtyRegion);
+        }
+        return image;
+    }
+
+    // Упаковка цвета в формат INT_ARGB_PRE (каналы домножены на альфу)
+    public static int toArgb(Color color) {
+        return toArgb(color.getRed(), color.getGreen(), color.getBlue(), color.getOpacity());
+    }
+
+    // ARGB без домножения (как в текстуре) -> INT_ARGB_PRE. Каналы переводятся
+    // во float так же, как в Color.rgb, поэтому результат равен toArgb(Color.rgb(...))
+    public static int premultiply(int argb) {
+        int alpha = argb >>> 24;
+        if (alpha == 0xFF) {
+            return argb;
+        }
+        return toArgb(channel(argb >> 16), channel(argb >> 8), channel(argb), (float) (alpha / 255.0));
+    }
+
+    // Цвет -> ARGB без домножения на альфу (как в текстуре)
+    public static int toStraightArgb(Color color) {
+        int a = (int) Math.round(color.getOpacity() * 255.0);
+        int r = (int) Math.round(color.getRed() * 255.0);
+        int g = (int) Math.round(color.getGreen() * 255.0);
+        int b = (int) Math.round(color.getBlue() * 255.0);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    static float channel(int packed) {
+        return (float) ((packed & 0xFF) / 255.0);
+    }
+
+    public static int toArgb(double red, double green, double blue, double opacity) {
+        int ai = (int) Math.round(opacity * 255.0);
+        int r = (int) Math.round(red * opacity * 255.0);
+        int g = (int) Math.round(green * opacity * 255.0);
+        int b = (int) Math.round(blue * opacity * 255.0);
+        return (ai << 24) | (r << 16) | (g << 8) | b;
+    }
+}
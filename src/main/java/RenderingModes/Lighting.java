@@ -1,15 +1,22 @@
 package RenderingModes;
 
 import Math.matrix.Matrix4x4;
+import Math.vector.Vec3f;
 import Math.vector.Vector3D;
 import javafx.scene.paint.Color;
 
 public class Lighting {
+    // Интенсивность в фиксированной точке 8.8: 256 - полная яркость
+    public static final int INTENSITY_SHIFT = 8;
+    public static final int INTENSITY_ONE = 1 << INTENSITY_SHIFT;
+
     private Vector3D lightDirection;
     private final Color ambientColor;
     private final Color diffuseColor;
     private final float ambientIntensity;
     private final float diffuseIntensity;
+    // Множитель канала ambient + diffuse * i (8.8) для каждой квантованной интенсивности i
+    private final int[] channelScale;
 
     public Lighting(Vector3D cameraPosition, Vector3D cameraTarget, float ambientIntensity, float diffuseIntensity) {
         this.lightDirection = new Vector3D(0.0f, 0.0f, -1.0f);
@@ -18,6 +25,7 @@ public class Lighting {
 
         this.ambientColor = Color.WHITE;
         this.diffuseColor = Color.WHITE;
+        this.channelScale = buildChannelScale(this.ambientIntensity, this.diffuseIntensity);
     }
 
     public Lighting(Vector3D cameraPosition, Vector3D cameraTarget, Color ambientColor, Color diffuseColor,
@@ -28,6 +36,16 @@ public class Lighting {
 
         this.ambientColor = ambientColor;
         this.diffuseColor = diffuseColor;
+        this.channelScale = buildChannelScale(this.ambientIntensity, this.diffuseIntensity);
+    }
+
+    private static int[] buildChannelScale(float ambientIntensity, float diffuseIntensity) {
+        int[] scale = new int[INTENSITY_ONE + 1];
+        for (int i = 0; i <= INTENSITY_ONE; i++) {
+            double factor = ambientIntensity + diffuseIntensity * ((double) i / INTENSITY_ONE);
+            scale[i] = (int) Math.round(factor * INTENSITY_ONE);
+        }
+        return scale;
     }
 
     public void update(Vector3D cameraPosition, Vector3D cameraTarget, Matrix4x4 viewMatrix) {
@@ -48,6 +66,20 @@ public class Lighting {
         return Math.max(0.0f, Math.min(1.0f, l));
     }
 
+    // Вариант для растеризатора без выделения памяти: normal нормализуется на месте,
+    // ray - рабочий вектор вызывающего. Результат совпадает с вариантом для Vector3D
+    public float computeLightingIntensity(Vec3f normal, Vec3f vertexPosition, Vec3f cameraPosition, Vec3f ray) {
+        vertexPosition.subtractInto(cameraPosition, ray).normalizeInto(ray);
+
+        normal.normalizeInto(normal);
+        float l = -normal.dot(ray);
+
+        if (l < 0.0f) {
+            l = 0.0f;
+        }
+
+        return Math.max(0.0f, Math.min(1.0f, l));
+    }
 
     public Color shadeColor(Color baseColor, float intensity) {
 
@@ -70,6 +102,34 @@ public class Lighting {
         return new Color(r, g, b, baseColor.getOpacity());
     }
 
+    // Интенсивность [0, 1] -> 8.8 с округлением и ограничением
+    public static int toFixedIntensity(float intensity) {
+        int fixed = (int) (intensity * INTENSITY_ONE + 0.5f);
+        return fixed < 0 ? 0 : (fixed > INTENSITY_ONE ? INTENSITY_ONE : fixed);
+    }
+
+    // Целочисленный вариант shadeColor: ARGB без домножения на альфу
+    // и интенсивность 8.8 -> INT_ARGB_PRE. Каналы умножаются на множитель из таблицы,
+    // отличие от FrameBuffer.toArgb(shadeColor(...)) - не больше единицы в канале
+    public int shadePacked(int argb, int intensity) {
+        int index = intensity < 0 ? 0 : (intensity > INTENSITY_ONE ? INTENSITY_ONE : intensity);
+        int scale = channelScale[index];
+        int half = INTENSITY_ONE / 2;
+
+        int r = Math.min(255, (((argb >> 16) & 0xFF) * scale + half) >> INTENSITY_SHIFT);
+        int g = Math.min(255, (((argb >> 8) & 0xFF) * scale + half) >> INTENSITY_SHIFT);
+        int b = Math.min(255, ((argb & 0xFF) * scale + half) >> INTENSITY_SHIFT);
+
+        int alpha = argb >>> 24;
+        if (alpha != 0xFF) {
+            // c * a / 255 с округлением; ровно половины не бывает
+            r = (r * alpha + 127) / 255;
+            g = (g * alpha + 127) / 255;
+            b = (b * alpha + 127) / 255;
+        }
+        return (alpha << 24) | (r << 16) | (g << 8) | b;
+    }
+
     public Vector3D getLightDirection() { return lightDirection; }
 
 
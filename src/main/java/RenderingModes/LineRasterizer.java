@@ -3,8 +3,6 @@ package RenderingModes;
 // растеризация отрезка (каркас) с учётом ZBuffer
 // Интерполяция: шаг по длине, линейная интерполяция Z
 
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.PixelWriter;
 import javafx.scene.paint.Color;
 
 public class LineRasterizer {
@@ -12,7 +10,7 @@ public class LineRasterizer {
     private LineRasterizer() {}
 
     public static void drawLine(
-            GraphicsContext gc,
+            FrameBuffer frameBuffer,
             ZBuffer zBuffer,
             ScreenVertex a,
             ScreenVertex b,
@@ -21,7 +19,42 @@ public class LineRasterizer {
             Color color,
             double depthBiasScale
     ) {
-        PixelWriter pw = gc.getPixelWriter();
+        drawLine(frameBuffer, zBuffer, a, b, 0, 0, width - 1, height - 1, color, depthBiasScale);
+    }
+
+    // Отрезок, ограниченный областью [clipMinX, clipMaxX] x [clipMinY, clipMaxY].
+    // Путь Брезенхэма от области не зависит, поэтому тайлы вместе дают ту же картинку
+    public static void drawLine(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            ScreenVertex a,
+            ScreenVertex b,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Color color,
+            double depthBiasScale
+    ) {
+        drawLine(frameBuffer, zBuffer, null, a, b, clipMinX, clipMinY, clipMaxX, clipMaxY, color, depthBiasScale);
+    }
+
+    // С буфером видимости записанный пиксель линии снимается с отложенного
+    // затенения: иначе второй проход закрасил бы его треугольником под линией
+    public static void drawLine(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            VisibilityBuffer visibility,
+            ScreenVertex a,
+            ScreenVertex b,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Color color,
+            double depthBiasScale
+    ) {
+        int argb = FrameBuffer.toArgb(color);
 
         int x0 = Math.round(a.getX());
         int y0 = Math.round(a.getY());
@@ -39,9 +72,12 @@ public class LineRasterizer {
 
         int length = Math.max(dx, dy);
         if (length == 0) {
-            if (x0 >= 0 && x0 < width && y0 >= 0 && y0 < height) {
+            if (x0 >= clipMinX && x0 <= clipMaxX && y0 >= clipMinY && y0 <= clipMaxY) {
                 if (zBuffer.testAndSet(x0, y0, z0)) {
-                    pw.setColor(x0, y0, color);
+                    frameBuffer.setPixel(x0, y0, argb);
+                    if (visibility != null) {
+                        visibility.clear(x0, y0);
+                    }
                 }
             }
             return;
@@ -59,10 +95,13 @@ public class LineRasterizer {
 
 
         for (int i = 0; i <= length; ++i) {
-            if (x >= 0 && x < width && y >= 0 && y < height) {
+            if (x >= clipMinX && x <= clipMaxX && y >= clipMinY && y <= clipMaxY) {
                 double zb = z - depthBias;
                 if (zBuffer.testAndSet(x, y, zb)) {
-                    pw.setColor(x, y, color);
+                    frameBuffer.setPixel(x, y, argb);
+                    if (visibility != null) {
+                        visibility.clear(x, y);
+                    }
                 }
             }
 
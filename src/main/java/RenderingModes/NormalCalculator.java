@@ -13,6 +13,7 @@ public class NormalCalculator {
         int vertexCount = model.getVertices().size();
         if (vertexCount == 0 || model.getPolygons().isEmpty()) {
             model.getNormals().clear();
+            model.markChanged();
             return;
         }
 
@@ -75,5 +76,6 @@ public class NormalCalculator {
             nIdx.addAll(vIdx);
             polygon.setNormalIndices(nIdx);
         }
+        model.markChanged();
     }
 }
@@ -0,0 +1,145 @@
+package RenderingModes;
+
+// Отсечение полигонов и отрезков в однородных координатах (до деления на w).
+// Вершина хранится как stride чисел подряд: x, y, z, w и далее произвольные
+// атрибуты, которые интерполируются линейно вместе с позицией.
+// По ближней и дальней плоскостям отсечение выполняется всегда, по x и y - только
+// по границам защитной полосы (GUARD_BAND размеров экрана в NDC): треугольники,
+// лишь частично выходящие за экран, растеризатор обрежет сам прямоугольником отсечения.
+public final class PolygonClipper {
+
+    // Полуширина защитной полосы в единицах NDC (экран занимает [-1, 1])
+    public static final float GUARD_BAND = 8.0f;
+
+    static final int NEAR = 1;
+    static final int FAR = 1 << 1;
+    static final int LEFT = 1 << 2;
+    static final int RIGHT = 1 << 3;
+    static final int BOTTOM = 1 << 4;
+    static final int TOP = 1 << 5;
+
+    private static final int PLANE_COUNT = 6;
+
+    private PolygonClipper() {}
+
+    // Плоскости видимого объёма, снаружи которых лежит точка
+    static int frustumOutcode(float x, float y, float z, float w) {
+        return outcode(x, y, z, w, 1.0f);
+    }
+
+    // Плоскости отсечения (ближняя, дальняя и защитная полоса), снаружи которых лежит точка
+    static int clipOutcode(float x, float y, float z, float w) {
+        return outcode(x, y, z, w, GUARD_BAND);
+    }
+
+    private static int outcode(float x, float y, float z, float w, float extent) {
+        int code = 0;
+        if (z < -w) code |= NEAR;
+        if (z > w) code |= FAR;
+        if (x < -extent * w) code |= LEFT;
+        if (x > extent * w) code |= RIGHT;
+        if (y < -extent * w) code |= BOTTOM;
+        if (y > extent * w) code |= TOP;
+        return code;
+    }
+
+    // Расстояние со знаком до плоскости: >= 0 внутри
+    private static float distance(int plane, float x, float y, float z, float w) {
+        switch (plane) {
+            case NEAR: return z + w;
+            case FAR: return w - z;
+            case LEFT: return x + GUARD_BAND * w;
+            case RIGHT: return GUARD_BAND * w - x;
+            case BOTTOM: return y + GUARD_BAND * w;
+            default: return GUARD_BAND * w - y;
+        }
+    }
+
+    // Алгоритм Сазерленда-Ходжмана по плоскостям из planeMask.
+    // vertices содержит count вершин; результат записывается в vertices, размер массива
+    // должен вмещать count + 6 вершин. Возвращает число вершин результата (0 - полигон
+    // целиком снаружи)
+    public static int clipPolygon(float[] vertices, int count, int stride, int planeMask) {
+        return clipPolygon(vertices, count, stride, planeMask, new float[vertices.length]);
+    }
+
+    // buffer - рабочий массив не меньше (count + 6) * stride, его содержимое затирается
+    public static int clipPolygon(float[] vertices, int count, int stride, int planeMask, float[] buffer) {
+        float[] in = vertices;
+        float[] out = buffer;
+
+        for (int p = 0; p < PLANE_COUNT && count > 0; p++) {
+            int plane = 1 << p;
+            if ((planeMask & plane) == 0) {
+                continue;
+            }
+
+            int outCount = 0;
+            int prev = (count - 1) * stride;
+            float prevDistance = distance(plane, in[prev], in[prev + 1], in[prev + 2], in[prev + 3]);
+
+            for (int i = 0; i < count; i++) {
+                int cur = i * stride;
+                float curDistance = distance(plane, in[cur], in[cur + 1], in[cur + 2], in[cur + 3]);
+
+                if ((prevDistance >= 0) != (curDistance >= 0)) {
+                    float t = prevDistance / (prevDistance - curDistance);
+                    int dst = outCount * stride;
+                    for (int k = 0; k < stride; k++) {
+                        out[dst + k] = in[prev + k] + (in[cur + k] - in[prev + k]) * t;
+                    }
+                    outCount++;
+                }
+                if (curDistance >= 0) {
+                    System.arraycopy(in, cur, out, outCount * stride, stride);
+                    outCount++;
+                }
+
+                prev = cur;
+                prevDistance = curDistance;
+            }
+
+            float[] swap = in;
+            in = out;
+            out = swap;
+            count = outCount;
+        }
+
+        if (in != vertices) {
+            System.arraycopy(in, 0, vertices, 0, count * stride);
+        }
+        return count;
+    }
+
+    // Параметрическое отсечение отрезка a-b (позиции x, y, z, w) по плоскостям из planeMask.
+    // В range записываются параметры [t0, t1] видимой части; false - отрезок целиком снаружи
+    public static boolean clipLine(float[] a, float[] b, int planeMask, float[] range) {
+        float t0 = 0.0f;
+        float t1 = 1.0f;
+
+        for (int p = 0; p < PLANE_COUNT; p++) {
+            int plane = 1 << p;
+            if ((planeMask & plane) == 0) {
+                continue;
+            }
+
+            float da = distance(plane, a[0], a[1], a[2], a[3]);
+            float db = distance(plane, b[0], b[1], b[2], b[3]);
+            if (da < 0 && db < 0) {
+                return false;
+            }
+            if (da < 0) {
+                t0 = Math.max(t0, da / (da - db));
+            } else if (db < 0) {
+                t1 = Math.min(t1, da / (da - db));
+            }
+            if (t0 > t1) {
+                return false;
+            }
+        }
+
+        range[0] = t0;
+        range[1] = t1;
+        return true;
+    }
+}
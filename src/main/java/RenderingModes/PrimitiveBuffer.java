@@ -0,0 +1,152 @@
+package RenderingModes;
+
+import Math.vector.Vec3f;
+import Math.vector.Vector3D;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+// Переиспользуемые примитивы тайловой растеризации и рабочие массивы RenderEngine.
+// Треугольник и отрезок хранят копии своих вершин, а параметры модели общие для всех
+// примитивов между begin и flush растеризатора: отправка примитива не создаёт ни
+// вершин, ни лямбд. Примитив занят до растеризации - при parallelism == 1 сразу
+// после неё, иначе до flush. Используется только потоком, отправляющим примитивы
+final class PrimitiveBuffer {
+
+    private final ArrayList<Triangle> triangles = new ArrayList<>();
+    private int triangleCount;
+    private final ArrayList<Line> lines = new ArrayList<>();
+    private int lineCount;
+
+    // Параметры текущей модели
+    private FrameBuffer frameBuffer;
+    private ZBuffer zBuffer;
+    private Texture texture;
+    private Lighting lighting;
+    private Color color;
+    private Vector3D cameraPosition;
+    private RenderingModes modes;
+    private VisibilityBuffer visibility;
+    private Color wireframeColor;
+    private int wireframeArgb;
+
+    // Вершины текущего полигона и его рёбра, входящие в каркас
+    private ScreenVertex[] polygon = new ScreenVertex[0];
+    private boolean[] polygonEdges = new boolean[0];
+    // Вершины полигона в однородных координатах с весами исходных вершин и буфер отсечения
+    private float[] clipVertices = new float[0];
+    private float[] clipBuffer = new float[0];
+    // Концы отрезка в однородных координатах, его видимая часть и точка на нём
+    final float[] lineFrom = new float[4];
+    final float[] lineTo = new float[4];
+    final float[] lineRange = new float[2];
+    final float[] linePoint = new float[4];
+    final Vec3f vector = new Vec3f();
+
+    void setDraw(FrameBuffer frameBuffer, ZBuffer zBuffer, Texture texture, Lighting lighting, Color color,
+                 Vector3D cameraPosition, RenderingModes modes, VisibilityBuffer visibility, Color wireframeColor) {
+        this.frameBuffer = frameBuffer;
+        this.zBuffer = zBuffer;
+        this.texture = texture;
+        this.lighting = lighting;
+        this.color = color;
+        this.cameraPosition = cameraPosition;
+        this.modes = modes;
+        this.visibility = visibility;
+        this.wireframeColor = wireframeColor;
+        this.wireframeArgb = FrameBuffer.toArgb(wireframeColor);
+    }
+
+    // Все примитивы снова свободны
+    void release() {
+        triangleCount = 0;
+        lineCount = 0;
+    }
+
+    // triangleId - номер в буфере видимости, если он задан
+    Triangle nextTriangle(ScreenVertex v0, ScreenVertex v1, ScreenVertex v2, int wireframeEdges, int triangleId) {
+        if (triangleCount == triangles.size()) {
+            triangles.add(new Triangle());
+        }
+        Triangle triangle = triangles.get(triangleCount++);
+        triangle.v0.set(v0);
+        triangle.v1.set(v1);
+        triangle.v2.set(v2);
+        triangle.wireframeEdges = wireframeEdges;
+        triangle.triangleId = triangleId;
+        return triangle;
+    }
+
+    // Концы отрезка задаёт вызывающий
+    Line nextLine() {
+        if (lineCount == lines.size()) {
+            lines.add(new Line());
+        }
+        return lines.get(lineCount++);
+    }
+
+    ScreenVertex[] polygon(int count) {
+        if (polygon.length < count) {
+            int oldLength = polygon.length;
+            polygon = Arrays.copyOf(polygon, Math.max(count, 2 * oldLength));
+            for (int i = oldLength; i < polygon.length; i++) {
+                polygon[i] = new ScreenVertex();
+            }
+        }
+        return polygon;
+    }
+
+    // Значения заполняет вызывающий
+    boolean[] polygonEdges(int count) {
+        if (polygonEdges.length < count) {
+            polygonEdges = new boolean[Math.max(count, 2 * polygonEdges.length)];
+        }
+        return polygonEdges;
+    }
+
+    // Обнулённые первые size элементов: веса вершин по умолчанию нулевые
+    float[] clipVertices(int size) {
+        if (clipVertices.length < size) {
+            clipVertices = new float[Math.max(size, 2 * clipVertices.length)];
+            clipBuffer = new float[clipVertices.length];
+        }
+        Arrays.fill(clipVertices, 0, size, 0.0f);
+        return clipVertices;
+    }
+
+    float[] clipBuffer() {
+        return clipBuffer;
+    }
+
+    final class Triangle implements TileRasterizer.Primitive {
+        private final ScreenVertex v0 = new ScreenVertex();
+        private final ScreenVertex v1 = new ScreenVertex();
+        private final ScreenVertex v2 = new ScreenVertex();
+        private int wireframeEdges;
+        private int triangleId;
+
+        @Override
+        public void rasterize(int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+            if (visibility != null) {
+                TriangleRasterization.fillTriangleVisibility(frameBuffer, zBuffer, visibility, triangleId,
+                        v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY, modes);
+                return;
+            }
+            TriangleRasterization.fillTriangle(frameBuffer, zBuffer, v0, v1, v2,
+                    clipMinX, clipMinY, clipMaxX, clipMaxY,
+                    texture, lighting, color, cameraPosition, modes, wireframeEdges, wireframeArgb);
+        }
+    }
+
+    final class Line implements TileRasterizer.Primitive {
+        final ScreenVertex a = new ScreenVertex();
+        final ScreenVertex b = new ScreenVertex();
+
+        @Override
+        public void rasterize(int clipMinX, int clipMinY, int clipMaxX, int clipMaxY) {
+            LineRasterizer.drawLine(frameBuffer, zBuffer, visibility, a, b,
+                    clipMinX, clipMinY, clipMaxX, clipMaxY, wireframeColor, 1.0);
+        }
+    }
+}
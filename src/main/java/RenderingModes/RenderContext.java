@@ -0,0 +1,51 @@
+package RenderingModes;
+
+// Общее для всех моделей кадра: куда рисовать и чем.
+// Буферы кадра и глубины общие для моделей; растеризатор и вершинный этап
+// переиспользуют свои массивы между моделями и кадрами.
+// Буфер видимости задаётся только для отложенного затенения
+public class RenderContext {
+    private final FrameBuffer frameBuffer;
+    private final ZBuffer zBuffer;
+    private final TileRasterizer tileRasterizer;
+    private final VertexProcessor vertexProcessor;
+    private VisibilityBuffer visibility;
+
+    public RenderContext(FrameBuffer frameBuffer, ZBuffer zBuffer, TileRasterizer tileRasterizer,
+                         VertexProcessor vertexProcessor) {
+        if (frameBuffer == null || zBuffer == null || tileRasterizer == null || vertexProcessor == null) {
+            throw new IllegalArgumentException("Render targets and stages cannot be null");
+        }
+        this.frameBuffer = frameBuffer;
+        this.zBuffer = zBuffer;
+        this.tileRasterizer = tileRasterizer;
+        this.vertexProcessor = vertexProcessor;
+    }
+
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    public ZBuffer getZBuffer() {
+        return zBuffer;
+    }
+
+    public TileRasterizer getTileRasterizer() {
+        return tileRasterizer;
+    }
+
+    public VertexProcessor getVertexProcessor() {
+        return vertexProcessor;
+    }
+
+    // С буфером видимости треугольники только записывают глубину и свой номер,
+    // цвет считает VisibilityBuffer.resolve после отрисовки всех моделей кадра.
+    // null - прямое затенение
+    public void setVisibility(VisibilityBuffer visibility) {
+        this.visibility = visibility;
+    }
+
+    public VisibilityBuffer getVisibility() {
+        return visibility;
+    }
+}
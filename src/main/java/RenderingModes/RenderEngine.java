@@ -1,111 +1,473 @@
 package RenderingModes;
 
+import Interface.model.CompactMesh;
 import Interface.model.Model;
-import Interface.model.Polygon;
 import Math.cam.Camera;
 import Math.matrix.Matrix4x4;
-import Math.vector.Vector2D;
+import Math.vector.Vec3f;
 import Math.vector.Vector3D;
-import Math.vector.Vector4D;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 public class RenderEngine {
 
+    private static final Color WIREFRAME_COLOR = Color.BLACK;
+
     public static void render(
-            final GraphicsContext graphicsContext,
+            final FrameBuffer frameBuffer,
             final Camera camera,
             final Model mesh,
-            final int width,
-            final int height,
             final Texture texture,
             final Lighting lighting,
             final Color baseColor,
             final RenderingModes renderingModes,
             final Matrix4x4 modelMatrix) {
-        ZBuffer zBuffer = new ZBuffer(width, height);
+        if (mesh == null) return;
+
+        RenderContext context = new RenderContext(frameBuffer,
+                new ZBuffer(frameBuffer.getWidth(), frameBuffer.getHeight()),
+                new TileRasterizer(1), new VertexProcessor());
+        render(context, camera, mesh.getCompactMesh(), texture, lighting, baseColor, renderingModes, modelMatrix,
+                null, null);
+    }
 
-        Matrix4x4 viewMatrix = camera.getViewMatrix();
-        Matrix4x4 projectionMatrix = camera.getProjectionMatrix();
-        Matrix4x4 mvpMatrix = projectionMatrix.multiply(viewMatrix.multiply(modelMatrix));
+    // Отрисовка одной модели кадра в буферы контекста. Кэши модели необязательны (null):
+    // shadingCache хранит освещённость граней/вершин между кадрами (FLAT и GOURAUD),
+    // без него значения считаются заново в каждом кадре;
+    // clusterOrder задаёт порядок граней спереди назад, без него - порядок файла
+    public static void render(
+            final RenderContext context,
+            final Camera camera,
+            final CompactMesh mesh,
+            final Texture texture,
+            final Lighting lighting,
+            final Color baseColor,
+            final RenderingModes renderingModes,
+            final Matrix4x4 modelMatrix,
+            final ShadingCache shadingCache,
+            final ClusterOrder clusterOrder) {
+        final FrameBuffer frameBuffer = context.getFrameBuffer();
+        final ZBuffer zBuffer = context.getZBuffer();
+        final TileRasterizer tileRasterizer = context.getTileRasterizer();
+        final VertexProcessor vertexProcessor = context.getVertexProcessor();
+        final VisibilityBuffer visibility = context.getVisibility();
+        final int width = frameBuffer.getWidth();
+        final int height = frameBuffer.getHeight();
+        final Vector3D cameraPosition = camera.getPosition();
 
         if (mesh == null) return;
 
-        for (Polygon polygon : mesh.getPolygons()) {
-            ArrayList<Integer> vIndices = polygon.getVertexIndices();
-            if (vIndices.size() < 3) continue;
+        // При FLAT и GOURAUD освещённость берётся из кэша; мировые позиции и нормали
+        // нужны вершинному этапу только для его пересчёта
+        final RenderingModes.ShadingFrequency frequency = renderingModes.getShadingFrequency();
+        ShadingCache cache = null;
+        boolean updateCache = false;
+        if (renderingModes.isUseLighting() && lighting != null && renderingModes.isDrawFilled()
+                && frequency != RenderingModes.ShadingFrequency.PHONG) {
+            cache = shadingCache != null ? shadingCache : new ShadingCache();
+            updateCache = !cache.isValid(mesh, modelMatrix, cameraPosition, lighting, frequency);
+        }
 
-            ArrayList<ScreenVertex> screenVertices = new ArrayList<>();
+        // Каждая вершина преобразуется один раз, полигоны дальше только читают массивы
+        vertexProcessor.process(mesh, camera, modelMatrix, width, height,
+                cache == null ? renderingModes.isUseLighting() : updateCache, tileRasterizer);
+        if (updateCache) {
+            cache.update(mesh, vertexProcessor, modelMatrix, cameraPosition, lighting, frequency);
+        }
+        final int[] frustumOutcodes = vertexProcessor.getFrustumOutcodes();
+        final int[] clipOutcodes = vertexProcessor.getClipOutcodes();
+        final float[] screenPositions = vertexProcessor.getScreenPositions();
 
-            for (int i = 0; i < vIndices.size(); i++) {
-                Vector3D modelPos = mesh.getVertices().get(vIndices.get(i));
-                Vector4D clipPos = mvpMatrix.multiply(new Vector4D(modelPos, 1.0f));
+        // Учёт блоков Hi-Z ведётся, только пока им пользуются
+        zBuffer.setHierarchical(renderingModes.isHierarchicalDepth());
+        tileRasterizer.begin(width, height);
+        // Треугольники и отрезки берутся из буфера растеризатора, параметры модели у них общие
+        final PrimitiveBuffer primitives = tileRasterizer.getPrimitiveBuffer();
+        primitives.setDraw(frameBuffer, zBuffer, texture, lighting, baseColor, cameraPosition, renderingModes,
+                visibility, WIREFRAME_COLOR);
+        final int draw = visibility != null
+                ? visibility.addDraw(texture, lighting, baseColor, cameraPosition, renderingModes, WIREFRAME_COLOR)
+                : -1;
 
-                Vector3D ndcPos = clipPos.toVector3D();
-                float invW = 1.0f / clipPos.getW();
+        final RenderingModes.CullMode cullMode = renderingModes.getCullMode();
+        final boolean drawFilled = renderingModes.isDrawFilled();
+        final boolean drawWireframe = renderingModes.isDrawWireframe();
+        // Каркас поверх заливки рисуют сами треугольники
+        final boolean wireframeOverlay = drawFilled && drawWireframe
+                && renderingModes.getWireframeMode() == RenderingModes.WireframeMode.OVERLAY;
+        final int[] faceOffsets = mesh.getFaceOffsets();
+        final int[] vIndices = mesh.getVertexIndices();
+        final int[] faceOrder = clusterOrder != null
+                ? clusterOrder.getFaceOrder(mesh, modelMatrix, cameraPosition)
+                : null;
 
-                Vector2D uv = null;
-                if (renderingModes.isUseTexture() && !polygon.getTextureVertexIndices().isEmpty()) {
-                    uv = mesh.getTextureVertices().get(polygon.getTextureVertexIndices().get(i));
-                }
+        for (int k = 0; drawFilled && k < mesh.getFaceCount(); k++) {
+            int face = faceOrder != null ? faceOrder[k] : k;
+            int start = faceOffsets[face];
+            int vertexCount = faceOffsets[face + 1] - start;
+            if (vertexCount < 3) continue;
+
+            // По кодам вершин решается, нужен ли полигон вообще и требуется ли отсечение
+            int frustumOutcode = -1;
+            int clipOutcode = 0;
+            for (int i = start; i < start + vertexCount; i++) {
+                int index = vIndices[i];
+                frustumOutcode &= frustumOutcodes[index];
+                clipOutcode |= clipOutcodes[index];
+            }
+
+            // Все вершины снаружи одной плоскости видимого объёма
+            if (frustumOutcode != 0) {
+                RenderStatistics.addPolygonOutsideFrustum();
+                continue;
+            }
+            boolean needsClipping = clipOutcode != 0;
+            if (needsClipping) {
+                RenderStatistics.addPolygonClipped();
+            }
 
-                Vector3D normal = null;
-                Vector3D worldPos = null;
-                if (renderingModes.isUseLighting()) {
-                    if (!polygon.getNormalIndices().isEmpty()) {
-                        Vector3D rawNormal = mesh.getNormals().get(polygon.getNormalIndices().get(i));
-                        normal = modelMatrix.multiply(rawNormal).normalize();
+            if (!needsClipping) {
+                if (cullMode != RenderingModes.CullMode.NONE
+                        && isCulled(screenSignedArea(screenPositions, vIndices, start, vertexCount), cullMode)) {
+                    RenderStatistics.addTrianglesCulled(vertexCount - 2);
+                } else {
+                    ScreenVertex[] polygon = primitives.polygon(vertexCount);
+                    for (int i = 0; i < vertexCount; i++) {
+                        setScreenVertex(polygon[i], mesh, face, start + i, vertexProcessor, renderingModes, cache);
                     }
-                    worldPos = modelMatrix.multiply(modelPos);
+                    boolean[] polygonEdges = null;
+                    if (wireframeOverlay) {
+                        polygonEdges = primitives.polygonEdges(vertexCount);
+                        Arrays.fill(polygonEdges, 0, vertexCount, true);
+                    }
+                    submitFan(polygon, vertexCount, tileRasterizer, polygonEdges, visibility, draw);
                 }
+            } else {
+                fillClipped(mesh, face, vertexProcessor, clipOutcode, width, height, cullMode,
+                        tileRasterizer, renderingModes, cache, visibility, draw, wireframeOverlay);
+            }
+        }
+
+        // Каркас рисуется после заливки по списку уникальных рёбер: общее ребро
+        // соседних полигонов растеризуется один раз
+        if (drawWireframe && !wireframeOverlay) {
+            submitEdges(mesh, vertexProcessor, width, height, tileRasterizer);
+        }
 
-                screenVertices.add(toScreenVertex(ndcPos, width, height, invW, uv, normal, worldPos));
+        tileRasterizer.flush();
+    }
+
+    // Полигон, пересекающий ближнюю/дальнюю плоскость или защитную полосу.
+    // К позиции каждой вершины добавляются веса исходных вершин: после отсечения
+    // по ним интерполируются текстурные координаты, нормали и мировые позиции,
+    // а для каркаса определяется, какие рёбра лежат на рёбрах исходного полигона
+    private static void fillClipped(
+            CompactMesh mesh, int face, VertexProcessor vertexProcessor, int planeMask,
+            int width, int height, RenderingModes.CullMode cullMode, TileRasterizer tileRasterizer,
+            RenderingModes renderingModes, ShadingCache cache, VisibilityBuffer visibility, int draw,
+            boolean wireframe) {
+        PrimitiveBuffer primitives = tileRasterizer.getPrimitiveBuffer();
+        int start = mesh.getFaceOffsets()[face];
+        int vertexCount = mesh.getFaceOffsets()[face + 1] - start;
+        int[] vIndices = mesh.getVertexIndices();
+        float[] clipPositions = vertexProcessor.getClipPositions();
+        int stride = 4 + vertexCount;
+
+        float[] vertices = primitives.clipVertices((vertexCount + 6) * stride);
+        for (int i = 0; i < vertexCount; i++) {
+            System.arraycopy(clipPositions, 4 * vIndices[start + i], vertices, i * stride, 4);
+            vertices[i * stride + 4 + i] = 1.0f;
+        }
+
+        int count = PolygonClipper.clipPolygon(vertices, vertexCount, stride, planeMask, primitives.clipBuffer());
+        if (count < 3) return;
+
+        if (cullMode != RenderingModes.CullMode.NONE
+                && isCulled(clipSignedArea(vertices, count, stride, width, height), cullMode)) {
+            RenderStatistics.addTrianglesCulled(vertexCount - 2);
+            return;
+        }
+
+        ScreenVertex[] polygon = primitives.polygon(count);
+        for (int i = 0; i < count; i++) {
+            setClippedScreenVertex(polygon[i], mesh, face, vertexProcessor, vertices,
+                    i * stride, width, height, renderingModes, cache, primitives.vector);
+        }
+
+        boolean[] polygonEdges = null;
+        if (wireframe) {
+            polygonEdges = primitives.polygonEdges(count);
+            for (int i = 0; i < count; i++) {
+                polygonEdges[i] = isOriginalEdge(vertices, i * stride, (i + 1) % count * stride, vertexCount);
+            }
+        }
+        submitFan(polygon, count, tileRasterizer, polygonEdges, visibility, draw);
+    }
+
+    // Ребро отсечённого полигона лежит на ребре исходного, если веса обоих концов
+    // отличны от нуля только у двух соседних исходных вершин. Веса вершин, не
+    // участвующих в интерполяции, остаются точными нулями
+    private static boolean isOriginalEdge(float[] vertices, int a, int b, int vertexCount) {
+        int first = -1;
+        int second = -1;
+        for (int k = 0; k < vertexCount; k++) {
+            if (vertices[a + 4 + k] == 0.0f && vertices[b + 4 + k] == 0.0f) {
+                continue;
             }
+            if (first < 0) {
+                first = k;
+            } else if (second < 0) {
+                second = k;
+            } else {
+                return false;
+            }
+        }
+        return second < 0 || second == first + 1 || first == 0 && second == vertexCount - 1;
+    }
 
-            // Заливаем только если включен флаг заливки
-            if (renderingModes.isDrawFilled()) {
-                for (int i = 1; i < screenVertices.size() - 1; i++) {
-                    TriangleRasterization.fillTriangle(
-                            graphicsContext,
-                            zBuffer,
-                            screenVertices.get(0),
-                            screenVertices.get(i),
-                            screenVertices.get(i+1),
-                            width,
-                            height,
-                            texture,
-                            lighting,
-                            baseColor,
-                            camera.getPosition(),
-                            renderingModes
-                    );
-                }
+    // polygonEdges[i] - ребро полигона от вершины i к следующей рисуется каркасом
+    // в самих треугольниках; null - без каркаса. Внутренние диагонали веера
+    // в каркас не входят
+    private static void submitFan(
+            ScreenVertex[] polygon, int count, TileRasterizer tileRasterizer,
+            boolean[] polygonEdges, VisibilityBuffer visibility, int draw) {
+        final PrimitiveBuffer primitives = tileRasterizer.getPrimitiveBuffer();
+        final int last = count - 2;
+        final ScreenVertex v0 = polygon[0];
+        for (int i = 1; i <= last; i++) {
+            final ScreenVertex v1 = polygon[i];
+            final ScreenVertex v2 = polygon[i + 1];
+            final int wireframeEdges = polygonEdges == null ? 0
+                    : (polygonEdges[i] ? TriangleRasterization.EDGE_12 : 0)
+                    | (i == 1 && polygonEdges[0] ? TriangleRasterization.EDGE_01 : 0)
+                    | (i == last && polygonEdges[count - 1] ? TriangleRasterization.EDGE_20 : 0);
+            int minX = (int) Math.floor(Math.min(v0.getX(), Math.min(v1.getX(), v2.getX())));
+            int minY = (int) Math.floor(Math.min(v0.getY(), Math.min(v1.getY(), v2.getY())));
+            int maxX = (int) Math.ceil(Math.max(v0.getX(), Math.max(v1.getX(), v2.getX())));
+            int maxY = (int) Math.ceil(Math.max(v0.getY(), Math.max(v1.getY(), v2.getY())));
+
+            final int triangleId = visibility != null
+                    ? visibility.addTriangle(draw, v0, v1, v2, wireframeEdges)
+                    : -1;
+            tileRasterizer.submit(minX, minY, maxX, maxY,
+                    primitives.nextTriangle(v0, v1, v2, wireframeEdges, triangleId));
+        }
+    }
+
+    // Рёбра берут экранные координаты прямо из результатов вершинного этапа.
+    // Ребро, пересекающее ближнюю/дальнюю плоскость или защитную полосу,
+    // отсекается по плоскостям, которые пересекает само
+    private static void submitEdges(CompactMesh mesh, VertexProcessor vertexProcessor, int width, int height,
+                                    TileRasterizer tileRasterizer) {
+        final int[] edges = mesh.getEdges();
+        for (int edge = 0; edge < edges.length; edge += 2) {
+            submitEdge(edges[edge], edges[edge + 1], vertexProcessor, width, height, tileRasterizer);
+        }
+    }
+
+    private static void submitEdge(int start, int end, VertexProcessor vertexProcessor, int width, int height,
+                                   TileRasterizer tileRasterizer) {
+        final int[] frustumOutcodes = vertexProcessor.getFrustumOutcodes();
+        if ((frustumOutcodes[start] & frustumOutcodes[end]) != 0) {
+            return;
+        }
+
+        PrimitiveBuffer primitives = tileRasterizer.getPrimitiveBuffer();
+        int clipOutcode = vertexProcessor.getClipOutcodes()[start] | vertexProcessor.getClipOutcodes()[end];
+        if (clipOutcode != 0) {
+            final float[] clipPositions = vertexProcessor.getClipPositions();
+            System.arraycopy(clipPositions, 4 * start, primitives.lineFrom, 0, 4);
+            System.arraycopy(clipPositions, 4 * end, primitives.lineTo, 0, 4);
+            if (!PolygonClipper.clipLine(primitives.lineFrom, primitives.lineTo, clipOutcode, primitives.lineRange)) {
+                return;
             }
+        }
 
-            if (renderingModes.isDrawWireframe()) {
-                Color wireColor = Color.BLACK;
-                for (int i = 0; i < screenVertices.size(); i++) {
-                    ScreenVertex a = screenVertices.get(i);
-                    ScreenVertex b = screenVertices.get((i + 1) % screenVertices.size());
-
-                    LineRasterizer.drawLine(
-                            graphicsContext,
-                            zBuffer,
-                            a, b,
-                            width, height,
-                            wireColor,
-                            1.0
-                    );
+        PrimitiveBuffer.Line line = primitives.nextLine();
+        ScreenVertex a = line.a;
+        ScreenVertex b = line.b;
+        if (clipOutcode == 0) {
+            setScreenPosition(a, vertexProcessor, start);
+            setScreenPosition(b, vertexProcessor, end);
+        } else {
+            float[] point = primitives.linePoint;
+            setClipPosition(a, lerp(primitives.lineFrom, primitives.lineTo, primitives.lineRange[0], point),
+                    0, width, height);
+            setClipPosition(b, lerp(primitives.lineFrom, primitives.lineTo, primitives.lineRange[1], point),
+                    0, width, height);
+        }
+
+        tileRasterizer.submit(
+                Math.round(Math.min(a.getX(), b.getX())),
+                Math.round(Math.min(a.getY(), b.getY())),
+                Math.round(Math.max(a.getX(), b.getX())),
+                Math.round(Math.max(a.getY(), b.getY())),
+                line);
+    }
+
+    private static float[] lerp(float[] a, float[] b, float t, float[] result) {
+        for (int k = 0; k < 4; k++) {
+            result[k] = a[k] + (b[k] - a[k]) * t;
+        }
+        return result;
+    }
+
+    // Удвоенная площадь полигона на экране со знаком (та же величина, что denom в растеризаторе).
+    // Лицевые грани OBJ обходятся против часовой стрелки, и в NDC (ось y вверх) их площадь
+    // положительна. Переход к экрану переворачивает ось y (y = (1 - y_ndc) / 2 * (h - 1)),
+    // поэтому на экране у лицевых граней denom < 0, у задних denom > 0
+    private static boolean isCulled(double denom, RenderingModes.CullMode cullMode) {
+        if (cullMode == RenderingModes.CullMode.BACK) {
+            return denom >= 0.0;
+        }
+        return denom <= 0.0;
+    }
+
+    // Для полигонов без отсечения: экранные координаты уже посчитаны вершинным этапом
+    private static double screenSignedArea(float[] screenPositions, int[] vIndices, int start, int count) {
+        double denom = 0.0;
+        int last = 3 * vIndices[start + count - 1];
+        double prevX = screenPositions[last];
+        double prevY = screenPositions[last + 1];
+
+        for (int i = start; i < start + count; i++) {
+            int offset = 3 * vIndices[i];
+            double x = screenPositions[offset];
+            double y = screenPositions[offset + 1];
+            denom += prevX * y - x * prevY;
+            prevX = x;
+            prevY = y;
+        }
+        return denom;
+    }
+
+    // Для отсечённых полигонов: после ближней плоскости у всех вершин w > 0
+    private static double clipSignedArea(float[] vertices, int count, int stride, int width, int height) {
+        double denom = 0.0;
+        int last = (count - 1) * stride;
+        double prevX = screenX(vertices, last, width);
+        double prevY = screenY(vertices, last, height);
+
+        for (int i = 0; i < count; i++) {
+            double x = screenX(vertices, i * stride, width);
+            double y = screenY(vertices, i * stride, height);
+            denom += prevX * y - x * prevY;
+            prevX = x;
+            prevY = y;
+        }
+        return denom;
+    }
+
+    private static double screenX(float[] vertices, int offset, int w) {
+        return (vertices[offset] / vertices[offset + 3] + 1.0) * 0.5 * (w - 1);
+    }
+
+    private static double screenY(float[] vertices, int offset, int h) {
+        return (1.0 - vertices[offset + 1] / vertices[offset + 3]) * 0.5 * (h - 1);
+    }
+
+    // corner - номер угла в общих индексных массивах сетки.
+    // С кэшем освещённость угла берётся из него, иначе вершине нужны нормаль и мировая позиция
+    private static void setScreenVertex(
+            ScreenVertex vertex, CompactMesh mesh, int face, int corner, VertexProcessor vertexProcessor,
+            RenderingModes renderingModes, ShadingCache cache) {
+        int index = mesh.getVertexIndices()[corner];
+        setScreenPosition(vertex, vertexProcessor, index);
+
+        int uvIndex = mesh.getTextureIndices()[corner];
+        if (renderingModes.isUseTexture() && uvIndex >= 0) {
+            float[] uvs = mesh.getUvs();
+            vertex.setTextureCoords(uvs[2 * uvIndex], uvs[2 * uvIndex + 1]);
+        }
+
+        if (cache != null) {
+            vertex.setLightingIntensity(renderingModes.getShadingFrequency() == RenderingModes.ShadingFrequency.FLAT
+                    ? cache.getFaceIntensity(face)
+                    : cache.getCornerIntensity(face, corner));
+        } else if (vertexProcessor.hasWorldData()) {
+            int normalIndex = mesh.getNormalIndices()[corner];
+            if (normalIndex >= 0) {
+                float[] normals = vertexProcessor.getWorldNormals();
+                vertex.setNormal(normals[3 * normalIndex], normals[3 * normalIndex + 1], normals[3 * normalIndex + 2]);
+            }
+            float[] positions = vertexProcessor.getWorldPositions();
+            vertex.setWorldPosition(positions[3 * index], positions[3 * index + 1], positions[3 * index + 2]);
+        }
+    }
+
+    // Вершина, полученная отсечением: атрибуты - взвешенная сумма атрибутов исходных вершин
+    private static void setClippedScreenVertex(
+            ScreenVertex vertex, CompactMesh mesh, int face, VertexProcessor vertexProcessor, float[] vertices,
+            int offset, int width, int height, RenderingModes renderingModes, ShadingCache cache, Vec3f scratch) {
+        int start = mesh.getFaceOffsets()[face];
+        int vertexCount = mesh.getFaceOffsets()[face + 1] - start;
+        setClipPosition(vertex, vertices, offset, width, height);
+
+        int[] tIndices = mesh.getTextureIndices();
+        if (renderingModes.isUseTexture() && tIndices[start] >= 0) {
+            float[] uvs = mesh.getUvs();
+            float u = 0.0f;
+            float v = 0.0f;
+            for (int i = 0; i < vertexCount; i++) {
+                float weight = vertices[offset + 4 + i];
+                int uvIndex = 2 * tIndices[start + i];
+                u += weight * uvs[uvIndex];
+                v += weight * uvs[uvIndex + 1];
+            }
+            vertex.setTextureCoords(u, v);
+        }
+
+        if (cache != null) {
+            if (renderingModes.getShadingFrequency() == RenderingModes.ShadingFrequency.FLAT) {
+                vertex.setLightingIntensity(cache.getFaceIntensity(face));
+            } else {
+                float intensity = 0.0f;
+                for (int i = 0; i < vertexCount; i++) {
+                    intensity += vertices[offset + 4 + i] * cache.getCornerIntensity(face, start + i);
                 }
+                vertex.setLightingIntensity(intensity);
+            }
+        } else if (vertexProcessor.hasWorldData()) {
+            if (mesh.getNormalIndices()[start] >= 0) {
+                weightedSum(vertexProcessor.getWorldNormals(), mesh.getNormalIndices(), start, vertexCount,
+                        vertices, offset + 4, scratch).normalizeInto(scratch);
+                vertex.setNormal(scratch.getX(), scratch.getY(), scratch.getZ());
             }
+            weightedSum(vertexProcessor.getWorldPositions(), mesh.getVertexIndices(), start, vertexCount,
+                    vertices, offset + 4, scratch);
+            vertex.setWorldPosition(scratch.getX(), scratch.getY(), scratch.getZ());
         }
     }
 
-    private static ScreenVertex toScreenVertex(Vector3D ndc, int w, int h, float invW, Vector2D uv, Vector3D norm, Vector3D worldPos) {
-        float screenX = (ndc.getX() + 1.0f) * 0.5f * (w - 1);
-        float screenY = (1.0f - ndc.getY()) * 0.5f * (h - 1);
-        return new ScreenVertex(screenX, screenY, ndc.getZ(), invW, uv, norm, worldPos, null);
+    private static Vec3f weightedSum(float[] source, int[] indices, int start, int count,
+                                     float[] weights, int offset, Vec3f result) {
+        float x = 0.0f;
+        float y = 0.0f;
+        float z = 0.0f;
+        for (int i = 0; i < count; i++) {
+            float weight = weights[offset + i];
+            int index = 3 * indices[start + i];
+            x += weight * source[index];
+            y += weight * source[index + 1];
+            z += weight * source[index + 2];
+        }
+        return result.set(x, y, z);
+    }
+
+    // Позиция из результатов вершинного этапа, без атрибутов (для линий сетки и полигонов)
+    private static void setScreenPosition(ScreenVertex vertex, VertexProcessor vertexProcessor, int index) {
+        float[] screenPositions = vertexProcessor.getScreenPositions();
+        int offset = 3 * index;
+        vertex.reset(screenPositions[offset], screenPositions[offset + 1], screenPositions[offset + 2],
+                vertexProcessor.getInvW()[index]);
+    }
+
+    // Деление на w выполняется только здесь, когда вершина уже гарантированно перед камерой
+    private static void setClipPosition(ScreenVertex vertex, float[] clip, int offset, int w, int h) {
+        float clipW = clip[offset + 3];
+        float screenX = (clip[offset] / clipW + 1.0f) * 0.5f * (w - 1);
+        float screenY = (1.0f - clip[offset + 1] / clipW) * 0.5f * (h - 1);
+        vertex.reset(screenX, screenY, clip[offset + 2] / clipW, 1.0f / clipW);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,141 @@
+package RenderingModes;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Счётчики работы растеризатора за кадр. Растеризация идёт в нескольких потоках,
+// поэтому используются LongAdder; растеризатор копит значения локально
+// и добавляет их один раз на треугольник.
+public final class RenderStatistics {
+
+    private static final LongAdder modelsOutsideFrustum = new LongAdder();
+    private static final LongAdder trianglesRasterized = new LongAdder();
+    private static final LongAdder trianglesCulled = new LongAdder();
+    private static final LongAdder polygonsOutsideFrustum = new LongAdder();
+    private static final LongAdder polygonsClipped = new LongAdder();
+    private static final LongAdder trianglesHiZRejected = new LongAdder();
+    private static final LongAdder blocksHiZRejected = new LongAdder();
+    private static final LongAdder pixelsHiZSkipped = new LongAdder();
+    private static final LongAdder fragmentsTested = new LongAdder();
+    private static final LongAdder fragmentsWritten = new LongAdder();
+    private static final LongAdder fragmentsShaded = new LongAdder();
+
+    private RenderStatistics() {}
+
+    public static void reset() {
+        modelsOutsideFrustum.reset();
+        trianglesRasterized.reset();
+        trianglesCulled.reset();
+        polygonsOutsideFrustum.reset();
+        polygonsClipped.reset();
+        trianglesHiZRejected.reset();
+        blocksHiZRejected.reset();
+        pixelsHiZSkipped.reset();
+        fragmentsTested.reset();
+        fragmentsWritten.reset();
+        fragmentsShaded.reset();
+    }
+
+    // Модель пропущена целиком: её ограничивающий объём вне кадра
+    public static void addModelOutsideFrustum() {
+        modelsOutsideFrustum.increment();
+    }
+
+    static void addTrianglesCulled(long count) {
+        trianglesCulled.add(count);
+    }
+
+    static void addPolygonOutsideFrustum() {
+        polygonsOutsideFrustum.increment();
+    }
+
+    static void addPolygonClipped() {
+        polygonsClipped.increment();
+    }
+
+    // Итог растеризации одного треугольника. Треугольник, у которого ни один
+    // фрагмент не дошёл до теста глубины, а хотя бы один блок отброшен Hi-Z,
+    // считается отброшенным целиком. shaded - фрагменты, для которых посчитан цвет:
+    // при прямом затенении это все записанные, при отложенном - ни одного
+    static void addTriangle(long tested, long written, long shaded, long rejectedBlocks, long skippedPixels) {
+        if (tested == 0 && rejectedBlocks > 0) {
+            trianglesHiZRejected.increment();
+        } else {
+            trianglesRasterized.increment();
+        }
+        if (rejectedBlocks > 0) {
+            blocksHiZRejected.add(rejectedBlocks);
+            pixelsHiZSkipped.add(skippedPixels);
+        }
+        if (tested > 0) {
+            fragmentsTested.add(tested);
+            fragmentsWritten.add(written);
+        }
+        if (shaded > 0) {
+            fragmentsShaded.add(shaded);
+        }
+    }
+
+    // Пиксели, затенённые вторым проходом буфера видимости
+    static void addFragmentsShaded(long count) {
+        fragmentsShaded.add(count);
+    }
+
+    public static long getModelsOutsideFrustum() {
+        return modelsOutsideFrustum.sum();
+    }
+
+    public static long getTrianglesRasterized() {
+        return trianglesRasterized.sum();
+    }
+
+    // Треугольники, отброшенные отсечением граней до растеризации
+    public static long getTrianglesCulled() {
+        return trianglesCulled.sum();
+    }
+
+    // Полигоны, целиком лежащие снаружи одной из плоскостей видимого объёма
+    public static long getPolygonsOutsideFrustum() {
+        return polygonsOutsideFrustum.sum();
+    }
+
+    // Полигоны, пересекающие ближнюю/дальнюю плоскость или защитную полосу
+    public static long getPolygonsClipped() {
+        return polygonsClipped.sum();
+    }
+
+    public static long getTrianglesHiZRejected() {
+        return trianglesHiZRejected.sum();
+    }
+
+    public static long getBlocksHiZRejected() {
+        return blocksHiZRejected.sum();
+    }
+
+    // Пиксели ограничивающих прямоугольников, которые не пришлось перебирать благодаря Hi-Z
+    public static long getPixelsHiZSkipped() {
+        return pixelsHiZSkipped.sum();
+    }
+
+    public static long getFragmentsTested() {
+        return fragmentsTested.sum();
+    }
+
+    public static long getFragmentsWritten() {
+        return fragmentsWritten.sum();
+    }
+
+    // Фрагменты, для которых считались текстура и освещение. Разница с числом
+    // записанных - работа, сэкономленная отложенным затенением на перекрытиях
+    public static long getFragmentsShaded() {
+        return fragmentsShaded.sum();
+    }
+
+    public static String summary() {
+        return String.format("Моделей вне кадра: %d | Треугольники: %d (отсечено: %d, Hi-Z: -%d) | Полигоны вне кадра: %d, обрезано: %d"
+                        + " | Фрагменты: %d/%d, затенено: %d | Hi-Z пропущено: %d пикс.",
+                getModelsOutsideFrustum(),
+                getTrianglesRasterized(), getTrianglesCulled(), getTrianglesHiZRejected(),
+                getPolygonsOutsideFrustum(), getPolygonsClipped(),
+                getFragmentsWritten(), getFragmentsTested(), getFragmentsShaded(), getPixelsHiZSkipped());
+    }
+}
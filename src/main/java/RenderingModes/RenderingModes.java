@@ -1,10 +1,55 @@
 package RenderingModes;
 
 public class RenderingModes {
+    // Алгоритм заполнения треугольников
+    public enum RasterizationAlgorithm {
+        BARYCENTRIC,   // исходный: барицентрики с делениями для каждого пикселя
+        EDGE_FUNCTION  // рёберные функции в фиксированной точке, правило top-left
+    }
+
+    // Исполнение внутреннего цикла EDGE_FUNCTION: результат одинаков побитово
+    public enum RasterizationBackend {
+        SCALAR, // по одному пикселю
+        VECTOR  // по несколько пикселей строки через jdk.incubator.vector; без модуля - как SCALAR
+    }
+
+    // Отсечение граней по направлению обхода на экране (лицевые - обход против часовой стрелки в OBJ)
+    public enum CullMode {
+        NONE,  // рисуются все грани
+        BACK,  // отбрасываются грани, повёрнутые от камеры
+        FRONT  // отбрасываются грани, повёрнутые к камере
+    }
+
+    // Частота вычисления освещения
+    public enum ShadingFrequency {
+        FLAT,    // один раз на грань
+        GOURAUD, // в вершинах, интерполяция по треугольнику
+        PHONG    // в каждом пикселе по интерполированной нормали
+    }
+
+    // Каркас вместе с заливкой
+    public enum WireframeMode {
+        LINES,  // отдельный проход отрезков по списку рёбер со смещением глубины
+        OVERLAY // в проходе заливки: пиксели у рёбер полигона получают цвет каркаса
+    }
+
     private boolean drawWireframe;
     private boolean drawFilled; // Добавлено поле
     private boolean useTexture;
     private boolean useLighting;
+    private RasterizationAlgorithm rasterizationAlgorithm = RasterizationAlgorithm.EDGE_FUNCTION;
+    private RasterizationBackend rasterizationBackend = RasterizationBackend.SCALAR;
+    private CullMode cullMode = CullMode.NONE;
+    private Texture.Filter textureFilter = Texture.Filter.NEAREST;
+    private Texture.Wrap textureWrap = Texture.Wrap.REPEAT;
+    // Мип-уровни выключены: на дальних моделях выбор уровня не окупается в скорости,
+    // включаются ради качества (меньше муара)
+    private Texture.Mipmap textureMipmap = Texture.Mipmap.NONE;
+    private ShadingFrequency shadingFrequency = ShadingFrequency.PHONG;
+    private WireframeMode wireframeMode = WireframeMode.OVERLAY;
+    // Отбрасывание блоков 8x8 по иерархическому Z-буферу. Выключено: учёт блоков
+    // на каждой записи глубины обходится дороже, чем отброшенные блоки экономят
+    private boolean hierarchicalDepth = false;
 
     public RenderingModes() {
         this(false, false, false, false);
@@ -17,6 +62,28 @@ public class RenderingModes {
         this.useLighting = useLighting;
     }
 
+    // Копия: режимы, сохранённые до конца кадра, не меняются при настройке следующей модели
+    public RenderingModes(RenderingModes other) {
+        set(other);
+    }
+
+    // Копирование в существующий объект: буфер видимости переиспользует свои копии между кадрами
+    public void set(RenderingModes other) {
+        this.drawWireframe = other.drawWireframe;
+        this.drawFilled = other.drawFilled;
+        this.useTexture = other.useTexture;
+        this.useLighting = other.useLighting;
+        this.rasterizationAlgorithm = other.rasterizationAlgorithm;
+        this.rasterizationBackend = other.rasterizationBackend;
+        this.cullMode = other.cullMode;
+        this.textureFilter = other.textureFilter;
+        this.textureWrap = other.textureWrap;
+        this.textureMipmap = other.textureMipmap;
+        this.shadingFrequency = other.shadingFrequency;
+        this.wireframeMode = other.wireframeMode;
+        this.hierarchicalDepth = other.hierarchicalDepth;
+    }
+
     public boolean isDrawWireframe() {
         return drawWireframe;
     }
@@ -48,4 +115,76 @@ public class RenderingModes {
     public void setUseLighting(boolean useLighting) {
         this.useLighting = useLighting;
     }
-}
\ No newline at end of file
+
+    public RasterizationAlgorithm getRasterizationAlgorithm() {
+        return rasterizationAlgorithm;
+    }
+
+    public void setRasterizationAlgorithm(RasterizationAlgorithm rasterizationAlgorithm) {
+        this.rasterizationAlgorithm = rasterizationAlgorithm;
+    }
+
+    public RasterizationBackend getRasterizationBackend() {
+        return rasterizationBackend;
+    }
+
+    public void setRasterizationBackend(RasterizationBackend rasterizationBackend) {
+        this.rasterizationBackend = rasterizationBackend;
+    }
+
+    public CullMode getCullMode() {
+        return cullMode;
+    }
+
+    public void setCullMode(CullMode cullMode) {
+        this.cullMode = cullMode;
+    }
+
+    public Texture.Filter getTextureFilter() {
+        return textureFilter;
+    }
+
+    public void setTextureFilter(Texture.Filter textureFilter) {
+        this.textureFilter = textureFilter;
+    }
+
+    public Texture.Wrap getTextureWrap() {
+        return textureWrap;
+    }
+
+    public void setTextureWrap(Texture.Wrap textureWrap) {
+        this.textureWrap = textureWrap;
+    }
+
+    public Texture.Mipmap getTextureMipmap() {
+        return textureMipmap;
+    }
+
+    public void setTextureMipmap(Texture.Mipmap textureMipmap) {
+        this.textureMipmap = textureMipmap;
+    }
+
+    public ShadingFrequency getShadingFrequency() {
+        return shadingFrequency;
+    }
+
+    public void setShadingFrequency(ShadingFrequency shadingFrequency) {
+        this.shadingFrequency = shadingFrequency;
+    }
+
+    public WireframeMode getWireframeMode() {
+        return wireframeMode;
+    }
+
+    public void setWireframeMode(WireframeMode wireframeMode) {
+        this.wireframeMode = wireframeMode;
+    }
+
+    public boolean isHierarchicalDepth() {
+        return hierarchicalDepth;
+    }
+
+    public void setHierarchicalDepth(boolean hierarchicalDepth) {
+        this.hierarchicalDepth = hierarchicalDepth;
+    }
+}
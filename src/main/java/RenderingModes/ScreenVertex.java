@@ -3,31 +3,119 @@ package RenderingModes;
 import Math.vector.Vector2D;
 import Math.vector.Vector3D;
 
+// Вершина на экране с атрибутами для шейдера. Атрибуты хранятся в примитивных
+// полях, а сама вершина изменяемая: RenderEngine переиспользует вершины
+// между полигонами и кадрами, не создавая объектов на каждый треугольник
 public class ScreenVertex {
-    private final float x;
-    private final float y;
-    private final float z;
-    private final float invW;
-    private final Vector2D textureCoords;
-    private final Vector3D normal;
-    private final Vector3D worldPosition;
-    private final Float lightingIntensity;
+    private float x;
+    private float y;
+    private float z;
+    private float invW;
+
+    private boolean hasTextureCoords;
+    private float u;
+    private float v;
+
+    private boolean hasNormal;
+    private float normalX;
+    private float normalY;
+    private float normalZ;
+
+    private boolean hasWorldPosition;
+    private float worldX;
+    private float worldY;
+    private float worldZ;
+
+    private boolean hasLightingIntensity;
+    private float lightingIntensity;
+
+    public ScreenVertex() {
+        this(0.0f, 0.0f, 0.0f);
+    }
 
     public ScreenVertex(float x, float y, float z) {
-        this(x, y, z, 1.0f, null, null, null, null);
+        reset(x, y, z, 1.0f);
     }
 
     public ScreenVertex(float x, float y, float z, float invW,
                         Vector2D textureCoords, Vector3D normal,
                         Vector3D worldPosition, Float lightingIntensity) {
+        reset(x, y, z, invW);
+        if (textureCoords != null) {
+            setTextureCoords(textureCoords.getX(), textureCoords.getY());
+        }
+        if (normal != null) {
+            setNormal(normal.getX(), normal.getY(), normal.getZ());
+        }
+        if (worldPosition != null) {
+            setWorldPosition(worldPosition.getX(), worldPosition.getY(), worldPosition.getZ());
+        }
+        if (lightingIntensity != null) {
+            setLightingIntensity(lightingIntensity);
+        }
+    }
+
+    // Новая позиция; атрибуты сбрасываются
+    public ScreenVertex reset(float x, float y, float z, float invW) {
         this.x = x;
         this.y = y;
         this.z = z;
         this.invW = invW;
-        this.textureCoords = textureCoords;
-        this.normal = normal;
-        this.worldPosition = worldPosition;
+        hasTextureCoords = false;
+        hasNormal = false;
+        hasWorldPosition = false;
+        hasLightingIntensity = false;
+        return this;
+    }
+
+    public ScreenVertex set(ScreenVertex other) {
+        x = other.x;
+        y = other.y;
+        z = other.z;
+        invW = other.invW;
+        hasTextureCoords = other.hasTextureCoords;
+        u = other.u;
+        v = other.v;
+        hasNormal = other.hasNormal;
+        normalX = other.normalX;
+        normalY = other.normalY;
+        normalZ = other.normalZ;
+        hasWorldPosition = other.hasWorldPosition;
+        worldX = other.worldX;
+        worldY = other.worldY;
+        worldZ = other.worldZ;
+        hasLightingIntensity = other.hasLightingIntensity;
+        lightingIntensity = other.lightingIntensity;
+        return this;
+    }
+
+    public ScreenVertex setTextureCoords(float u, float v) {
+        this.u = u;
+        this.v = v;
+        hasTextureCoords = true;
+        return this;
+    }
+
+    public ScreenVertex setNormal(float x, float y, float z) {
+        normalX = x;
+        normalY = y;
+        normalZ = z;
+        hasNormal = true;
+        return this;
+    }
+
+    public ScreenVertex setWorldPosition(float x, float y, float z) {
+        worldX = x;
+        worldY = y;
+        worldZ = z;
+        hasWorldPosition = true;
+        return this;
+    }
+
+    public ScreenVertex setLightingIntensity(float lightingIntensity) {
         this.lightingIntensity = lightingIntensity;
+        hasLightingIntensity = true;
+        return this;
     }
 
     public float getX() {
@@ -46,38 +134,55 @@ public class ScreenVertex {
         return invW;
     }
 
-
-    public Vector2D getTextureCoords() {
-        return textureCoords;
+    public float getU() {
+        return u;
     }
 
-    public Vector3D getNormal() {
-        return normal;
+    public float getV() {
+        return v;
     }
 
     public boolean hasTextureCoords() {
-        return textureCoords != null;
+        return hasTextureCoords;
+    }
+
+    public float getNormalX() {
+        return normalX;
+    }
+
+    public float getNormalY() {
+        return normalY;
+    }
+
+    public float getNormalZ() {
+        return normalZ;
     }
 
     public boolean hasNormal() {
-        return normal != null;
+        return hasNormal;
     }
 
-    public Vector3D getWorldPosition() {
-        return worldPosition;
+    public float getWorldX() {
+        return worldX;
+    }
+
+    public float getWorldY() {
+        return worldY;
+    }
+
+    public float getWorldZ() {
+        return worldZ;
     }
 
     public boolean hasWorldPosition() {
-        return worldPosition != null;
+        return hasWorldPosition;
     }
 
-    public Float getLightingIntensity() {
+    public float getLightingIntensity() {
         return lightingIntensity;
     }
 
     public boolean hasLightingIntensity() {
-        return lightingIntensity != null;
+        return hasLightingIntensity;
     }
 }
-
-
@@ -0,0 +1,191 @@
+package RenderingModes;
+
+import Interface.model.CompactMesh;
+import Interface.model.IndexPairTable;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vec3f;
+import Math.vector.Vector3D;
+
+import java.util.Arrays;
+
+// Освещённость граней (FLAT) или вершин (GOURAUD) одной модели.
+// Значения пересчитываются, только если изменились входы освещения: сетка,
+// матрица модели, позиция камеры, источник света или частота затенения.
+// Для GOURAUD вершиной освещения считается пара (позиция, нормаль):
+// углы соседних полигонов с одной парой используют одно значение.
+// Экземпляр принадлежит одной модели и живёт между кадрами.
+public class ShadingCache {
+
+    private CompactMesh mesh;
+    private final float[] modelMatrix = new float[16];
+    private final float[] scratchMatrix = new float[16];
+    private float cameraX;
+    private float cameraY;
+    private float cameraZ;
+    private Lighting lighting;
+    private RenderingModes.ShadingFrequency frequency;
+    private boolean valid;
+
+    // Вершины освещения: номер для каждого угла сетки и его позиция/нормаль.
+    // Строятся один раз для сетки
+    private CompactMesh topologyMesh;
+    private int[] cornerVertices = new int[0];
+    private int[] lightingPositions = new int[0];
+    private int[] lightingNormals = new int[0];
+    private int lightingVertexCount;
+    private boolean hasCornersWithoutNormal;
+
+    private float[] vertexIntensities = new float[0];
+    private float[] faceIntensities = new float[0];
+
+    private final Vec3f normal = new Vec3f();
+    private final Vec3f position = new Vec3f();
+    private final Vec3f camera = new Vec3f();
+    private final Vec3f ray = new Vec3f();
+
+    // true, если сохранённые значения подходят для этих входов
+    public boolean isValid(CompactMesh mesh, Matrix4x4 modelMatrix, Vector3D cameraPosition,
+                           Lighting lighting, RenderingModes.ShadingFrequency frequency) {
+        if (!valid || mesh != this.mesh || lighting != this.lighting || frequency != this.frequency
+                || cameraPosition.getX() != cameraX || cameraPosition.getY() != cameraY
+                || cameraPosition.getZ() != cameraZ) {
+            return false;
+        }
+        modelMatrix.copyTo(scratchMatrix);
+        return Arrays.equals(scratchMatrix, this.modelMatrix);
+    }
+
+    // Пересчёт по мировым данным кадра: vertexProcessor должен быть обработан
+    // с computeWorldData для этой же сетки и матрицы
+    public void update(CompactMesh mesh, VertexProcessor vertexProcessor, Matrix4x4 modelMatrix,
+                       Vector3D cameraPosition, Lighting lighting, RenderingModes.ShadingFrequency frequency) {
+        this.mesh = mesh;
+        modelMatrix.copyTo(this.modelMatrix);
+        this.cameraX = cameraPosition.getX();
+        this.cameraY = cameraPosition.getY();
+        this.cameraZ = cameraPosition.getZ();
+        this.lighting = lighting;
+        this.frequency = frequency;
+        camera.set(cameraPosition);
+
+        if (frequency == RenderingModes.ShadingFrequency.GOURAUD) {
+            buildTopology(mesh);
+            computeVertexIntensities(vertexProcessor);
+            if (hasCornersWithoutNormal) {
+                computeFaceIntensities(mesh, vertexProcessor);
+            }
+        } else {
+            computeFaceIntensities(mesh, vertexProcessor);
+        }
+        valid = true;
+    }
+
+    // Освещённость угла сетки для GOURAUD; углы без нормали берут значение своей грани
+    public float getCornerIntensity(int face, int corner) {
+        int vertex = cornerVertices[corner];
+        return vertex >= 0 ? vertexIntensities[vertex] : faceIntensities[face];
+    }
+
+    public float getFaceIntensity(int face) {
+        return faceIntensities[face];
+    }
+
+    private void buildTopology(CompactMesh mesh) {
+        if (mesh == topologyMesh) {
+            return;
+        }
+        int[] vIndices = mesh.getVertexIndices();
+        int[] nIndices = mesh.getNormalIndices();
+        int cornerCount = vIndices.length;
+
+        cornerVertices = new int[cornerCount];
+        lightingPositions = new int[cornerCount];
+        lightingNormals = new int[cornerCount];
+        lightingVertexCount = 0;
+        hasCornersWithoutNormal = false;
+
+        // Вершина освещения - пара (позиция, нормаль) в порядке первого появления
+        IndexPairTable table = new IndexPairTable(cornerCount);
+        for (int corner = 0; corner < cornerCount; corner++) {
+            int normalIndex = nIndices[corner];
+            if (normalIndex < 0) {
+                cornerVertices[corner] = -1;
+                hasCornersWithoutNormal = true;
+                continue;
+            }
+            int id = table.add(vIndices[corner], normalIndex);
+            if (id == lightingVertexCount) {
+                lightingVertexCount++;
+                lightingPositions[id] = vIndices[corner];
+                lightingNormals[id] = normalIndex;
+            }
+            cornerVertices[corner] = id;
+        }
+        topologyMesh = mesh;
+    }
+
+    private void computeVertexIntensities(VertexProcessor vertexProcessor) {
+        if (vertexIntensities.length < lightingVertexCount) {
+            vertexIntensities = new float[lightingVertexCount];
+        }
+        float[] worldPositions = vertexProcessor.getWorldPositions();
+        float[] worldNormals = vertexProcessor.getWorldNormals();
+
+        for (int i = 0; i < lightingVertexCount; i++) {
+            int p = 3 * lightingPositions[i];
+            int n = 3 * lightingNormals[i];
+            position.set(worldPositions[p], worldPositions[p + 1], worldPositions[p + 2]);
+            normal.set(worldNormals[n], worldNormals[n + 1], worldNormals[n + 2]);
+            vertexIntensities[i] = lighting.computeLightingIntensity(normal, position, camera, ray);
+        }
+    }
+
+    // Нормаль грани по формуле Ньюэлла (годится и для невыпуклых n-угольников),
+    // луч - из камеры в центр грани
+    private void computeFaceIntensities(CompactMesh mesh, VertexProcessor vertexProcessor) {
+        int faceCount = mesh.getFaceCount();
+        if (faceIntensities.length < faceCount) {
+            faceIntensities = new float[faceCount];
+        }
+        int[] faceOffsets = mesh.getFaceOffsets();
+        int[] vIndices = mesh.getVertexIndices();
+        float[] worldPositions = vertexProcessor.getWorldPositions();
+
+        for (int face = 0; face < faceCount; face++) {
+            int start = faceOffsets[face];
+            int end = faceOffsets[face + 1];
+            if (end - start < 3) {
+                continue;
+            }
+
+            float nx = 0.0f;
+            float ny = 0.0f;
+            float nz = 0.0f;
+            float cx = 0.0f;
+            float cy = 0.0f;
+            float cz = 0.0f;
+            int previous = 3 * vIndices[end - 1];
+            for (int corner = start; corner < end; corner++) {
+                int current = 3 * vIndices[corner];
+                float px = worldPositions[previous];
+                float py = worldPositions[previous + 1];
+                float pz = worldPositions[previous + 2];
+                float x = worldPositions[current];
+                float y = worldPositions[current + 1];
+                float z = worldPositions[current + 2];
+                nx += (py - y) * (pz + z);
+                ny += (pz - z) * (px + x);
+                nz += (px - x) * (py + y);
+                cx += x;
+                cy += y;
+                cz += z;
+                previous = current;
+            }
+
+            float inverseCount = 1.0f / (end - start);
+            normal.set(nx, ny, nz);
+            position.set(cx * inverseCount, cy * inverseCount, cz * inverseCount);
+            faceIntensities[face] = lighting.computeLightingIntensity(normal, position, camera, ray);
+        }
+    }
+}
@@ -1,15 +1,55 @@
 package RenderingModes;
 
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.PixelReader;
-import javafx.scene.paint.Color;
 
+import java.util.stream.IntStream;
+
+// Текстура, один раз декодированная в int[] ARGB (без домножения на альфу).
+// Выборка не создаёт объектов и возвращает упакованный цвет.
+// Тексель i лежит в [i / width, (i + 1) / width] по u; v направлена вверх,
+// строки изображения - вниз.
+// При загрузке строится цепочка мип-уровней: уровень k в 2^k раз меньше исходного
+// по каждой оси (но не меньше 1). Для удалённых поверхностей выборка идёт из
+// уровня, где тексель примерно равен пикселю, - меньше промахов кэша и мерцания.
 public class Texture {
+
+    // Фильтрация: ближайший тексель или билинейная смесь четырёх соседних
+    public enum Filter {
+        NEAREST,
+        BILINEAR
+    }
+
+    // Адресация координат вне [0, 1]
+    public enum Wrap {
+        CLAMP,  // крайний тексель
+        REPEAT, // плитка
+        MIRROR  // плитка с отражением через раз
+    }
+
+    // Выбор мип-уровня по уровню детализации (lod)
+    public enum Mipmap {
+        NONE,    // всегда исходное изображение
+        NEAREST, // ближайший уровень
+        LINEAR   // смесь двух соседних уровней (трилинейная фильтрация)
+    }
+
+    // Дробная часть координат билинейной фильтрации: 8 бит
+    private static final int FRACTION_BITS = 8;
+    private static final int FRACTION_ONE = 1 << FRACTION_BITS;
+    private static final int FRACTION_MASK = FRACTION_ONE - 1;
+
     private final Image image;
-    private final PixelReader reader;
+    private final int[] texels;
     private final int width;
     private final int height;
 
+    // Уровень 0 - сами texels
+    private final int[][] levels;
+    private final int[] levelWidths;
+    private final int[] levelHeights;
+
     public Texture(Image image) {
         if (image == null) {
             throw new IllegalArgumentException("Image cannot be null");
@@ -22,31 +62,196 @@ public class Texture {
         if (pixelReader == null) {
             throw new IllegalArgumentException("Image pixel reader cannot be null");
         }
-        this.reader = pixelReader;
+        this.texels = new int[width * height];
+        pixelReader.getPixels(0, 0, width, height, PixelFormat.getIntArgbInstance(), texels, 0, width);
+
+        int count = levelCount(width, height);
+        this.levels = new int[count][];
+        this.levelWidths = new int[count];
+        this.levelHeights = new int[count];
+        buildLevels();
+    }
+
+    // Текстура из готовых ARGB-пикселей по строкам; массив не копируется
+    public Texture(int[] argb, int width, int height) {
+        if (width <= 0 || height <= 0 || argb == null || argb.length != width * height) {
+            throw new IllegalArgumentException("Invalid texture dimensions");
+        }
+        this.image = null;
+        this.texels = argb;
+        this.width = width;
+        this.height = height;
+
+        int count = levelCount(width, height);
+        this.levels = new int[count][];
+        this.levelWidths = new int[count];
+        this.levelHeights = new int[count];
+        buildLevels();
+    }
+
+    // Уровни до размера 1x1 по большей стороне
+    private static int levelCount(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    // Каждый уровень считается прямо из исходного изображения, поэтому уровни
+    // независимы и строятся параллельно
+    private void buildLevels() {
+        for (int level = 0; level < levels.length; level++) {
+            levelWidths[level] = Math.max(1, width >> level);
+            levelHeights[level] = Math.max(1, height >> level);
+        }
+        levels[0] = texels;
+        IntStream.range(1, levels.length).parallel().forEach(level ->
+                levels[level] = downsample(texels, width, height, levelWidths[level], levelHeights[level]));
+    }
+
+    // Усреднение по прямоугольным блокам исходного изображения; для размеров, не
+    // кратных степени двойки, блоки соседних текселей различаются на единицу
+    private static int[] downsample(int[] source, int width, int height, int levelWidth, int levelHeight) {
+        int[] result = new int[levelWidth * levelHeight];
+        for (int y = 0; y < levelHeight; y++) {
+            int y0 = y * height / levelHeight;
+            int y1 = (y + 1) * height / levelHeight;
+            for (int x = 0; x < levelWidth; x++) {
+                int x0 = x * width / levelWidth;
+                int x1 = (x + 1) * width / levelWidth;
+
+                long a = 0;
+                long r = 0;
+                long g = 0;
+                long b = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    int row = sy * width;
+                    for (int sx = x0; sx < x1; sx++) {
+                        int argb = source[row + sx];
+                        a += argb >>> 24;
+                        r += (argb >> 16) & 0xFF;
+                        g += (argb >> 8) & 0xFF;
+                        b += argb & 0xFF;
+                    }
+                }
+
+                long count = (long) (x1 - x0) * (y1 - y0);
+                long half = count / 2;
+                result[y * levelWidth + x] = (int) ((a + half) / count) << 24
+                        | (int) ((r + half) / count) << 16
+                        | (int) ((g + half) / count) << 8
+                        | (int) ((b + half) / count);
+            }
+        }
+        return result;
     }
 
     public Image getImage() {
         return image;
     }
 
-    public Color sample(float u, float v) {
-        // Ограничиваем координаты UV в пределах [0, 1]
-        u = Math.max(0.0f, Math.min(1.0f, u));
-        v = Math.max(0.0f, Math.min(1.0f, v));
+    public int sample(float u, float v) {
+        return sample(u, v, Filter.NEAREST, Wrap.REPEAT);
+    }
+
+    // Цвет в точке (u, v) в формате ARGB без домножения на альфу
+    public int sample(float u, float v, Filter filter, Wrap wrap) {
+        return sampleLevel(0, u, v, filter, wrap);
+    }
+
+    // То же с выбором мип-уровня; lod - log2 размера пикселя в текселях исходного
+    // изображения (см. levelOfDetail). lod <= 0 - увеличение, берётся уровень 0
+    public int sample(float u, float v, float lod, Filter filter, Wrap wrap, Mipmap mipmap) {
+        if (mipmap == Mipmap.NONE || !(lod > 0.0f)) {
+            return sampleLevel(0, u, v, filter, wrap);
+        }
+        int last = levels.length - 1;
+        if (lod >= last) {
+            return sampleLevel(last, u, v, filter, wrap);
+        }
+        if (mipmap == Mipmap.NEAREST) {
+            return sampleLevel((int) (lod + 0.5f), u, v, filter, wrap);
+        }
+        int level = (int) lod;
+        int t = (int) ((lod - level) * FRACTION_ONE);
+        return lerp(sampleLevel(level, u, v, filter, wrap), sampleLevel(level + 1, u, v, filter, wrap), t);
+    }
+
+    // Уровень детализации по производным UV вдоль осей экрана:
+    // log2 длины большего из двух шагов в текселях
+    public float levelOfDetail(float dudx, float dvdx, float dudy, float dvdy) {
+        float ux = dudx * width;
+        float vx = dvdx * height;
+        float uy = dudy * width;
+        float vy = dvdy * height;
+        float squared = Math.max(ux * ux + vx * vx, uy * uy + vy * vy);
+        return 0.5f * log2(squared);
+    }
+
+    // Приближённый log2: порядок числа плюс мантисса как линейная добавка (ошибка < 0.09)
+    static float log2(float value) {
+        if (!(value > 0.0f) || value == Float.POSITIVE_INFINITY) {
+            return value > 0.0f ? 128.0f : -128.0f;
+        }
+        int bits = Float.floatToRawIntBits(value);
+        return ((bits >>> 23) - 127) + (bits & 0x7FFFFF) * (1.0f / (1 << 23));
+    }
+
+    private int sampleLevel(int level, float u, float v, Filter filter, Wrap wrap) {
+        int[] data = levels[level];
+        int w = levelWidths[level];
+        int h = levelHeights[level];
+        if (filter == Filter.BILINEAR) {
+            return sampleBilinear(data, w, h, u, v, wrap);
+        }
+        int x = wrap((int) Math.floor(u * w), w, wrap);
+        int y = wrap((int) Math.floor((1.0f - v) * h), h, wrap);
+        return data[y * w + x];
+    }
 
-        // Конвертируем в пиксельные координаты (V инвертируется)
-        int x = (int) (u * (width - 1));
-        int y = (int) ((1.0f - v) * (height - 1));
+    // Координаты переводятся в фиксированную точку со сдвигом на полтекселя:
+    // целая часть - левый верхний из четырёх текселей, дробная - веса
+    private static int sampleBilinear(int[] data, int w, int h, float u, float v, Wrap wrap) {
+        int fx = (int) Math.floor(u * w * FRACTION_ONE) - FRACTION_ONE / 2;
+        int fy = (int) Math.floor((1.0f - v) * h * FRACTION_ONE) - FRACTION_ONE / 2;
+        int tx = fx >> FRACTION_BITS;
+        int ty = fy >> FRACTION_BITS;
+        int wx = fx & FRACTION_MASK;
+        int wy = fy & FRACTION_MASK;
 
-        // Гарантируем, что координаты в пределах изображения
-        x = Math.max(0, Math.min(width - 1, x));
-        y = Math.max(0, Math.min(height - 1, y));
+        int x0 = wrap(tx, w, wrap);
+        int x1 = wrap(tx + 1, w, wrap);
+        int row0 = wrap(ty, h, wrap) * w;
+        int row1 = wrap(ty + 1, h, wrap) * w;
+
+        int top = lerp(data[row0 + x0], data[row0 + x1], wx);
+        int bottom = lerp(data[row1 + x0], data[row1 + x1], wx);
+        return lerp(top, bottom, wy);
+    }
 
-        return reader.getColor(x, y);
+    // Смесь a * (1 - t) + b * t для всех четырёх каналов сразу, t в 1/256:
+    // каналы разнесены парами (R, B) и (A, G) по 16 бит, произведение 8 x 9 бит в них помещается
+    static int lerp(int a, int b, int t) {
+        int s = FRACTION_ONE - t;
+        int rb = (((a & 0x00FF00FF) * s + (b & 0x00FF00FF) * t) >>> FRACTION_BITS) & 0x00FF00FF;
+        int ag = (((a >>> 8) & 0x00FF00FF) * s + ((b >>> 8) & 0x00FF00FF) * t) & 0xFF00FF00;
+        return ag | rb;
+    }
+
+    // Для размеров-степеней двойки REPEAT и MIRROR сводятся к маске
+    private static int wrap(int coordinate, int size, Wrap wrap) {
+        boolean powerOfTwo = (size & (size - 1)) == 0;
+        switch (wrap) {
+            case REPEAT:
+                return powerOfTwo ? coordinate & (size - 1) : Math.floorMod(coordinate, size);
+            case MIRROR: {
+                int period = powerOfTwo ? coordinate & (2 * size - 1) : Math.floorMod(coordinate, 2 * size);
+                return period < size ? period : 2 * size - 1 - period;
+            }
+            default:
+                return coordinate < 0 ? 0 : (coordinate >= size ? size - 1 : coordinate);
+        }
     }
 
     public boolean isLoaded() {
-        return image != null;
+        return texels != null;
     }
 
     public int getWidth() {
@@ -56,4 +261,16 @@ public class Texture {
     public int getHeight() {
         return height;
     }
-}
\ No newline at end of file
+
+    public int getLevelCount() {
+        return levels.length;
+    }
+
+    public int getLevelWidth(int level) {
+        return levelWidths[level];
+    }
+
+    public int getLevelHeight(int level) {
+        return levelHeights[level];
+    }
+}
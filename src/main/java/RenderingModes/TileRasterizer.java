@@ -0,0 +1,230 @@
+package RenderingModes;
+
+// Тайловая многопоточная растеризация.
+// Примитивы (треугольники, отрезки) сначала раскладываются по тайлам экрана
+// TILE_SIZE x TILE_SIZE, затем каждый тайл растеризуется отдельной задачей ForkJoinPool.
+// Тайл пишет только в свою область буфера кадра и Z-буфера, поэтому блокировки не нужны,
+// а порядок примитивов внутри тайла совпадает с порядком отправки: результат
+// попиксельно одинаков при любом числе потоков.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+public class TileRasterizer {
+
+    public static final int TILE_SIZE = 64;
+
+    // Примитив, рисующий себя только внутри заданной области экрана
+    @FunctionalInterface
+    public interface Primitive {
+        void rasterize(int clipMinX, int clipMinY, int clipMaxX, int clipMaxY);
+    }
+
+    private int parallelism;
+    private ForkJoinPool pool;
+
+    // Отмена устаревшего кадра из другого потока: новые примитивы отбрасываются,
+    // нерастеризованные тайлы пропускаются
+    private volatile boolean cancelled;
+
+    private int width;
+    private int height;
+
+    private final List<Primitive> primitives = new ArrayList<>();
+    private int[] bounds = new int[4 * 256];
+    // Треугольники и отрезки RenderEngine, переиспользуемые между кадрами
+    private final PrimitiveBuffer primitiveBuffer = new PrimitiveBuffer();
+
+    private int tilesX;
+    private int tilesY;
+    private int[][] tileLists = new int[0][];
+    private int[] tileCounts = new int[0];
+
+    public TileRasterizer(int parallelism) {
+        setParallelism(parallelism);
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    // При parallelism == 1 примитивы рисуются сразу, без разбиения на тайлы
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be positive");
+        }
+        if (parallelism == this.parallelism) {
+            return;
+        }
+
+        primitives.clear();
+        primitiveBuffer.release();
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+        this.parallelism = parallelism;
+    }
+
+    public boolean isParallel() {
+        return parallelism > 1;
+    }
+
+    public void setCancelled(boolean cancelled) {
+        this.cancelled = cancelled;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public void begin(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be positive");
+        }
+        this.width = width;
+        this.height = height;
+        primitives.clear();
+        primitiveBuffer.release();
+    }
+
+    PrimitiveBuffer getPrimitiveBuffer() {
+        return primitiveBuffer;
+    }
+
+    // Отправка примитива с ограничивающим прямоугольником в пикселях (включительно)
+    public void submit(int minX, int minY, int maxX, int maxY, Primitive primitive) {
+        minX = Math.max(0, minX);
+        minY = Math.max(0, minY);
+        maxX = Math.min(width - 1, maxX);
+        maxY = Math.min(height - 1, maxY);
+        boolean visible = minX <= maxX && minY <= maxY && !cancelled;
+
+        // Без тайлов примитив рисуется сразу и больше не нужен
+        if (!isParallel()) {
+            if (visible) {
+                primitive.rasterize(0, 0, width - 1, height - 1);
+            }
+            primitiveBuffer.release();
+            return;
+        }
+        if (!visible) {
+            return;
+        }
+
+        int index = primitives.size();
+        if (4 * (index + 1) > bounds.length) {
+            bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        }
+        bounds[4 * index] = minX;
+        bounds[4 * index + 1] = minY;
+        bounds[4 * index + 2] = maxX;
+        bounds[4 * index + 3] = maxY;
+        primitives.add(primitive);
+    }
+
+    // Раскладывает накопленные примитивы по тайлам и растеризует тайлы параллельно
+    public void flush() {
+        if (primitives.isEmpty()) {
+            return;
+        }
+
+        binPrimitives();
+        invoke(new TileRangeTask(0, tilesX * tilesY));
+
+        primitives.clear();
+        primitiveBuffer.release();
+    }
+
+    // Выполняет задачу в пуле растеризатора: им пользуется и вершинный этап
+    void invoke(ForkJoinTask<?> task) {
+        if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+        }
+        pool.invoke(task);
+    }
+
+    private void binPrimitives() {
+        tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        int tileCount = tilesX * tilesY;
+
+        if (tileLists.length < tileCount) {
+            tileLists = Arrays.copyOf(tileLists, tileCount);
+            tileCounts = new int[tileCount];
+        }
+        Arrays.fill(tileCounts, 0, tileCount, 0);
+
+        for (int i = 0; i < primitives.size(); i++) {
+            int tileMinX = bounds[4 * i] / TILE_SIZE;
+            int tileMinY = bounds[4 * i + 1] / TILE_SIZE;
+            int tileMaxX = bounds[4 * i + 2] / TILE_SIZE;
+            int tileMaxY = bounds[4 * i + 3] / TILE_SIZE;
+
+            for (int ty = tileMinY; ty <= tileMaxY; ty++) {
+                for (int tx = tileMinX; tx <= tileMaxX; tx++) {
+                    addToTile(ty * tilesX + tx, i);
+                }
+            }
+        }
+    }
+
+    private void addToTile(int tile, int primitiveIndex) {
+        int[] list = tileLists[tile];
+        int count = tileCounts[tile];
+        if (list == null) {
+            list = new int[64];
+            tileLists[tile] = list;
+        } else if (count == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+            tileLists[tile] = list;
+        }
+        list[count] = primitiveIndex;
+        tileCounts[tile] = count + 1;
+    }
+
+    private void rasterizeTile(int tile) {
+        int count = tileCounts[tile];
+        if (count == 0 || cancelled) {
+            return;
+        }
+
+        int clipMinX = (tile % tilesX) * TILE_SIZE;
+        int clipMinY = (tile / tilesX) * TILE_SIZE;
+        int clipMaxX = Math.min(width - 1, clipMinX + TILE_SIZE - 1);
+        int clipMaxY = Math.min(height - 1, clipMinY + TILE_SIZE - 1);
+
+        int[] list = tileLists[tile];
+        for (int i = 0; i < count; i++) {
+            primitives.get(list[i]).rasterize(clipMinX, clipMinY, clipMaxX, clipMaxY);
+        }
+    }
+
+    // Рекурсивное деление диапазона тайлов между потоками пула
+    private final class TileRangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        TileRangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 2) {
+                for (int tile = from; tile < to; tile++) {
+                    rasterizeTile(tile);
+                }
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new TileRangeTask(from, mid), new TileRangeTask(mid, to));
+        }
+    }
+}
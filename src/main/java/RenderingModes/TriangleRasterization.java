@@ -1,19 +1,36 @@
 package RenderingModes;
 
-import Math.vector.Vector2D;
+import Math.vector.Vec3f;
 import Math.vector.Vector3D;
-import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.PixelWriter;
 import javafx.scene.paint.Color;
 
 
 public class TriangleRasterization {
 
+    // Векторный путь возможен, только если модуль jdk.incubator.vector подключён при запуске;
+    // иначе VectorSpanRasterizer не загружается и всё рисуется скалярно
+    private static final boolean VECTOR_API_AVAILABLE =
+            ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
     private TriangleRasterization() {
     }
 
+    public static boolean isVectorBackendAvailable() {
+        return VECTOR_API_AVAILABLE;
+    }
+
+    // Рёбра треугольника для каркаса в проходе заливки (маска wireframeEdges)
+    public static final int EDGE_01 = 1;
+    public static final int EDGE_12 = 2;
+    public static final int EDGE_20 = 4;
+
+    // Толщина линии каркаса внутри треугольника в пикселях. На общем ребре линии
+    // соседних треугольников складываются; на силуэте её рисует один треугольник,
+    // и при меньшей толщине центры пикселей у наклонного ребра не попадали бы в линию
+    private static final double WIREFRAME_WIDTH = 1.0;
+
     public static void fillTriangle(
-            GraphicsContext gc,
+            FrameBuffer frameBuffer,
             ZBuffer zBuffer,
             ScreenVertex v0,
             ScreenVertex v1,
@@ -22,7 +39,7 @@ public class TriangleRasterization {
             int height,
             Color color
     ) {
-        PixelWriter pw = gc.getPixelWriter();
+        int argb = FrameBuffer.toArgb(color);
 
         float x0 = v0.getX();
         float y0 = v0.getY();
@@ -58,7 +75,7 @@ public class TriangleRasterization {
                     double depth = alpha * z0 + beta * z1 + gamma * z2;
 
                     if (zBuffer.testAndSet(x, y, depth)) {
-                        pw.setColor(x, y, color);
+                        frameBuffer.setPixel(x, y, argb);
                     }
                 }
             }
@@ -77,7 +94,7 @@ public class TriangleRasterization {
 
 
     public static void fillTriangle(
-            GraphicsContext gc,
+            FrameBuffer frameBuffer,
             ZBuffer zBuffer,
             ScreenVertex v0,
             ScreenVertex v1,
@@ -90,55 +107,174 @@ public class TriangleRasterization {
             Vector3D cameraPosition,
             RenderingModes modes
     ) {
-        PixelWriter pw = gc.getPixelWriter();
+        fillTriangle(frameBuffer, zBuffer, v0, v1, v2, 0, 0, width - 1, height - 1,
+                texture, lighting, color, cameraPosition, modes);
+    }
+
+    // Заливка с ограничением областью [clipMinX, clipMaxX] x [clipMinY, clipMaxY]:
+    // используется тайловой растеризацией, каждый тайл рисует только свои пиксели
+    public static void fillTriangle(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Texture texture,
+            Lighting lighting,
+            Color color,
+            Vector3D cameraPosition,
+            RenderingModes modes
+    ) {
+        fillTriangle(frameBuffer, zBuffer, v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY,
+                texture, lighting, color, cameraPosition, modes, 0, 0, null, 0);
+    }
 
+    // Заливка с каркасом в том же проходе: пиксель ближе WIREFRAME_WIDTH к ребру
+    // из маски wireframeEdges (EDGE_01 | EDGE_12 | EDGE_20) получает цвет wireframeArgb.
+    // Расстояние до ребра - его рёберная функция, делённая на длину ребра: отдельного
+    // прохода линий и смещения глубины не нужно
+    public static void fillTriangle(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Texture texture,
+            Lighting lighting,
+            Color color,
+            Vector3D cameraPosition,
+            RenderingModes modes,
+            int wireframeEdges,
+            int wireframeArgb
+    ) {
+        fillTriangle(frameBuffer, zBuffer, v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY,
+                texture, lighting, color, cameraPosition, modes, wireframeEdges, wireframeArgb, null, 0);
+    }
+
+    // Первый проход отложенного затенения: тот же обход и тест глубины, но вместо
+    // цвета в буфер видимости записывается номер треугольника. Цвет считается
+    // позже, в resolveRows, один раз для каждого видимого пикселя
+    public static void fillTriangleVisibility(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            VisibilityBuffer visibility,
+            int triangleId,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            RenderingModes modes
+    ) {
+        fillTriangle(frameBuffer, zBuffer, v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY,
+                null, null, null, null, modes, 0, 0, visibility, triangleId);
+    }
+
+    private static void fillTriangle(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Texture texture,
+            Lighting lighting,
+            Color color,
+            Vector3D cameraPosition,
+            RenderingModes modes,
+            int wireframeEdges,
+            int wireframeArgb,
+            VisibilityBuffer visibility,
+            int triangleId
+    ) {
+        if (usesBarycentricPath(v0, v1, v2, modes)) {
+            fillTriangleBarycentric(frameBuffer, zBuffer, v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY,
+                    texture, lighting, color, cameraPosition, modes, wireframeEdges, wireframeArgb,
+                    visibility, triangleId);
+        } else {
+            fillTriangleEdgeFunction(frameBuffer, zBuffer, v0, v1, v2, clipMinX, clipMinY, clipMaxX, clipMaxY,
+                    texture, lighting, color, cameraPosition, modes, wireframeEdges, wireframeArgb,
+                    visibility, triangleId);
+        }
+    }
+
+    // Координаты вне диапазона фиксированной точки обрабатывает исходный путь
+    private static boolean usesBarycentricPath(ScreenVertex v0, ScreenVertex v1, ScreenVertex v2,
+                                               RenderingModes modes) {
+        return modes.getRasterizationAlgorithm() == RenderingModes.RasterizationAlgorithm.BARYCENTRIC
+                || !fitsFixedPoint(v0) || !fitsFixedPoint(v1) || !fitsFixedPoint(v2);
+    }
+
+    // Исходный вариант: барицентрические координаты пересчитываются для каждого пикселя
+    // прямоугольника с двумя делениями, правила заполнения нет. Оставлен для сравнения.
+    private static void fillTriangleBarycentric(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Texture texture,
+            Lighting lighting,
+            Color color,
+            Vector3D cameraPosition,
+            RenderingModes modes,
+            int wireframeEdges,
+            int wireframeArgb,
+            VisibilityBuffer visibility,
+            int triangleId
+    ) {
         float x0 = v0.getX();
         float y0 = v0.getY();
         double z0 = v0.getZ();
-        float invW0 = v0.getInvW();
 
         float x1 = v1.getX();
         float y1 = v1.getY();
         double z1 = v1.getZ();
-        float invW1 = v1.getInvW();
 
         float x2 = v2.getX();
         float y2 = v2.getY();
         double z2 = v2.getZ();
-        float invW2 = v2.getInvW();
 
 
         // Вычисление ограничивающего прямоугольника
-        int minX = (int) Math.max(0, Math.floor(Math.min(x0, Math.min(x1, x2))));
-        int maxX = (int) Math.min(width - 1, Math.ceil(Math.max(x0, Math.max(x1, x2))));
-        int minY = (int) Math.max(0, Math.floor(Math.min(y0, Math.min(y1, y2))));
-        int maxY = (int) Math.min(height - 1, Math.ceil(Math.max(y0, Math.max(y1, y2))));
+        int minX = (int) Math.max(clipMinX, Math.floor(Math.min(x0, Math.min(x1, x2))));
+        int maxX = (int) Math.min(clipMaxX, Math.ceil(Math.max(x0, Math.max(x1, x2))));
+        int minY = (int) Math.max(clipMinY, Math.floor(Math.min(y0, Math.min(y1, y2))));
+        int maxY = (int) Math.min(clipMaxY, Math.ceil(Math.max(y0, Math.max(y1, y2))));
 
         double denom = (double) ((y1 - y2) * (x0 - x2) + (x2 - x1) * (y0 - y2));
         if (Math.abs(denom) < 1e-12) {
             return;
         }
 
-        Vector2D tex0 = v0.getTextureCoords();
-        Vector2D tex1 = v1.getTextureCoords();
-        Vector2D tex2 = v2.getTextureCoords();
-
-        Vector3D normal0 = v0.getNormal();
-        Vector3D normal1 = v1.getNormal();
-        Vector3D normal2 = v2.getNormal();
-
-        Vector3D worldPos0 = v0.getWorldPosition();
-        Vector3D worldPos1 = v1.getWorldPosition();
-        Vector3D worldPos2 = v2.getWorldPosition();
+        FragmentShader shader = visibility == null
+                ? SHADERS.get().prepare(v0, v1, v2, texture, lighting, color, cameraPosition, modes)
+                : null;
 
-        Float light0 = v0.getLightingIntensity();
-        Float light1 = v1.getLightingIntensity();
-        Float light2 = v2.getLightingIntensity();
-
-        boolean hasTexture = modes.isUseTexture() && texture != null;
-        boolean hasLighting = modes.isUseLighting() && lighting != null;
-        boolean hasPrecomputedLighting = lighting != null && light0 != null && light1 != null && light2 != null;
+        // Расстояние до ребра = барицентрика противоположной вершины * высота к ребру
+        double alphaLimit = wireframeLimit(wireframeEdges, EDGE_12, x1, y1, x2, y2, denom);
+        double betaLimit = wireframeLimit(wireframeEdges, EDGE_20, x2, y2, x0, y0, denom);
+        double gammaLimit = wireframeLimit(wireframeEdges, EDGE_01, x0, y0, x1, y1, denom);
 
+        long tested = 0;
+        long written = 0;
         for (int y = minY; y <= maxY; y++) {
             for (int x = minX; x <= maxX; x++) {
 
@@ -149,57 +285,696 @@ public class TriangleRasterization {
                 if (alpha >= 0 && beta >= 0 && gamma >= 0) {
                     double depth = alpha * z0 + beta * z1 + gamma * z2;
 
+                    tested++;
                     if (zBuffer.testAndSet(x, y, depth)) {
-                        Color pixelColor = color;
-
-                        if (hasTexture) {
-                            // перспективно-корректная интерполяция UV
-                            double invW = alpha * invW0 + beta * invW1 + gamma * invW2;
-                            if (Math.abs(invW) > 1e-12) {
-                                double w = 1.0 / invW;
-                                double uOverW =
-                                        alpha * tex0.getX() * invW0 +
-                                                beta * tex1.getX() * invW1 +
-                                                gamma * tex2.getX() * invW2;
-                                double vOverW =
-                                        alpha * tex0.getY() * invW0 +
-                                                beta * tex1.getY() * invW1 +
-                                                gamma * tex2.getY() * invW2;
-
-                                float u = (float) (uOverW * w);
-                                float v = (float) (vOverW * w);
-                                pixelColor = texture.sample(u, v);
+                        written++;
+                        if (visibility != null) {
+                            visibility.set(x, y, triangleId);
+                        } else if (alpha < alphaLimit || beta < betaLimit || gamma < gammaLimit) {
+                            frameBuffer.setPixel(x, y, wireframeArgb);
+                        } else {
+                            frameBuffer.setPixel(x, y, shader.shade(alpha, beta, gamma));
+                        }
+                    }
+                }
+            }
+        }
+
+        RenderStatistics.addTriangle(tested, written, visibility == null ? written : 0, 0, 0);
+    }
+
+    // Растеризация через рёберные функции в фиксированной точке.
+    // Рёберные функции вычисляются один раз на треугольник и далее только
+    // наращиваются: на шаг по x и на шаг по строке. Пиксель на общем ребре
+    // двух треугольников закрашивается ровно один раз (правило top-left).
+    private static void fillTriangleEdgeFunction(
+            FrameBuffer frameBuffer,
+            ZBuffer zBuffer,
+            ScreenVertex v0,
+            ScreenVertex v1,
+            ScreenVertex v2,
+            int clipMinX,
+            int clipMinY,
+            int clipMaxX,
+            int clipMaxY,
+            Texture texture,
+            Lighting lighting,
+            Color color,
+            Vector3D cameraPosition,
+            RenderingModes modes,
+            int wireframeEdges,
+            int wireframeArgb,
+            VisibilityBuffer visibility,
+            int triangleId
+    ) {
+        long fx0 = toFixed(v0.getX());
+        long fy0 = toFixed(v0.getY());
+        long fx1 = toFixed(v1.getX());
+        long fy1 = toFixed(v1.getY());
+        long fx2 = toFixed(v2.getX());
+        long fy2 = toFixed(v2.getY());
+
+        long area = edge(fx0, fy0, fx1, fy1, fx2, fy2);
+        if (area == 0) {
+            return;
+        }
+        if (area < 0) {
+            // Приводим обход к одному направлению, меняя местами v1 и v2
+            ScreenVertex tv = v1;
+            v1 = v2;
+            v2 = tv;
+            long t = fx1;
+            fx1 = fx2;
+            fx2 = t;
+            t = fy1;
+            fy1 = fy2;
+            fy2 = t;
+            area = -area;
+            wireframeEdges = swapWireframeEdges(wireframeEdges);
+        }
+
+        // Пиксельные центры лежат в целых координатах, как и в исходном пути
+        int minX = (int) Math.max(clipMinX, ceilToPixel(Math.min(fx0, Math.min(fx1, fx2))));
+        int maxX = (int) Math.min(clipMaxX, floorToPixel(Math.max(fx0, Math.max(fx1, fx2))));
+        int minY = (int) Math.max(clipMinY, ceilToPixel(Math.min(fy0, Math.min(fy1, fy2))));
+        int maxY = (int) Math.min(clipMaxY, floorToPixel(Math.max(fy0, Math.max(fy1, fy2))));
+        if (minX > maxX || minY > maxY) {
+            return;
+        }
+
+        // Ближайшая глубина треугольника с запасом на погрешность интерполяции:
+        // если она не ближе самой дальней глубины блока, блок можно не растеризовать
+        double nearestDepth = Math.min(v0.getZ(), Math.min(v1.getZ(), v2.getZ())) - HIZ_DEPTH_EPSILON;
+        boolean hierarchicalDepth = modes.isHierarchicalDepth() && zBuffer.isHierarchical();
+
+        // Перекрыт весь охватывающий прямоугольник - треугольник отбрасывается
+        // до настройки рёберных функций
+        if (hierarchicalDepth && zBuffer.isOccluded(minX, minY, maxX, maxY, nearestDepth)) {
+            long blocks = (long) ((maxX >> ZBuffer.HIZ_BLOCK_SHIFT) - (minX >> ZBuffer.HIZ_BLOCK_SHIFT) + 1)
+                    * ((maxY >> ZBuffer.HIZ_BLOCK_SHIFT) - (minY >> ZBuffer.HIZ_BLOCK_SHIFT) + 1);
+            RenderStatistics.addTriangle(0, 0, 0, blocks, (long) (maxX - minX + 1) * (maxY - minY + 1));
+            return;
+        }
+
+        // Смещения правила top-left: на не-левых и не-верхних рёбрах
+        // граничный пиксель (E == 0) не закрашивается
+        long bias0 = isTopLeft(fx1, fy1, fx2, fy2) ? 0 : -1;
+        long bias1 = isTopLeft(fx2, fy2, fx0, fy0) ? 0 : -1;
+        long bias2 = isTopLeft(fx0, fy0, fx1, fy1) ? 0 : -1;
+
+        // Приращения рёберных функций на один пиксель по x и по y
+        long stepX0 = (fy1 - fy2) << SUBPIXEL_BITS;
+        long stepX1 = (fy2 - fy0) << SUBPIXEL_BITS;
+        long stepX2 = (fy0 - fy1) << SUBPIXEL_BITS;
+        long stepY0 = (fx2 - fx1) << SUBPIXEL_BITS;
+        long stepY1 = (fx0 - fx2) << SUBPIXEL_BITS;
+        long stepY2 = (fx1 - fx0) << SUBPIXEL_BITS;
+
+        long px = (long) minX << SUBPIXEL_BITS;
+        long py = (long) minY << SUBPIXEL_BITS;
+        long origin0 = edge(fx1, fy1, fx2, fy2, px, py);
+        long origin1 = edge(fx2, fy2, fx0, fy0, px, py);
+        long origin2 = edge(fx0, fy0, fx1, fy1, px, py);
+
+        // Пороги рёберных функций для каркаса; -1 - ребро не рисуется
+        double wireLimit0 = wireframeLimit(wireframeEdges, EDGE_12, fx1, fy1, fx2, fy2);
+        double wireLimit1 = wireframeLimit(wireframeEdges, EDGE_20, fx2, fy2, fx0, fy0);
+        double wireLimit2 = wireframeLimit(wireframeEdges, EDGE_01, fx0, fy0, fx1, fy1);
+        boolean wireframe = wireframeEdges != 0;
+
+        double invArea = 1.0 / area;
+        double z0 = v0.getZ();
+        double dz1 = (v1.getZ() - z0) * invArea;
+        double dz2 = (v2.getZ() - z0) * invArea;
+
+        // Векторные операции читают буферы без проверки границ
+        boolean vectorSpans = VECTOR_API_AVAILABLE
+                && modes.getRasterizationBackend() == RenderingModes.RasterizationBackend.VECTOR
+                && minX >= 0 && minY >= 0
+                && maxX < Math.min(zBuffer.getWidth(), frameBuffer.getWidth())
+                && maxY < Math.min(zBuffer.getHeight(), frameBuffer.getHeight())
+                && (visibility == null
+                        || maxX < visibility.getWidth() && maxY < visibility.getHeight());
+
+        // Шейдер настраивается при первом видимом фрагменте: полностью
+        // перекрытые треугольники его не требуют
+        FragmentShader shader = null;
+
+        long tested = 0;
+        long written = 0;
+        long rejectedBlocks = 0;
+        long skippedPixels = 0;
+
+        // Обход блоками Hi-Z: границы блоков совпадают с сеткой ZBuffer
+        for (int blockY = minY >> ZBuffer.HIZ_BLOCK_SHIFT; blockY <= maxY >> ZBuffer.HIZ_BLOCK_SHIFT; blockY++) {
+            int startY = Math.max(minY, blockY << ZBuffer.HIZ_BLOCK_SHIFT);
+            int endY = Math.min(maxY, (blockY << ZBuffer.HIZ_BLOCK_SHIFT) + ZBuffer.HIZ_BLOCK_SIZE - 1);
+
+            for (int blockX = minX >> ZBuffer.HIZ_BLOCK_SHIFT; blockX <= maxX >> ZBuffer.HIZ_BLOCK_SHIFT; blockX++) {
+                int startX = Math.max(minX, blockX << ZBuffer.HIZ_BLOCK_SHIFT);
+                int endX = Math.min(maxX, (blockX << ZBuffer.HIZ_BLOCK_SHIFT) + ZBuffer.HIZ_BLOCK_SIZE - 1);
+
+                long offsetX = startX - minX;
+                long offsetY = startY - minY;
+                long row0 = origin0 + offsetX * stepX0 + offsetY * stepY0;
+                long row1 = origin1 + offsetX * stepX1 + offsetY * stepY1;
+                long row2 = origin2 + offsetX * stepX2 + offsetY * stepY2;
+
+                // Блок целиком снаружи одного из рёбер: рёберные функции линейны,
+                // достаточно проверить углы блока
+                long spanX = endX - startX;
+                long spanY = endY - startY;
+                if (isOutside(row0 + bias0, stepX0 * spanX, stepY0 * spanY)
+                        || isOutside(row1 + bias1, stepX1 * spanX, stepY1 * spanY)
+                        || isOutside(row2 + bias2, stepX2 * spanX, stepY2 * spanY)) {
+                    continue;
+                }
+
+                if (hierarchicalDepth && nearestDepth >= zBuffer.getBlockMaxDepth(blockX, blockY)) {
+                    rejectedBlocks++;
+                    skippedPixels += (spanX + 1) * (spanY + 1);
+                    continue;
+                }
+
+                for (int y = startY; y <= endY; y++) {
+                    if (vectorSpans) {
+                        long masks = VectorSpanRasterizer.testSpan(zBuffer, startX, y, endX - startX + 1,
+                                row0, row1, row2, bias0, bias1, bias2, stepX0, stepX1, stepX2, z0, dz1, dz2);
+                        int writtenMask = (int) masks;
+                        tested += Long.bitCount(masks >>> 32);
+                        written += Integer.bitCount(writtenMask);
+
+                        if (writtenMask != 0 && visibility != null) {
+                            VectorSpanRasterizer.fillSpan(visibility.getIds(),
+                                    y * visibility.getWidth() + startX, writtenMask, triangleId);
+                        } else if (writtenMask != 0) {
+                            if (shader == null) {
+                                shader = SHADERS.get().prepare(v0, v1, v2, texture, lighting, color,
+                                        cameraPosition, modes);
+                            }
+                            if (shader.constantColor && !wireframe) {
+                                VectorSpanRasterizer.fillSpan(frameBuffer.getPixels(),
+                                        y * frameBuffer.getStride() + startX, writtenMask, shader.baseArgb);
+                            } else {
+                                // Цвет по-прежнему считается для каждого записанного пикселя
+                                for (int bits = writtenMask; bits != 0; bits &= bits - 1) {
+                                    int lane = Integer.numberOfTrailingZeros(bits);
+                                    long w1 = row1 + lane * stepX1;
+                                    long w2 = row2 + lane * stepX2;
+                                    if (wireframe && (row0 + lane * stepX0 < wireLimit0
+                                            || w1 < wireLimit1 || w2 < wireLimit2)) {
+                                        frameBuffer.setPixel(startX + lane, y, wireframeArgb);
+                                        continue;
+                                    }
+                                    double beta = w1 * invArea;
+                                    double gamma = w2 * invArea;
+                                    frameBuffer.setPixel(startX + lane, y, shader.shade(1.0 - beta - gamma, beta, gamma));
+                                }
                             }
                         }
 
-                        if (hasPrecomputedLighting) {
-                            float intensity = (float) (alpha * light0 + beta * light1 + gamma * light2);
-                            pixelColor = lighting.shadeColor(pixelColor, intensity);
-                        } else if (hasLighting) {
-                            Vector3D interpolatedNormal = normal0.multiply((float) alpha)
-                                    .add(normal1.multiply((float) beta))
-                                    .add(normal2.multiply((float) gamma))
-                                    .normalize();
-
-                            Vector3D interpolatedWorldPos = worldPos0.multiply((float) alpha)
-                                    .add(worldPos1.multiply((float) beta))
-                                    .add(worldPos2.multiply((float) gamma));
-
-                            float intensity = lighting.computeLightingIntensity(
-                                    interpolatedNormal,
-                                    interpolatedWorldPos,
-                                    cameraPosition
-                            );
-
-                            pixelColor = lighting.shadeColor(pixelColor, intensity);
+                        row0 += stepY0;
+                        row1 += stepY1;
+                        row2 += stepY2;
+                        continue;
+                    }
+
+                    long w0 = row0;
+                    long w1 = row1;
+                    long w2 = row2;
+
+                    for (int x = startX; x <= endX; x++) {
+                        if (((w0 + bias0) | (w1 + bias1) | (w2 + bias2)) >= 0) {
+                            double depth = z0 + w1 * dz1 + w2 * dz2;
+
+                            tested++;
+                            if (zBuffer.testAndSet(x, y, depth)) {
+                                written++;
+                                if (visibility != null) {
+                                    visibility.set(x, y, triangleId);
+                                    w0 += stepX0;
+                                    w1 += stepX1;
+                                    w2 += stepX2;
+                                    continue;
+                                }
+                                if (w0 < wireLimit0 || w1 < wireLimit1 || w2 < wireLimit2) {
+                                    frameBuffer.setPixel(x, y, wireframeArgb);
+                                    w0 += stepX0;
+                                    w1 += stepX1;
+                                    w2 += stepX2;
+                                    continue;
+                                }
+                                if (shader == null) {
+                                    shader = SHADERS.get().prepare(v0, v1, v2, texture, lighting, color,
+                                            cameraPosition, modes);
+                                }
+                                double beta = w1 * invArea;
+                                double gamma = w2 * invArea;
+                                frameBuffer.setPixel(x, y, shader.shade(1.0 - beta - gamma, beta, gamma));
+                            }
                         }
 
-                        pw.setColor(x, y, pixelColor);
+                        w0 += stepX0;
+                        w1 += stepX1;
+                        w2 += stepX2;
                     }
+
+                    row0 += stepY0;
+                    row1 += stepY1;
+                    row2 += stepY2;
                 }
             }
         }
+
+        RenderStatistics.addTriangle(tested, written, visibility == null ? written : 0,
+                rejectedBlocks, skippedPixels);
+    }
+
+    // Запас, покрывающий погрешность интерполяции глубины и квантования Z-буфера
+    private static final double HIZ_DEPTH_EPSILON = 1e-6;
+
+    // Все четыре угла блока лежат снаружи ребра (значение функции в углу < 0)
+    private static boolean isOutside(long corner, long spanX, long spanY) {
+        return corner < 0 && corner + spanX < 0 && corner + spanY < 0 && corner + spanX + spanY < 0;
     }
-}
 
+    // Подпиксельная точность вершин: 1/16 пикселя
+    private static final int SUBPIXEL_BITS = 4;
+    private static final float SUBPIXEL_SCALE = 1 << SUBPIXEL_BITS;
+    private static final float MAX_FIXED_COORDINATE = 1 << 22;
 
+    private static boolean fitsFixedPoint(ScreenVertex v) {
+        return Math.abs(v.getX()) < MAX_FIXED_COORDINATE && Math.abs(v.getY()) < MAX_FIXED_COORDINATE;
+    }
+
+    private static long toFixed(float value) {
+        return Math.round((double) value * SUBPIXEL_SCALE);
+    }
+
+    private static long ceilToPixel(long fixed) {
+        return (fixed + (1 << SUBPIXEL_BITS) - 1) >> SUBPIXEL_BITS;
+    }
+
+    private static long floorToPixel(long fixed) {
+        return fixed >> SUBPIXEL_BITS;
+    }
+
+    // Рёберная функция: > 0, если точка (px, py) лежит слева от ребра a -> b
+    // (при оси y, направленной вниз)
+    private static long edge(long ax, long ay, long bx, long by, long px, long py) {
+        return (bx - ax) * (py - ay) - (by - ay) * (px - ax);
+    }
+
+    private static boolean isTopLeft(long ax, long ay, long bx, long by) {
+        long dx = bx - ax;
+        long dy = by - ay;
+        return (dy == 0 && dx > 0) || dy < 0;
+    }
+
+    // Перестановка v1 и v2 меняет местами рёбра 0-1 и 2-0
+    private static int swapWireframeEdges(int wireframeEdges) {
+        return (wireframeEdges & EDGE_12)
+                | ((wireframeEdges & EDGE_01) != 0 ? EDGE_20 : 0)
+                | ((wireframeEdges & EDGE_20) != 0 ? EDGE_01 : 0);
+    }
+
+    // Порог рёберной функции ребра a -> b: E = длина ребра * расстояние до него,
+    // в фиксированной точке обе величины умножены на SUBPIXEL_SCALE
+    private static double wireframeLimit(int wireframeEdges, int edge, long ax, long ay, long bx, long by) {
+        if ((wireframeEdges & edge) == 0) {
+            return -1.0;
+        }
+        return WIREFRAME_WIDTH * SUBPIXEL_SCALE * Math.hypot(bx - ax, by - ay);
+    }
+
+    // Порог барицентрики вершины напротив ребра a -> b: высота к ребру = |denom| / длина ребра
+    private static double wireframeLimit(int wireframeEdges, int edge, float ax, float ay, float bx, float by,
+                                         double denom) {
+        if ((wireframeEdges & edge) == 0) {
+            return -1.0;
+        }
+        return WIREFRAME_WIDTH * Math.hypot(bx - ax, by - ay) / Math.abs(denom);
+    }
+
+    // Размер кэша настроенных треугольников второго прохода (степень двойки):
+    // соседние пиксели строки обычно принадлежат одному треугольнику
+    private static final int RESOLVE_CACHE_SIZE = 256;
+
+    // Шейдер и кэш второго прохода на поток: тайлы одного треугольника и полосы
+    // строк кадра обрабатываются разными потоками пула, объекты переиспользуются
+    private static final ThreadLocal<FragmentShader> SHADERS = ThreadLocal.withInitial(FragmentShader::new);
+    private static final ThreadLocal<DeferredTriangle[]> RESOLVE_CACHES = ThreadLocal.withInitial(() -> {
+        DeferredTriangle[] cache = new DeferredTriangle[RESOLVE_CACHE_SIZE];
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new DeferredTriangle();
+        }
+        return cache;
+    });
+
+    // Второй проход отложенного затенения для строк [fromY, toY): цвет каждого
+    // пикселя с номером треугольника. Барицентрики считаются теми же выражениями,
+    // что и в первом проходе, поэтому результат совпадает с прямым затенением.
+    // Возвращает число затенённых пикселей
+    static long resolveRows(FrameBuffer frameBuffer, VisibilityBuffer visibility, int fromY, int toY) {
+        int[] ids = visibility.getIds();
+        int stride = visibility.getWidth();
+        int width = Math.min(stride, frameBuffer.getWidth());
+        DeferredTriangle[] cache = RESOLVE_CACHES.get();
+        for (DeferredTriangle triangle : cache) {
+            triangle.id = VisibilityBuffer.EMPTY;
+        }
+        long shaded = 0;
+
+        for (int y = fromY; y < toY; y++) {
+            int row = y * stride;
+            for (int x = 0; x < width; x++) {
+                int id = ids[row + x];
+                if (id == VisibilityBuffer.EMPTY) {
+                    continue;
+                }
+                int slot = id & (RESOLVE_CACHE_SIZE - 1);
+                DeferredTriangle triangle = cache[slot];
+                if (triangle.id != id) {
+                    triangle.prepare(visibility, id);
+                }
+                frameBuffer.setPixel(x, y, triangle.shade(x, y));
+                shaded++;
+            }
+        }
+        return shaded;
+    }
+
+    // Треугольник из таблицы буфера видимости, подготовленный к затенению:
+    // та же перестановка вершин и фиксированная точка, что в fillTriangleEdgeFunction,
+    // либо те же выражения, что в fillTriangleBarycentric
+    private static final class DeferredTriangle {
+        private int id = VisibilityBuffer.EMPTY;
+        private final FragmentShader shader = new FragmentShader();
+        private boolean barycentric;
+        private int wireframeArgb;
+        private double wireLimit0;
+        private double wireLimit1;
+        private double wireLimit2;
+
+        private long fx0;
+        private long fy0;
+        private long fx1;
+        private long fy1;
+        private long fx2;
+        private long fy2;
+        private double invArea;
+
+        private float x0;
+        private float y0;
+        private float x1;
+        private float y1;
+        private float x2;
+        private float y2;
+        private double denom;
+
+        void prepare(VisibilityBuffer visibility, int id) {
+            this.id = id;
+            ScreenVertex v0 = visibility.getVertex(id, 0);
+            ScreenVertex v1 = visibility.getVertex(id, 1);
+            ScreenVertex v2 = visibility.getVertex(id, 2);
+            VisibilityBuffer.Draw draw = visibility.getDraw(id);
+            int wireframeEdges = visibility.getWireframeEdges(id);
+            this.barycentric = usesBarycentricPath(v0, v1, v2, draw.modes);
+            this.wireframeArgb = draw.wireframeArgb;
+
+            if (barycentric) {
+                x0 = v0.getX();
+                y0 = v0.getY();
+                x1 = v1.getX();
+                y1 = v1.getY();
+                x2 = v2.getX();
+                y2 = v2.getY();
+                denom = (double) ((y1 - y2) * (x0 - x2) + (x2 - x1) * (y0 - y2));
+                wireLimit0 = wireframeLimit(wireframeEdges, EDGE_12, x1, y1, x2, y2, denom);
+                wireLimit1 = wireframeLimit(wireframeEdges, EDGE_20, x2, y2, x0, y0, denom);
+                wireLimit2 = wireframeLimit(wireframeEdges, EDGE_01, x0, y0, x1, y1, denom);
+            } else {
+                fx0 = toFixed(v0.getX());
+                fy0 = toFixed(v0.getY());
+                fx1 = toFixed(v1.getX());
+                fy1 = toFixed(v1.getY());
+                fx2 = toFixed(v2.getX());
+                fy2 = toFixed(v2.getY());
+                long area = edge(fx0, fy0, fx1, fy1, fx2, fy2);
+                if (area < 0) {
+                    ScreenVertex tv = v1;
+                    v1 = v2;
+                    v2 = tv;
+                    long t = fx1;
+                    fx1 = fx2;
+                    fx2 = t;
+                    t = fy1;
+                    fy1 = fy2;
+                    fy2 = t;
+                    area = -area;
+                    wireframeEdges = swapWireframeEdges(wireframeEdges);
+                }
+                invArea = 1.0 / area;
+                wireLimit0 = wireframeLimit(wireframeEdges, EDGE_12, fx1, fy1, fx2, fy2);
+                wireLimit1 = wireframeLimit(wireframeEdges, EDGE_20, fx2, fy2, fx0, fy0);
+                wireLimit2 = wireframeLimit(wireframeEdges, EDGE_01, fx0, fy0, fx1, fy1);
+            }
+
+            shader.prepare(v0, v1, v2, draw.texture, draw.lighting, draw.color, draw.cameraPosition, draw.modes);
+        }
+
+        int shade(int x, int y) {
+            if (barycentric) {
+                double alpha = ((y1 - y2) * (x - x2) + (x2 - x1) * (y - y2)) / denom;
+                double beta = ((y2 - y0) * (x - x2) + (x0 - x2) * (y - y2)) / denom;
+                double gamma = 1.0 - alpha - beta;
+                if (alpha < wireLimit0 || beta < wireLimit1 || gamma < wireLimit2) {
+                    return wireframeArgb;
+                }
+                return shader.shade(alpha, beta, gamma);
+            }
+            long px = (long) x << SUBPIXEL_BITS;
+            long py = (long) y << SUBPIXEL_BITS;
+            long w1 = edge(fx2, fy2, fx0, fy0, px, py);
+            long w2 = edge(fx0, fy0, fx1, fy1, px, py);
+            if (w1 < wireLimit1 || w2 < wireLimit2 || edge(fx1, fy1, fx2, fy2, px, py) < wireLimit0) {
+                return wireframeArgb;
+            }
+            double beta = w1 * invArea;
+            double gamma = w2 * invArea;
+            return shader.shade(1.0 - beta - gamma, beta, gamma);
+        }
+    }
+
+    // Вычисление цвета фрагмента по барицентрическим координатам:
+    // текстура с перспективной коррекцией и освещение.
+    // Шейдер переиспользуется: prepare настраивает его на треугольник и копирует
+    // векторы вершин в изменяемые Vec3f, поэтому ни настройка, ни расчёт фрагмента
+    // не создают объектов
+    private static final class FragmentShader {
+        private ScreenVertex v0;
+        private ScreenVertex v1;
+        private ScreenVertex v2;
+        private Texture texture;
+        private Lighting lighting;
+        // Цвет без домножения на альфу - вход целочисленного освещения
+        private int straightArgb;
+
+        private boolean hasTexture;
+        private Texture.Filter textureFilter;
+        private Texture.Wrap textureWrap;
+        private Texture.Mipmap textureMipmap;
+        // Экранные градиенты u/w, v/w и 1/w: постоянны для треугольника,
+        // по ним в каждом пикселе считаются производные UV и мип-уровень.
+        // Если уровни в вершинах почти совпадают, на весь треугольник берётся один
+        private boolean mipmapped;
+        private boolean perPixelLod;
+        private float lod;
+        private double uOverWdx;
+        private double uOverWdy;
+        private double vOverWdx;
+        private double vOverWdy;
+        private double invWdx;
+        private double invWdy;
+        private boolean hasLighting;
+        private boolean hasPrecomputedLighting;
+        private boolean constantColor;
+        private int baseArgb;
+
+        private final Vec3f normal0 = new Vec3f();
+        private final Vec3f normal1 = new Vec3f();
+        private final Vec3f normal2 = new Vec3f();
+        private final Vec3f position0 = new Vec3f();
+        private final Vec3f position1 = new Vec3f();
+        private final Vec3f position2 = new Vec3f();
+        private final Vec3f cameraPosition = new Vec3f();
+        private final Vec3f normal = new Vec3f();
+        private final Vec3f position = new Vec3f();
+        private final Vec3f ray = new Vec3f();
+
+        FragmentShader prepare(ScreenVertex v0, ScreenVertex v1, ScreenVertex v2,
+                               Texture texture, Lighting lighting, Color color,
+                               Vector3D cameraPosition, RenderingModes modes) {
+            this.v0 = v0;
+            this.v1 = v1;
+            this.v2 = v2;
+            this.texture = texture;
+            this.lighting = lighting;
+            this.straightArgb = FrameBuffer.toStraightArgb(color);
+
+            this.hasTexture = modes.isUseTexture() && texture != null;
+            this.textureFilter = modes.getTextureFilter();
+            this.textureWrap = modes.getTextureWrap();
+            this.textureMipmap = modes.getTextureMipmap();
+            this.mipmapped = hasTexture && textureMipmap != Texture.Mipmap.NONE && texture.getLevelCount() > 1
+                    && prepareGradients();
+            this.hasLighting = modes.isUseLighting() && lighting != null;
+            this.hasPrecomputedLighting = lighting != null
+                    && v0.hasLightingIntensity() && v1.hasLightingIntensity() && v2.hasLightingIntensity();
+            this.constantColor = !hasTexture && !hasLighting && !hasPrecomputedLighting;
+            this.baseArgb = FrameBuffer.toArgb(color);
+
+            if (hasLighting && !hasPrecomputedLighting) {
+                normal0.set(v0.getNormalX(), v0.getNormalY(), v0.getNormalZ());
+                normal1.set(v1.getNormalX(), v1.getNormalY(), v1.getNormalZ());
+                normal2.set(v2.getNormalX(), v2.getNormalY(), v2.getNormalZ());
+                position0.set(v0.getWorldX(), v0.getWorldY(), v0.getWorldZ());
+                position1.set(v1.getWorldX(), v1.getWorldY(), v1.getWorldZ());
+                position2.set(v2.getWorldX(), v2.getWorldY(), v2.getWorldZ());
+                this.cameraPosition.set(cameraPosition);
+            }
+            return this;
+        }
+
+        // Разброс уровней в вершинах, при котором уровень общий для треугольника
+        private static final float CONSTANT_LOD_SPREAD = 0.5f;
+
+        // Градиенты атрибута f по x и y: f0 + beta * (f1 - f0) + gamma * (f2 - f0),
+        // где beta и gamma - барицентрики вершин v1 и v2.
+        // false для вырожденного треугольника и для увеличения во всех вершинах (уровень 0)
+        private boolean prepareGradients() {
+            double x10 = v1.getX() - v0.getX();
+            double y10 = v1.getY() - v0.getY();
+            double x20 = v2.getX() - v0.getX();
+            double y20 = v2.getY() - v0.getY();
+            double area = x10 * y20 - x20 * y10;
+            if (area == 0.0) {
+                return false;
+            }
+            double betaDx = y20 / area;
+            double betaDy = -x20 / area;
+            double gammaDx = -y10 / area;
+            double gammaDy = x10 / area;
+
+            double q0 = v0.getInvW();
+            double q1 = v1.getInvW();
+            double q2 = v2.getInvW();
+            double u0 = v0.getU() * q0;
+            double u1 = v1.getU() * q1;
+            double u2 = v2.getU() * q2;
+            double w0 = v0.getV() * q0;
+            double w1 = v1.getV() * q1;
+            double w2 = v2.getV() * q2;
+
+            invWdx = (q1 - q0) * betaDx + (q2 - q0) * gammaDx;
+            invWdy = (q1 - q0) * betaDy + (q2 - q0) * gammaDy;
+            uOverWdx = (u1 - u0) * betaDx + (u2 - u0) * gammaDx;
+            uOverWdy = (u1 - u0) * betaDy + (u2 - u0) * gammaDy;
+            vOverWdx = (w1 - w0) * betaDx + (w2 - w0) * gammaDx;
+            vOverWdy = (w1 - w0) * betaDy + (w2 - w0) * gammaDy;
+
+            float lod0 = vertexLod(v0, q0);
+            float lod1 = vertexLod(v1, q1);
+            float lod2 = vertexLod(v2, q2);
+            float minLod = Math.min(lod0, Math.min(lod1, lod2));
+            float maxLod = Math.max(lod0, Math.max(lod1, lod2));
+            if (maxLod <= 0.0f) {
+                return false;
+            }
+            perPixelLod = maxLod - minLod > CONSTANT_LOD_SPREAD;
+            lod = 0.5f * (minLod + maxLod);
+            return true;
+        }
+
+        private float vertexLod(ScreenVertex vertex, double invW) {
+            if (!(invW > 0.0)) {
+                return Float.POSITIVE_INFINITY;
+            }
+            return texture.levelOfDetail(
+                    (float) ((uOverWdx - vertex.getU() * invWdx) / invW),
+                    (float) ((vOverWdx - vertex.getV() * invWdx) / invW),
+                    (float) ((uOverWdy - vertex.getU() * invWdy) / invW),
+                    (float) ((vOverWdy - vertex.getV() * invWdy) / invW));
+        }
+
+        int shade(double alpha, double beta, double gamma) {
+            if (constantColor) {
+                return baseArgb;
+            }
+
+            // Тексель остаётся упакованным int до записи в кадр
+            boolean textured = false;
+            int texel = 0;
+
+            if (hasTexture) {
+                // перспективно-корректная интерполяция UV
+                float invW0 = v0.getInvW();
+                float invW1 = v1.getInvW();
+                float invW2 = v2.getInvW();
+                double invW = alpha * invW0 + beta * invW1 + gamma * invW2;
+                if (Math.abs(invW) > 1e-12) {
+                    double w = 1.0 / invW;
+                    double uOverW =
+                            alpha * v0.getU() * invW0 +
+                                    beta * v1.getU() * invW1 +
+                                    gamma * v2.getU() * invW2;
+                    double vOverW =
+                            alpha * v0.getV() * invW0 +
+                                    beta * v1.getV() * invW1 +
+                                    gamma * v2.getV() * invW2;
+
+                    float u = (float) (uOverW * w);
+                    float v = (float) (vOverW * w);
+                    if (mipmapped) {
+                        // d(U / Q) = (dU - u * dQ) / Q для U = u / w, Q = 1 / w
+                        float lod = !perPixelLod ? this.lod : texture.levelOfDetail(
+                                (float) ((uOverWdx - u * invWdx) * w),
+                                (float) ((vOverWdx - v * invWdx) * w),
+                                (float) ((uOverWdy - u * invWdy) * w),
+                                (float) ((vOverWdy - v * invWdy) * w));
+                        texel = texture.sample(u, v, lod, textureFilter, textureWrap, textureMipmap);
+                    } else {
+                        texel = texture.sample(u, v, textureFilter, textureWrap);
+                    }
+                    textured = true;
+                }
+            }
+
+            float intensity;
+            if (hasPrecomputedLighting) {
+                intensity = (float) (alpha * v0.getLightingIntensity()
+                        + beta * v1.getLightingIntensity()
+                        + gamma * v2.getLightingIntensity());
+            } else if (hasLighting) {
+                float a = (float) alpha;
+                float b = (float) beta;
+                float g = (float) gamma;
+
+                normal0.multiplyInto(a, normal)
+                        .addScaledInto(normal1, b, normal)
+                        .addScaledInto(normal2, g, normal)
+                        .normalizeInto(normal);
+
+                position0.multiplyInto(a, position)
+                        .addScaledInto(position1, b, position)
+                        .addScaledInto(position2, g, position);
+
+                intensity = lighting.computeLightingIntensity(normal, position, cameraPosition, ray);
+            } else {
+                return textured ? FrameBuffer.premultiply(texel) : baseArgb;
+            }
+
+            return lighting.shadePacked(textured ? texel : straightArgb, Lighting.toFixedIntensity(intensity));
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package RenderingModes;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+// Векторный вариант внутреннего цикла рёберного растеризатора (jdk.incubator.vector).
+// Строка блока Hi-Z обрабатывается порциями по LANES пикселей: рёберные функции
+// и покрытие считаются в long, глубина - в double, тест и запись глубины FLOAT32 -
+// маскированными операциями над float. Операции те же и в том же порядке, что
+// в скалярном цикле TriangleRasterization, поэтому результат совпадает побитово.
+// Класс загружается, только если модуль подключён (--add-modules jdk.incubator.vector).
+final class VectorSpanRasterizer {
+
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // float и int занимают вдвое меньше бит: то же число элементов в векторе вдвое короче
+    private static final VectorShape HALF_SHAPE = VectorShape.forBitSize(LONGS.vectorBitSize() / 2);
+    private static final VectorSpecies<Float> FLOATS = VectorSpecies.of(float.class, HALF_SHAPE);
+    private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, HALF_SHAPE);
+
+    static final int LANES = LONGS.length();
+    private static final LongVector LANE_INDEX = LongVector.zero(LONGS).addIndex(1);
+
+    private VectorSpanRasterizer() {
+    }
+
+    // Покрытие и тест глубины для пикселей [x, x + count) строки y.
+    // row0..row2 - рёберные функции в пикселе x без смещений top-left (bias0..bias2),
+    // stepX0..stepX2 - их приращения на пиксель. Вызывающий гарантирует, что строка
+    // лежит внутри буфера глубины.
+    // Возвращает две маски (бит i - пиксель x + i): в старших 32 битах - покрытые
+    // пиксели, в младших - прошедшие тест глубины и уже записанные в Z-буфер
+    static long testSpan(ZBuffer zBuffer, int x, int y, int count,
+                         long row0, long row1, long row2,
+                         long bias0, long bias1, long bias2,
+                         long stepX0, long stepX1, long stepX2,
+                         double z0, double dz1, double dz2) {
+        float[] depths = zBuffer.getFloatData();
+        long covered = 0;
+        long written = 0;
+
+        for (int offset = 0; offset < count; offset += LANES) {
+            LongVector lane = LANE_INDEX.add(offset);
+            LongVector w1 = lane.mul(stepX1).add(row1);
+            LongVector w2 = lane.mul(stepX2).add(row2);
+            VectorMask<Long> cover = lane.mul(stepX0).add(row0 + bias0)
+                    .or(w1.add(bias1))
+                    .or(w2.add(bias2))
+                    .compare(VectorOperators.GE, 0)
+                    .and(LONGS.indexInRange(offset, count));
+            long coverBits = cover.toLong();
+            if (coverBits == 0) {
+                continue;
+            }
+
+            // z0 + w1 * dz1 + w2 * dz2, как в скалярном цикле
+            DoubleVector depth = DoubleVector.broadcast(DOUBLES, z0)
+                    .add(((DoubleVector) w1.convert(VectorOperators.L2D, 0)).mul(dz1))
+                    .add(((DoubleVector) w2.convert(VectorOperators.L2D, 0)).mul(dz2));
+
+            int px = x + offset;
+            long passBits = 0;
+            if (depths != null) {
+                int index = y * zBuffer.getWidth() + px;
+                VectorMask<Float> coverMask = cover.cast(FLOATS);
+                FloatVector value = (FloatVector) depth.convertShape(VectorOperators.D2F, FLOATS, 0);
+                FloatVector old = FloatVector.fromArray(FLOATS, depths, index, coverMask);
+                VectorMask<Float> pass = value.lt(old).and(coverMask);
+                passBits = pass.toLong();
+                if (passBits != 0) {
+                    value.intoArray(depths, index, pass);
+                    if (zBuffer.isHierarchical()) {
+                        VectorMask<Float> filled = old.eq(Float.POSITIVE_INFINITY).and(pass);
+                        VectorMask<Float> farthest = old.compare(VectorOperators.GE,
+                                        zBuffer.getStoredBlockMaxDepth(px, y))
+                                .and(pass)
+                                .andNot(filled);
+                        zBuffer.onSpanReplaced(px, y, filled.trueCount(), farthest.anyTrue());
+                    }
+                }
+            } else {
+                // FIXED24: квантование остаётся скалярным, по одному покрытому пикселю
+                for (long bits = coverBits; bits != 0; bits &= bits - 1) {
+                    int i = Long.numberOfTrailingZeros(bits);
+                    if (zBuffer.testAndSet(px + i, y, depth.lane(i))) {
+                        passBits |= 1L << i;
+                    }
+                }
+            }
+
+            covered |= coverBits << offset;
+            written |= passBits << offset;
+        }
+
+        return (covered << 32) | written;
+    }
+
+    // Один цвет в пиксели маски: бит i - пиксель pixels[offset + i]
+    static void fillSpan(int[] pixels, int offset, int mask, int argb) {
+        IntVector color = IntVector.broadcast(INTS, argb);
+        for (int chunk = 0; (mask >>> chunk) != 0; chunk += LANES) {
+            color.intoArray(pixels, offset + chunk, VectorMask.fromLong(INTS, mask >>> chunk));
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package RenderingModes;
+
+import Interface.model.CompactMesh;
+import Math.cam.Camera;
+import Math.matrix.Matrix4x4;
+
+import java.util.concurrent.RecursiveAction;
+
+// Вершинный этап: каждая вершина модели преобразуется один раз за кадр,
+// а не для каждого ссылающегося на неё угла полигона. Результаты лежат
+// в примитивных массивах, индексируемых номером вершины (нормали - номером нормали);
+// сборка полигонов в RenderEngine только читает их.
+// Массивы переиспользуются между кадрами и растут только при необходимости.
+// Большие модели обрабатываются параллельно в пуле TileRasterizer.
+public class VertexProcessor {
+
+    // Меньше этого числа вершин разбиение на задачи не окупается
+    private static final int PARALLEL_THRESHOLD = 8192;
+    private static final int CHUNK_SIZE = 2048;
+
+    private int vertexCount;
+    private int normalCount;
+
+    // x, y, z, w в пространстве отсечения
+    private float[] clipPositions = new float[0];
+    // x, y на экране и z в NDC; имеют смысл только для вершин с w > 0
+    private float[] screenPositions = new float[0];
+    private float[] invW = new float[0];
+    private int[] frustumOutcodes = new int[0];
+    private int[] clipOutcodes = new int[0];
+
+    // Мировые позиции и нормали считаются, только если они нужны освещению
+    private boolean hasWorldData;
+    private float[] worldPositions = new float[0];
+    private float[] worldNormals = new float[0];
+
+    // Матрицы кадра считаются в переиспользуемые объекты
+    private final Matrix4x4 viewMatrix = Matrix4x4.zero();
+    private final Matrix4x4 projectionMatrix = Matrix4x4.zero();
+    private final Matrix4x4 modelViewMatrix = Matrix4x4.zero();
+    private final Matrix4x4 mvp = Matrix4x4.zero();
+    private final Matrix4x4 model = Matrix4x4.zero();
+    private int width;
+    private int height;
+
+    private float[] positions;
+    private float[] normals;
+
+    public void process(CompactMesh mesh, Camera camera, Matrix4x4 modelMatrix,
+                        int width, int height, boolean computeWorldData, TileRasterizer tileRasterizer) {
+        camera.getViewMatrixInto(viewMatrix);
+        camera.getProjectionMatrixInto(projectionMatrix);
+        viewMatrix.multiplyInto(modelMatrix, modelViewMatrix);
+        projectionMatrix.multiplyInto(modelViewMatrix, mvp);
+        process(mesh, mvp, modelMatrix, width, height, computeWorldData, tileRasterizer);
+    }
+
+    public void process(CompactMesh mesh, Matrix4x4 mvpMatrix, Matrix4x4 modelMatrix,
+                        int width, int height, boolean computeWorldData, TileRasterizer tileRasterizer) {
+        this.positions = mesh.getPositions();
+        this.normals = mesh.getNormals();
+        this.vertexCount = mesh.getVertexCount();
+        this.normalCount = computeWorldData ? mesh.getNormalCount() : 0;
+        this.hasWorldData = computeWorldData;
+        this.width = width;
+        this.height = height;
+        mvp.set(mvpMatrix);
+        model.set(modelMatrix);
+
+        ensureCapacity();
+
+        int total = Math.max(vertexCount, normalCount);
+        if (tileRasterizer.isParallel() && total >= PARALLEL_THRESHOLD) {
+            tileRasterizer.invoke(new RangeTask(0, total));
+        } else {
+            processRange(0, total);
+        }
+
+        // Ссылки на массивы сетки нужны только на время обработки
+        this.positions = null;
+        this.normals = null;
+    }
+
+    private void ensureCapacity() {
+        if (invW.length < vertexCount) {
+            clipPositions = new float[4 * vertexCount];
+            screenPositions = new float[3 * vertexCount];
+            invW = new float[vertexCount];
+            frustumOutcodes = new int[vertexCount];
+            clipOutcodes = new int[vertexCount];
+        }
+        if (hasWorldData && worldPositions.length < 3 * vertexCount) {
+            worldPositions = new float[3 * vertexCount];
+        }
+        if (worldNormals.length < 3 * normalCount) {
+            worldNormals = new float[3 * normalCount];
+        }
+    }
+
+    // Диапазон обрабатывается пакетными преобразованиями Matrix4x4, затем
+    // отдельным проходом по уже готовым координатам отсечения
+    private void processRange(int from, int to) {
+        int vertexEnd = Math.min(to, vertexCount);
+        if (from < vertexEnd) {
+            int count = vertexEnd - from;
+            mvp.transformHomogeneous(positions, from, clipPositions, from, count);
+            for (int i = from; i < vertexEnd; i++) {
+                projectVertex(i);
+            }
+            if (hasWorldData) {
+                model.transformPoints(positions, from, worldPositions, from, count);
+            }
+        }
+
+        int normalEnd = Math.min(to, normalCount);
+        if (from < normalEnd) {
+            // Нормаль - направление: перенос матрицы модели на неё не действует
+            model.transformDirections(normals, from, worldNormals, from, normalEnd - from);
+            for (int i = from; i < normalEnd; i++) {
+                normalizeWorldNormal(i);
+            }
+        }
+    }
+
+    // Порядок операций совпадает с Matrix4x4.multiply(Vector4D) и делением в Vector4D.toVector3D,
+    // поэтому результат побитово равен прежнему пути через объекты
+    private void projectVertex(int i) {
+        int c = 4 * i;
+        float x = clipPositions[c];
+        float y = clipPositions[c + 1];
+        float z = clipPositions[c + 2];
+        float w = clipPositions[c + 3];
+        frustumOutcodes[i] = PolygonClipper.frustumOutcode(x, y, z, w);
+        clipOutcodes[i] = PolygonClipper.clipOutcode(x, y, z, w);
+
+        int s = 3 * i;
+        screenPositions[s] = (x / w + 1.0f) * 0.5f * (width - 1);
+        screenPositions[s + 1] = (1.0f - y / w) * 0.5f * (height - 1);
+        screenPositions[s + 2] = z / w;
+        invW[i] = 1.0f / w;
+    }
+
+    // Нулевая нормаль остаётся нулевой
+    private void normalizeWorldNormal(int i) {
+        int n = 3 * i;
+        float x = worldNormals[n];
+        float y = worldNormals[n + 1];
+        float z = worldNormals[n + 2];
+
+        float length = (float) Math.sqrt(x * x + y * y + z * z);
+        if (length >= 1e-12f) {
+            float scale = 1.0f / length;
+            worldNormals[n] = x * scale;
+            worldNormals[n + 1] = y * scale;
+            worldNormals[n + 2] = z * scale;
+        }
+    }
+
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    public boolean hasWorldData() {
+        return hasWorldData;
+    }
+
+    float[] getClipPositions() {
+        return clipPositions;
+    }
+
+    float[] getScreenPositions() {
+        return screenPositions;
+    }
+
+    float[] getInvW() {
+        return invW;
+    }
+
+    int[] getFrustumOutcodes() {
+        return frustumOutcodes;
+    }
+
+    int[] getClipOutcodes() {
+        return clipOutcodes;
+    }
+
+    float[] getWorldPositions() {
+        return worldPositions;
+    }
+
+    float[] getWorldNormals() {
+        return worldNormals;
+    }
+
+    // Рекурсивное деление диапазона вершин между потоками пула
+    private final class RangeTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+
+        RangeTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK_SIZE) {
+                processRange(from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, mid), new RangeTask(mid, to));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package RenderingModes;
+
+import Math.vector.Vector3D;
+import javafx.scene.paint.Color;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+// Буфер видимости для отложенного затенения.
+// Первый проход (TriangleRasterization.fillTriangleVisibility) пишет только глубину
+// и номер треугольника, видимого в пикселе. Второй проход (resolve) восстанавливает
+// барицентрики по вершинам этого треугольника и считает цвет один раз на пиксель:
+// перекрытые фрагменты не текстурируются и не освещаются.
+// Номер - индекс в таблице треугольников кадра; каждый треугольник ссылается на
+// параметры своей модели (текстура, освещение, цвет, режимы).
+// Вершины и параметры моделей копируются в объекты буфера, которые
+// переиспользуются между кадрами.
+public class VisibilityBuffer {
+
+    public static final int EMPTY = -1;
+
+    // Высота полосы строк одной задачи второго прохода
+    private static final int ROWS_PER_TASK = 16;
+
+    private int width;
+    private int height;
+    private int[] ids = new int[0];
+
+    private ScreenVertex[] vertices = new ScreenVertex[3 * 1024];
+    private int[] triangleDraws = new int[1024];
+    private int[] triangleWireframeEdges = new int[1024];
+    private int triangleCount;
+    private final ArrayList<Draw> draws = new ArrayList<>();
+    private int drawCount;
+
+    // Параметры затенения одной модели кадра
+    static final class Draw {
+        Texture texture;
+        Lighting lighting;
+        Color color;
+        Vector3D cameraPosition;
+        final RenderingModes modes = new RenderingModes();
+        int wireframeArgb;
+    }
+
+    // Начало кадра: буфер пуст, таблица треугольников очищена
+    public void begin(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width and height must be positive");
+        }
+        // Меньший кадр занимает начало прежнего массива
+        if (ids.length < width * height) {
+            ids = new int[width * height];
+        }
+        this.width = width;
+        this.height = height;
+        Arrays.fill(ids, 0, width * height, EMPTY);
+        triangleCount = 0;
+        drawCount = 0;
+    }
+
+    // Регистрирует параметры модели; возвращает номер для addTriangle.
+    // Режимы копируются: вызывающий может настроить тот же объект для следующей модели
+    public int addDraw(Texture texture, Lighting lighting, Color color, Vector3D cameraPosition,
+                       RenderingModes modes) {
+        return addDraw(texture, lighting, color, cameraPosition, modes, Color.BLACK);
+    }
+
+    // wireframeColor - цвет каркаса, который треугольники рисуют в проходе заливки
+    public int addDraw(Texture texture, Lighting lighting, Color color, Vector3D cameraPosition,
+                       RenderingModes modes, Color wireframeColor) {
+        if (drawCount == draws.size()) {
+            draws.add(new Draw());
+        }
+        Draw draw = draws.get(drawCount);
+        draw.texture = texture;
+        draw.lighting = lighting;
+        draw.color = color;
+        draw.cameraPosition = cameraPosition;
+        draw.modes.set(modes);
+        draw.wireframeArgb = FrameBuffer.toArgb(wireframeColor);
+        return drawCount++;
+    }
+
+    // Регистрирует треугольник; возвращает его номер для буфера.
+    // Вершины копируются: вызывающий может переиспользовать свои объекты
+    public int addTriangle(int draw, ScreenVertex v0, ScreenVertex v1, ScreenVertex v2) {
+        return addTriangle(draw, v0, v1, v2, 0);
+    }
+
+    // wireframeEdges - рёбра каркаса (TriangleRasterization.EDGE_*), их пиксели
+    // второй проход закрашивает цветом каркаса
+    public int addTriangle(int draw, ScreenVertex v0, ScreenVertex v1, ScreenVertex v2, int wireframeEdges) {
+        if (triangleCount == triangleDraws.length) {
+            triangleDraws = Arrays.copyOf(triangleDraws, 2 * triangleCount);
+            triangleWireframeEdges = Arrays.copyOf(triangleWireframeEdges, 2 * triangleCount);
+            vertices = Arrays.copyOf(vertices, 6 * triangleCount);
+        }
+        int id = triangleCount++;
+        triangleDraws[id] = draw;
+        triangleWireframeEdges[id] = wireframeEdges;
+        vertex(3 * id).set(v0);
+        vertex(3 * id + 1).set(v1);
+        vertex(3 * id + 2).set(v2);
+        return id;
+    }
+
+    private ScreenVertex vertex(int index) {
+        ScreenVertex vertex = vertices[index];
+        if (vertex == null) {
+            vertex = new ScreenVertex();
+            vertices[index] = vertex;
+        }
+        return vertex;
+    }
+
+    void set(int x, int y, int id) {
+        ids[y * width + x] = id;
+    }
+
+    // Пиксель перекрыт не треугольником (например, линией каркаса):
+    // второй проход его не трогает
+    void clear(int x, int y) {
+        ids[y * width + x] = EMPTY;
+    }
+
+    public int getId(int x, int y) {
+        return ids[y * width + x];
+    }
+
+    int[] getIds() {
+        return ids;
+    }
+
+    ScreenVertex getVertex(int id, int corner) {
+        return vertices[3 * id + corner];
+    }
+
+    Draw getDraw(int id) {
+        return draws.get(triangleDraws[id]);
+    }
+
+    int getWireframeEdges(int id) {
+        return triangleWireframeEdges[id];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTriangleCount() {
+        return triangleCount;
+    }
+
+    // Второй проход: затенение видимых пикселей, параллельно по полосам строк
+    public void resolve(FrameBuffer frameBuffer, TileRasterizer tileRasterizer) {
+        if (triangleCount == 0) {
+            return;
+        }
+        int rows = Math.min(height, frameBuffer.getHeight());
+        if (tileRasterizer.isParallel()) {
+            tileRasterizer.invoke(new RowRangeTask(frameBuffer, 0, rows));
+        } else {
+            resolveRows(frameBuffer, 0, rows);
+        }
+    }
+
+    private void resolveRows(FrameBuffer frameBuffer, int fromY, int toY) {
+        RenderStatistics.addFragmentsShaded(TriangleRasterization.resolveRows(frameBuffer, this, fromY, toY));
+    }
+
+    // Рекурсивное деление строк кадра между потоками пула
+    private final class RowRangeTask extends RecursiveAction {
+        private final FrameBuffer frameBuffer;
+        private final int from;
+        private final int to;
+
+        RowRangeTask(FrameBuffer frameBuffer, int from, int to) {
+            this.frameBuffer = frameBuffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                resolveRows(frameBuffer, from, to);
+                return;
+            }
+
+            int mid = (from + to) >>> 1;
+            invokeAll(new RowRangeTask(frameBuffer, from, mid), new RowRangeTask(frameBuffer, mid, to));
+        }
+    }
+}
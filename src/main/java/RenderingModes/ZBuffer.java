@@ -1,30 +1,153 @@
 package RenderingModes;
 
+import java.util.Arrays;
+
+// Буфер глубины, общий для всех моделей сцены и живущий между кадрами.
+// FLOAT32 хранит глубину во float[]; FIXED24 - в int[]: младшие 24 бита - глубина
+// в фиксированной точке, старшие 8 бит - номер поколения. Очистка FIXED24 сводится
+// к увеличению номера поколения: значения прошлых кадров считаются пустыми.
+// Рядом может вестись иерархический уровень (Hi-Z): самая дальняя глубина каждого блока
+// 8x8 пикселей. Если ближайшая точка треугольника не ближе неё, весь блок
+// заведомо не пройдёт тест глубины. Пока в блоке есть пустые пиксели, его глубина
+// бесконечна; после заполнения она пересчитывается только когда перезаписан
+// самый дальний пиксель блока. Учёт блоков стоит на каждой записи глубины,
+// поэтому по умолчанию выключен (RenderingModes.setHierarchicalDepth).
 public class ZBuffer {
-    private final int width;
-    private final int height;
-    private final double[] data;
+
+    public static final int HIZ_BLOCK_SHIFT = 3;
+    public static final int HIZ_BLOCK_SIZE = 1 << HIZ_BLOCK_SHIFT;
+
+    public enum Precision {
+        FLOAT32,
+        FIXED24
+    }
+
+    private static final int DEPTH_BITS = 24;
+    private static final int DEPTH_MASK = (1 << DEPTH_BITS) - 1;
+    private static final int MAX_GENERATION = 0xFF;
+
+    private final Precision precision;
+    private int width;
+    private int height;
+
+    private float[] floatData;
+    private int[] fixedData;
+    private int generation;
+
+    private int blocksX;
+    private int blocksY;
+    private float[] blockMaxDepth;
+    private boolean[] blockDirty;
+    private int[] blockCoverage;
+    private boolean hierarchical;
 
     public ZBuffer(int width, int height) {
+        this(width, height, Precision.FLOAT32);
+    }
+
+    public ZBuffer(int width, int height, Precision precision) {
+        if (precision == null) {
+            throw new IllegalArgumentException("Precision cannot be null");
+        }
+        this.precision = precision;
+        allocate(width, height);
+    }
+
+    // Массивы перераспределяются, только если новый размер в них не помещается:
+    // при динамическом разрешении буфер меньшего размера занимает начало тех же массивов
+    public void resize(int width, int height) {
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        allocate(width, height);
+    }
+
+    private void allocate(int width, int height) {
         if (width <= 0 || height <= 0) {
             throw new IllegalArgumentException("Width and height must be positive");
         }
 
         this.width = width;
         this.height = height;
-        this.data = new double[width * height];
+        int size = width * height;
+        if (precision == Precision.FLOAT32) {
+            if (floatData == null || floatData.length < size) {
+                this.floatData = new float[size];
+            }
+        } else {
+            if (fixedData == null || fixedData.length < size) {
+                this.fixedData = new int[size];
+            }
+            // Значения прошлых поколений в новой раскладке строк теряют смысл
+            this.generation = 0;
+        }
+        this.blocksX = (width + HIZ_BLOCK_SIZE - 1) >> HIZ_BLOCK_SHIFT;
+        this.blocksY = (height + HIZ_BLOCK_SIZE - 1) >> HIZ_BLOCK_SHIFT;
+        int blockCount = blocksX * blocksY;
+        if (blockMaxDepth == null || blockMaxDepth.length < blockCount) {
+            this.blockMaxDepth = new float[blockCount];
+            this.blockDirty = new boolean[blockCount];
+            this.blockCoverage = new int[blockCount];
+        }
         clear();
     }
 
     public void clear() {
-        final double emptyDepth = Double.POSITIVE_INFINITY;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                data[index(x, y)] = emptyDepth;
+        int blockCount = blocksX * blocksY;
+        Arrays.fill(blockMaxDepth, 0, blockCount, Float.POSITIVE_INFINITY);
+        Arrays.fill(blockDirty, 0, blockCount, false);
+        Arrays.fill(blockCoverage, 0, blockCount, 0);
+
+        if (precision == Precision.FLOAT32) {
+            Arrays.fill(floatData, 0, width * height, Float.POSITIVE_INFINITY);
+            return;
+        }
+
+        // Поколение 0 зарезервировано под "пусто" после полной очистки
+        if (generation == MAX_GENERATION || generation == 0) {
+            Arrays.fill(fixedData, 0, width * height, 0);
+            generation = 1;
+        } else {
+            generation++;
+        }
+    }
+
+    // Включение учёта блоков посреди кадра пересчитывает заполненность блоков по буферу
+    public void setHierarchical(boolean hierarchical) {
+        if (hierarchical == this.hierarchical) {
+            return;
+        }
+        this.hierarchical = hierarchical;
+        if (!hierarchical) {
+            return;
+        }
+
+        for (int by = 0; by < blocksY; by++) {
+            for (int bx = 0; bx < blocksX; bx++) {
+                int x0 = bx << HIZ_BLOCK_SHIFT;
+                int y0 = by << HIZ_BLOCK_SHIFT;
+                int x1 = Math.min(width, x0 + HIZ_BLOCK_SIZE);
+                int y1 = Math.min(height, y0 + HIZ_BLOCK_SIZE);
+
+                int covered = 0;
+                for (int y = y0; y < y1; y++) {
+                    for (int x = x0; x < x1; x++) {
+                        if (getDepth(x, y) != Double.POSITIVE_INFINITY) {
+                            covered++;
+                        }
+                    }
+                }
+                int block = by * blocksX + bx;
+                blockCoverage[block] = covered;
+                blockDirty[block] = true;
             }
         }
     }
 
+    public boolean isHierarchical() {
+        return hierarchical;
+    }
+
     private int index(int x, int y) {
         return y * width + x;
     }
@@ -35,13 +158,130 @@ public class ZBuffer {
         }
 
         int idx = index(x, y);
-        if (depth < data[idx]) {
-            data[idx] = depth;
+        if (precision == Precision.FLOAT32) {
+            float value = (float) depth;
+            float old = floatData[idx];
+            if (value < old) {
+                floatData[idx] = value;
+                if (hierarchical) {
+                    onDepthReplaced(x, y, old);
+                }
+                return true;
+            }
+            return false;
+        }
+
+        int quantized = quantize(depth);
+        int stored = fixedData[idx];
+        boolean empty = (stored >>> DEPTH_BITS) != generation;
+        if (empty || quantized < (stored & DEPTH_MASK)) {
+            fixedData[idx] = (generation << DEPTH_BITS) | quantized;
+            if (hierarchical) {
+                onDepthReplaced(x, y, empty ? Float.POSITIVE_INFINITY : (float) dequantize(stored));
+            }
             return true;
         }
         return false;
     }
 
+    // Максимум блока может уменьшиться, только когда заполнен последний пустой пиксель
+    // или перезаписан пиксель с максимальной глубиной
+    private void onDepthReplaced(int x, int y, float oldDepth) {
+        int bx = x >> HIZ_BLOCK_SHIFT;
+        int by = y >> HIZ_BLOCK_SHIFT;
+        int block = by * blocksX + bx;
+
+        if (oldDepth == Float.POSITIVE_INFINITY) {
+            int covered = ++blockCoverage[block];
+            int blockWidth = Math.min(width - (bx << HIZ_BLOCK_SHIFT), HIZ_BLOCK_SIZE);
+            int blockHeight = Math.min(height - (by << HIZ_BLOCK_SHIFT), HIZ_BLOCK_SIZE);
+            if (covered == blockWidth * blockHeight) {
+                blockDirty[block] = true;
+            }
+        } else if (oldDepth >= blockMaxDepth[block]) {
+            blockDirty[block] = true;
+        }
+    }
+
+    // Для векторного растеризатора: глубины FLOAT32 без копирования (null для FIXED24)
+    float[] getFloatData() {
+        return floatData;
+    }
+
+    // Сохранённый (возможно, устаревший) максимум блока, которому принадлежит пиксель (x, y)
+    float getStoredBlockMaxDepth(int x, int y) {
+        return blockMaxDepth[(y >> HIZ_BLOCK_SHIFT) * blocksX + (x >> HIZ_BLOCK_SHIFT)];
+    }
+
+    // То же, что onDepthReplaced для нескольких пикселей одной строки блока сразу:
+    // filled пикселей были пустыми, replacedFarthest - среди остальных перезаписан
+    // пиксель не ближе сохранённого максимума блока
+    void onSpanReplaced(int x, int y, int filled, boolean replacedFarthest) {
+        int bx = x >> HIZ_BLOCK_SHIFT;
+        int by = y >> HIZ_BLOCK_SHIFT;
+        int block = by * blocksX + bx;
+
+        if (filled > 0) {
+            int covered = blockCoverage[block] += filled;
+            int blockWidth = Math.min(width - (bx << HIZ_BLOCK_SHIFT), HIZ_BLOCK_SIZE);
+            int blockHeight = Math.min(height - (by << HIZ_BLOCK_SHIFT), HIZ_BLOCK_SIZE);
+            if (covered == blockWidth * blockHeight) {
+                blockDirty[block] = true;
+            }
+        }
+        if (replacedFarthest) {
+            blockDirty[block] = true;
+        }
+    }
+
+    // Самая дальняя глубина блока (bx, by). Значение пересчитывается лениво:
+    // только если оно могло уменьшиться после предыдущего запроса.
+    // Действительно только при включённом учёте блоков
+    public float getBlockMaxDepth(int bx, int by) {
+        int block = by * blocksX + bx;
+        if (blockDirty[block]) {
+            int x0 = bx << HIZ_BLOCK_SHIFT;
+            int y0 = by << HIZ_BLOCK_SHIFT;
+            int x1 = Math.min(width, x0 + HIZ_BLOCK_SIZE);
+            int y1 = Math.min(height, y0 + HIZ_BLOCK_SIZE);
+
+            float max = Float.NEGATIVE_INFINITY;
+            for (int y = y0; y < y1; y++) {
+                for (int x = x0; x < x1; x++) {
+                    max = Math.max(max, (float) getDepth(x, y));
+                }
+            }
+            blockMaxDepth[block] = max;
+            blockDirty[block] = false;
+        }
+        return blockMaxDepth[block];
+    }
+
+    // true, если ни одна точка на глубине nearestDepth и дальше не пройдёт тест
+    // в прямоугольнике [minX, maxX] x [minY, maxY]
+    public boolean isOccluded(int minX, int minY, int maxX, int maxY, double nearestDepth) {
+        for (int by = minY >> HIZ_BLOCK_SHIFT; by <= maxY >> HIZ_BLOCK_SHIFT; by++) {
+            for (int bx = minX >> HIZ_BLOCK_SHIFT; bx <= maxX >> HIZ_BLOCK_SHIFT; bx++) {
+                if (nearestDepth < getBlockMaxDepth(bx, by)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Глубина NDC [-1, 1] -> [0, 2^24 - 1]
+    private static int quantize(double depth) {
+        double normalized = (depth + 1.0) * 0.5;
+        if (normalized <= 0.0) {
+            return 0;
+        }
+        if (normalized >= 1.0) {
+            return DEPTH_MASK;
+        }
+        return (int) (normalized * DEPTH_MASK);
+    }
+
     public int getWidth() {
         return width;
     }
@@ -50,7 +290,24 @@ public class ZBuffer {
         return height;
     }
 
+    public Precision getPrecision() {
+        return precision;
+    }
+
     public double getDepth(int x, int y) {
-        return data[index(x, y)];
+        int idx = index(x, y);
+        if (precision == Precision.FLOAT32) {
+            return floatData[idx];
+        }
+
+        int stored = fixedData[idx];
+        if ((stored >>> DEPTH_BITS) != generation) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return dequantize(stored);
+    }
+
+    private static double dequantize(int stored) {
+        return (stored & DEPTH_MASK) / (double) DEPTH_MASK * 2.0 - 1.0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,115 @@
+package InterfaceTests;
+
+import Interface.model.CompactMesh;
+import Interface.model.Model;
+import Interface.model.ModelDeletionManager;
+import Interface.model.Polygon;
+import Interface.objreader.ObjReader;
+import Math.vector.Vector3D;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactMeshTest {
+
+    private static final String MIXED_MODEL = """
+            v 0.0 0.0 0.0
+            v 1.0 0.0 0.0
+            v 1.0 1.0 0.0
+            v 0.0 1.0 0.0
+            v 0.5 0.5 1.0
+            vt 0.0 0.0
+            vt 1.0 0.0
+            vt 1.0 1.0
+            vt 0.0 1.0
+            vn 0.0 0.0 1.0
+            f 1/1/1 2/2/1 3/3/1 4/4/1
+            f 1 2 5
+            f 2//1 3//1 5//1
+            """;
+
+    @Test
+    void testFromModelFlattensFaces() {
+        CompactMesh mesh = CompactMesh.fromModel(ObjReader.read(MIXED_MODEL));
+
+        assertEquals(5, mesh.getVertexCount());
+        assertEquals(4, mesh.getUvCount());
+        assertEquals(1, mesh.getNormalCount());
+        assertEquals(3, mesh.getFaceCount());
+        assertEquals(10, mesh.getCornerCount());
+
+        assertArrayEquals(new int[]{0, 4, 7, 10}, mesh.getFaceOffsets());
+        assertArrayEquals(new int[]{0, 1, 2, 3, 0, 1, 4, 1, 2, 4}, mesh.getVertexIndices());
+        assertArrayEquals(new int[]{0, 1, 2, 3, -1, -1, -1, -1, -1, -1}, mesh.getTextureIndices());
+        assertArrayEquals(new int[]{0, 0, 0, 0, -1, -1, -1, 0, 0, 0}, mesh.getNormalIndices());
+        assertEquals(0.5f, mesh.getPositions()[12]);
+        assertEquals(1.0f, mesh.getPositions()[14]);
+    }
+
+    @Test
+    void testRoundTripPreservesModel() {
+        Model source = ObjReader.read(MIXED_MODEL);
+        Model restored = CompactMesh.fromModel(source).toModel();
+
+        assertEquals(source.getVertices().size(), restored.getVertices().size());
+        for (int i = 0; i < source.getVertices().size(); i++) {
+            assertEquals(source.getVertices().get(i), restored.getVertices().get(i));
+        }
+        assertEquals(source.getTextureVertices().size(), restored.getTextureVertices().size());
+        assertEquals(source.getNormals().size(), restored.getNormals().size());
+
+        List<Polygon> sourcePolygons = source.getPolygons();
+        List<Polygon> restoredPolygons = restored.getPolygons();
+        assertEquals(sourcePolygons.size(), restoredPolygons.size());
+        for (int i = 0; i < sourcePolygons.size(); i++) {
+            assertEquals(sourcePolygons.get(i).getVertexIndices(), restoredPolygons.get(i).getVertexIndices());
+        }
+        assertEquals(List.of(0, 1, 2, 3), restoredPolygons.get(0).getTextureVertexIndices());
+        assertTrue(restoredPolygons.get(1).getTextureVertexIndices().isEmpty());
+        assertTrue(restoredPolygons.get(1).getNormalIndices().isEmpty());
+        assertEquals(List.of(0, 0, 0), restoredPolygons.get(2).getNormalIndices());
+    }
+
+    @Test
+    void testModelRebuildsCompactMeshAfterChange() {
+        Model model = ObjReader.read(MIXED_MODEL);
+        CompactMesh first = model.getCompactMesh();
+        assertSame(first, model.getCompactMesh());
+
+        model.getVertices().set(4, new Vector3D(0.5f, 0.5f, 2.0f));
+        model.markChanged();
+
+        CompactMesh second = model.getCompactMesh();
+        assertNotSame(first, second);
+        assertEquals(2.0f, second.getPositions()[14]);
+    }
+
+    @Test
+    void testEdgesAreUnique() {
+        CompactMesh mesh = CompactMesh.fromModel(ObjReader.read(MIXED_MODEL));
+
+        // Рёбра 0-1, 1-2 и 1-4 общие для двух полигонов и входят один раз
+        assertArrayEquals(new int[]{0, 3, 0, 1, 1, 2, 2, 3, 0, 4, 1, 4, 2, 4}, mesh.getEdges());
+        assertEquals(7, mesh.getEdgeCount());
+    }
+
+    @Test
+    void testEdgesFollowTopologyVersion() {
+        Model model = ObjReader.read(MIXED_MODEL);
+        int[] edges = model.getCompactMesh().getEdges();
+
+        // Сдвиг вершины не меняет связность: список рёбер переходит к новому представлению
+        model.getVertices().set(4, new Vector3D(0.5f, 0.5f, 2.0f));
+        model.markGeometryChanged();
+        CompactMesh moved = model.getCompactMesh();
+        assertEquals(2.0f, moved.getPositions()[14]);
+        assertSame(edges, moved.getEdges());
+
+        // Удаление полигонов строит список заново
+        new ModelDeletionManager().deletePolygons(model, Set.of(1, 2));
+        assertArrayEquals(new int[]{0, 3, 0, 1, 1, 2, 2, 3}, model.getCompactMesh().getEdges());
+    }
+}
@@ -0,0 +1,76 @@
+package InterfaceTests;
+
+import Interface.FrameExchange;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameExchangeTest {
+
+    @Test
+    void testPublishedFrameIsTakenAndReleased() {
+        FrameExchange exchange = new FrameExchange();
+        assertNull(exchange.take());
+
+        FrameExchange.Frame drawn = exchange.acquire();
+        exchange.publish();
+
+        FrameExchange.Frame shown = exchange.take();
+        assertSame(drawn, shown);
+        assertNull(exchange.take());
+        assertEquals(0, exchange.getFramesDropped());
+
+        // Пока кадр выводится, поток отрисовки рисует во второй
+        FrameExchange.Frame next = exchange.acquire();
+        assertNotSame(shown, next);
+
+        exchange.release(shown);
+        exchange.publish();
+        assertSame(next, exchange.take());
+        assertSame(shown, exchange.acquire());
+    }
+
+    @Test
+    void testPresentedFrameIsNotReusedUntilReleased() {
+        FrameExchange exchange = new FrameExchange();
+
+        FrameExchange.Frame first = exchange.acquire();
+        exchange.publish();
+        assertSame(first, exchange.take());
+
+        // Первый кадр на canvas, второй ждёт вывода - поток отрисовки рисует в третий
+        FrameExchange.Frame second = exchange.acquire();
+        exchange.publish();
+        FrameExchange.Frame third = exchange.acquire();
+        assertNotSame(first, third);
+        assertNotSame(second, third);
+        exchange.publish();
+
+        // Не выведенный второй кадр переписывается, выведенный первый - нет
+        assertSame(second, exchange.acquire());
+        assertSame(third, exchange.take());
+
+        // Первый кадр возвращается только после вывода третьего
+        exchange.release(first);
+        exchange.publish();
+        assertSame(first, exchange.acquire());
+    }
+
+    @Test
+    void testUnpresentedFrameIsReplacedByNewer() {
+        FrameExchange exchange = new FrameExchange();
+
+        FrameExchange.Frame first = exchange.acquire();
+        exchange.publish();
+        FrameExchange.Frame second = exchange.acquire();
+        assertNotSame(first, second);
+        exchange.publish();
+
+        // Не выведенный первый кадр вернулся потоку отрисовки, выводится только второй
+        assertSame(first, exchange.acquire());
+        assertSame(second, exchange.take());
+        assertNull(exchange.take());
+        assertEquals(2, exchange.getFramesPublished());
+        assertEquals(1, exchange.getFramesDropped());
+    }
+}
@@ -0,0 +1,101 @@
+package InterfaceTests;
+
+import Interface.FrameScheduler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameSchedulerTest {
+
+    @Test
+    void testRequestsBetweenPulsesProduceOneFrame() {
+        int[] frames = new int[1];
+        FrameScheduler scheduler = new FrameScheduler(() -> frames[0]++);
+
+        // Без запросов импульс ничего не рисует
+        scheduler.onPulse();
+        assertEquals(0, frames[0]);
+
+        for (int i = 0; i < 8; i++) {
+            scheduler.requestRender();
+        }
+        assertTrue(scheduler.isRenderPending());
+        scheduler.onPulse();
+        scheduler.onPulse();
+
+        assertEquals(1, frames[0]);
+        assertEquals(1, scheduler.getFramesRendered());
+        assertEquals(8, scheduler.getRequests());
+        assertEquals(7, scheduler.getRequestsCoalesced());
+        assertFalse(scheduler.isRenderPending());
+    }
+
+    @Test
+    void testRequestDuringFrameRendersNextPulse() {
+        FrameScheduler[] scheduler = new FrameScheduler[1];
+        int[] frames = new int[1];
+        scheduler[0] = new FrameScheduler(() -> {
+            if (frames[0]++ == 0) {
+                scheduler[0].requestRender();
+            }
+        });
+
+        scheduler[0].requestRender();
+        scheduler[0].onPulse();
+        assertTrue(scheduler[0].isRenderPending());
+        scheduler[0].onPulse();
+        assertEquals(2, frames[0]);
+        assertFalse(scheduler[0].isRenderPending());
+    }
+
+    // Без JavaFX: вместо таймера считаются его запуски и остановки
+    private static final class CountingScheduler extends FrameScheduler {
+        int starts;
+        int stops;
+
+        CountingScheduler(Runnable renderFrame) {
+            super(renderFrame);
+        }
+
+        @Override
+        protected void startPulses() {
+            starts++;
+        }
+
+        @Override
+        protected void stopPulses() {
+            stops++;
+        }
+    }
+
+    @Test
+    void testTimerRunsOnlyWhileRenderPending() {
+        int[] frames = new int[1];
+        CountingScheduler scheduler = new CountingScheduler(() -> frames[0]++);
+
+        // Запрос до запуска: таймер включается при start
+        scheduler.requestRender();
+        assertFalse(scheduler.isTimerRunning());
+        scheduler.start();
+        assertTrue(scheduler.isTimerRunning());
+
+        // Кадр построен, новых запросов нет - таймер остановлен
+        scheduler.onPulse();
+        assertEquals(1, frames[0]);
+        assertFalse(scheduler.isTimerRunning());
+        assertEquals(1, scheduler.stops);
+
+        // Запросы между импульсами запускают таймер один раз
+        scheduler.requestRender();
+        scheduler.requestRender();
+        assertTrue(scheduler.isTimerRunning());
+        assertEquals(2, scheduler.starts);
+        scheduler.onPulse();
+        assertFalse(scheduler.isTimerRunning());
+
+        scheduler.stop();
+        scheduler.requestRender();
+        assertFalse(scheduler.isTimerRunning());
+        assertEquals(2, scheduler.starts);
+    }
+}
@@ -0,0 +1,36 @@
+package InterfaceTests;
+
+import Interface.model.IndexPairTable;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexPairTableTest {
+
+    @Test
+    void testPairsGetSequentialIds() {
+        IndexPairTable table = new IndexPairTable(4);
+
+        assertEquals(0, table.add(3, 7));
+        assertEquals(1, table.add(7, 3));
+        assertEquals(0, table.add(3, 7));
+        assertEquals(2, table.add(0, 0));
+        assertEquals(1, table.add(7, 3));
+        assertEquals(3, table.size());
+    }
+
+    // Таблица заполняется до заданной ёмкости при любом распределении ключей
+    @Test
+    void testTableHoldsCapacity() {
+        int capacity = 1000;
+        IndexPairTable table = new IndexPairTable(capacity);
+
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(i, table.add(i / 10, i % 10 * 1024));
+        }
+        for (int i = 0; i < capacity; i++) {
+            assertEquals(i, table.add(i / 10, i % 10 * 1024));
+        }
+        assertEquals(capacity, table.size());
+    }
+}
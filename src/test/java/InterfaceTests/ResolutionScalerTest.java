@@ -0,0 +1,102 @@
+package InterfaceTests;
+
+import Interface.ResolutionScaler;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolutionScalerTest {
+
+    private static final long TARGET = 30_000_000L;
+
+    // Кадр, время которого пропорционально числу пикселей
+    private static long frameNanos(long fullFrameNanos, float scale) {
+        return (long) (fullFrameNanos * scale * scale);
+    }
+
+    @Test
+    void testSlowFramesLowerScaleWithinBudget() {
+        ResolutionScaler scaler = new ResolutionScaler(TARGET);
+        long fullFrame = 4 * TARGET;
+
+        for (int i = 0; i < 30; i++) {
+            float scale = scaler.getScale();
+            scaler.addFrame(frameNanos(fullFrame, scale), scale);
+        }
+
+        // Вчетверо медленнее бюджета: половина разрешения по каждой оси
+        assertEquals(0.5f, scaler.getScale(), 1e-4f);
+        assertTrue(frameNanos(fullFrame, scaler.getScale()) <= TARGET);
+    }
+
+    @Test
+    void testScaleIsClampedAndRecovers() {
+        ResolutionScaler scaler = new ResolutionScaler(TARGET);
+
+        for (int i = 0; i < 30; i++) {
+            float scale = scaler.getScale();
+            scaler.addFrame(frameNanos(100 * TARGET, scale), scale);
+        }
+        assertEquals(ResolutionScaler.MIN_SCALE, scaler.getScale());
+
+        // Сцена стала лёгкой: масштаб возвращается к полному
+        for (int i = 0; i < 30; i++) {
+            float scale = scaler.getScale();
+            scaler.addFrame(frameNanos(TARGET / 2, scale), scale);
+        }
+        assertEquals(ResolutionScaler.MAX_SCALE, scaler.getScale());
+    }
+
+    @Test
+    void testSingleSpikeIsSmoothed() {
+        ResolutionScaler scaler = new ResolutionScaler(TARGET);
+        for (int i = 0; i < 10; i++) {
+            scaler.addFrame(TARGET / 2, 1.0f);
+        }
+
+        scaler.addFrame(4 * TARGET, 1.0f);
+        assertTrue(scaler.getScale() > 0.5f, "scale = " + scaler.getScale());
+    }
+
+    // Идеальный масштаб колеблется около границы шага: масштаб опускается
+    // не больше чем на один шаг и обратно не возвращается
+    @Test
+    void testNoisyFramesNearStepBoundaryDoNotFlipScale() {
+        ResolutionScaler scaler = new ResolutionScaler(TARGET);
+        float boundary = 0.7f;
+        long fullFrame = (long) (TARGET / (boundary * boundary));
+        Random random = new Random(7);
+
+        for (int i = 0; i < 30; i++) {
+            float scale = scaler.getScale();
+            scaler.addFrame(frameNanos(fullFrame, scale), scale);
+        }
+        assertEquals(boundary, scaler.getScale(), 1e-4f);
+
+        int changes = 0;
+        for (int i = 0; i < 500; i++) {
+            float scale = scaler.getScale();
+            double noise = 1.0 + 0.1 * (random.nextDouble() - 0.5);
+            scaler.addFrame((long) (frameNanos(fullFrame, scale) * noise), scale);
+            if (scaler.getScale() != scale) {
+                changes++;
+            }
+        }
+        assertTrue(changes <= 1, changes + " scale changes");
+        assertTrue(scaler.getScale() >= boundary - ResolutionScaler.SCALE_STEP - 1e-4f);
+    }
+
+    @Test
+    void testDisabledScalerKeepsFullResolution() {
+        ResolutionScaler scaler = new ResolutionScaler(0);
+        scaler.addFrame(100 * TARGET, 1.0f);
+        assertFalse(scaler.isEnabled());
+        assertEquals(ResolutionScaler.MAX_SCALE, scaler.getScale());
+
+        scaler.setTargetFrameNanos(TARGET);
+        scaler.addFrame(100 * TARGET, 1.0f);
+        assertTrue(scaler.getScale() < ResolutionScaler.MAX_SCALE);
+    }
+}
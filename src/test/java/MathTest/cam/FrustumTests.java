@@ -0,0 +1,59 @@
+package MathTest.cam;
+
+import Interface.model.Model;
+import Interface.model.ModelBounds;
+import Interface.model.ModelTransformer;
+import Math.cam.Camera;
+import Math.cam.Frustum;
+import Math.vector.Vector3D;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FrustumTests {
+
+    // Камера в (0, 0, 5) смотрит на начало координат, near = 0.1, far = 100
+    private final Frustum frustum = new Frustum(new Camera(new Vector3D(0, 0, 5), new Vector3D(0, 0, 0)));
+
+    @Test
+    void sphereInFrontOfCameraIsVisibleTest() {
+        assertTrue(frustum.intersectsSphere(0, 0, 0, 1));
+        assertTrue(frustum.intersectsBox(-1, -1, -1, 1, 1, 1));
+    }
+
+    @Test
+    void objectsOutsidePlanesAreRejectedTest() {
+        // За камерой, слева от кадра и дальше дальней плоскости
+        assertFalse(frustum.intersectsSphere(0, 0, 10, 1));
+        assertFalse(frustum.intersectsSphere(-50, 0, 0, 1));
+        assertFalse(frustum.intersectsBox(-1, -1, -200, 1, 1, -150));
+    }
+
+    @Test
+    void objectCrossingPlaneIsVisibleTest() {
+        // Сфера пересекает ближнюю плоскость, параллелепипед - левую
+        assertTrue(frustum.intersectsSphere(0, 0, 5, 1));
+        assertTrue(frustum.intersectsBox(-50, -1, -1, 0, 1, 1));
+    }
+
+    @Test
+    void modelBoundsFollowTransformationsTest() {
+        Model model = new Model();
+        model.getVertices().add(new Vector3D(-1, 0, 0));
+        model.getVertices().add(new Vector3D(1, 2, 0));
+        model.getVertices().add(new Vector3D(0, 0, 4));
+
+        ModelBounds bounds = model.getBounds();
+        assertEquals(-1, bounds.getMinX());
+        assertEquals(2, bounds.getMaxY());
+        assertEquals(4, bounds.getMaxZ());
+        assertSame(bounds, model.getBounds());
+
+        new ModelTransformer().translate(model, 10, 0, 0);
+
+        ModelBounds moved = model.getBounds();
+        assertNotSame(bounds, moved);
+        assertEquals(9, moved.getMinX(), 1e-5f);
+        assertEquals(11, moved.getMaxX(), 1e-5f);
+        assertEquals(bounds.getRadius(), moved.getRadius(), 1e-5f);
+    }
+}
@@ -0,0 +1,145 @@
+package MathTest.matrix;
+
+import Math.affine.AffineTransformations;
+import Math.cam.Camera;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vector3D;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Matrix4x4Tests {
+
+    private final AffineTransformations transformations = new AffineTransformations();
+
+    private static void assertIdentity(Matrix4x4 matrix) {
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                assertEquals(row == col ? 1.0f : 0.0f, matrix.get(row, col), 1e-5f);
+            }
+        }
+    }
+
+    private Matrix4x4 createAffine() {
+        return transformations.translate(3.0f, -2.0f, 0.5f)
+                .multiply(transformations.rotateY(37.0f))
+                .multiply(transformations.rotateX(-20.0f))
+                .multiply(transformations.scale(2.0f, 0.5f, 1.5f));
+    }
+
+    @Test
+    void affineFlagTest() {
+        assertTrue(Matrix4x4.identity().isAffine());
+        assertTrue(createAffine().isAffine());
+
+        Camera camera = new Camera(new Vector3D(0, 0, 5), new Vector3D(0, 0, 0));
+        assertTrue(camera.getViewMatrix().isAffine());
+        assertFalse(camera.getProjectionMatrix().isAffine());
+        assertFalse(camera.getViewProjectionMatrix().isAffine());
+
+        Matrix4x4 matrix = Matrix4x4.identity();
+        matrix.set(3, 2, -1.0f);
+        assertFalse(matrix.isAffine());
+        matrix.set(3, 2, 0.0f);
+        assertTrue(matrix.isAffine());
+    }
+
+    @Test
+    void affineInverseTest() {
+        Matrix4x4 matrix = createAffine();
+        Matrix4x4 inverse = matrix.inverse();
+
+        assertTrue(inverse.isAffine());
+        assertIdentity(matrix.multiply(inverse));
+        assertIdentity(inverse.multiply(matrix));
+
+        Vector3D point = new Vector3D(1.0f, 2.0f, -3.0f);
+        Vector3D restored = inverse.multiply(matrix.multiply(point));
+        assertEquals(point.getX(), restored.getX(), 1e-5f);
+        assertEquals(point.getY(), restored.getY(), 1e-5f);
+        assertEquals(point.getZ(), restored.getZ(), 1e-5f);
+    }
+
+    @Test
+    void generalInverseTest() {
+        Camera camera = new Camera(new Vector3D(1.5f, 2.0f, 4.0f), new Vector3D(0.2f, -0.3f, 0.1f));
+        Matrix4x4 viewProjection = camera.getViewProjectionMatrix();
+        Matrix4x4 inverse = viewProjection.inverse();
+
+        assertIdentity(viewProjection.multiply(inverse));
+
+        // Точка, спроецированная и возвращённая обратно (с делением на w)
+        Vector3D point = new Vector3D(0.3f, -0.4f, 0.2f);
+        Vector3D restored = inverse.multiply(viewProjection.multiply(point));
+        assertEquals(point.getX(), restored.getX(), 1e-4f);
+        assertEquals(point.getY(), restored.getY(), 1e-4f);
+        assertEquals(point.getZ(), restored.getZ(), 1e-4f);
+
+        // Обращение на месте
+        Matrix4x4 inPlace = camera.getViewProjectionMatrix();
+        inPlace.inverseInto(inPlace);
+        assertEquals(inverse, inPlace);
+    }
+
+    @Test
+    void determinantTest() {
+        assertEquals(1.0f, Matrix4x4.identity().determinant());
+        assertEquals(1.5f, createAffine().determinant(), 1e-5f);
+
+        Matrix4x4 general = Matrix4x4.fromRowMajor(new float[]{
+                2, 0, 1, 3,
+                1, 1, 0, 2,
+                0, 4, 1, 1,
+                1, 0, 2, 2
+        });
+        assertEquals(6.0f, general.determinant(), 1e-5f);
+        assertIdentity(general.multiply(general.inverse()));
+    }
+
+    @Test
+    void singularMatrixTest() {
+        assertThrows(ArithmeticException.class, () -> Matrix4x4.zero().inverse());
+        assertThrows(ArithmeticException.class, () -> transformations.scale(1.0f, 0.0f, 1.0f).inverse());
+    }
+
+    @Test
+    void batchTransformsMatchPerVertexTest() {
+        Camera camera = new Camera(new Vector3D(1.5f, 2.0f, 4.0f), new Vector3D(0.2f, -0.3f, 0.1f));
+        Matrix4x4 viewProjection = camera.getViewProjectionMatrix();
+        Matrix4x4 affine = createAffine();
+        float[] points = {0.3f, -0.4f, 0.2f, 1.0f, 2.0f, -3.0f, -0.7f, 0.1f, 0.9f};
+        float[] dst = new float[points.length];
+
+        for (Matrix4x4 matrix : new Matrix4x4[]{viewProjection, affine}) {
+            matrix.transformPoints(points, dst, 3);
+            for (int i = 0; i < 3; i++) {
+                Vector3D expected = matrix.multiply(new Vector3D(points[3 * i], points[3 * i + 1], points[3 * i + 2]));
+                assertEquals(expected.getX(), dst[3 * i]);
+                assertEquals(expected.getY(), dst[3 * i + 1]);
+                assertEquals(expected.getZ(), dst[3 * i + 2]);
+            }
+        }
+
+        // Направление не сдвигается переносом
+        float[] direction = {0.0f, 1.0f, 0.0f};
+        Matrix4x4.translation(5.0f, 6.0f, 7.0f).transformDirections(direction, direction, 1);
+        assertArrayEquals(new float[]{0.0f, 1.0f, 0.0f}, direction);
+
+        // Смещения задаются в вершинах
+        float[] clip = new float[8];
+        viewProjection.transformHomogeneous(points, 1, clip, 1, 1);
+        assertEquals(0.0f, clip[0]);
+        float[] ndc = new float[3];
+        viewProjection.transformPoints(points, 1, ndc, 0, 1);
+        assertEquals(ndc[0], clip[4] / clip[7]);
+        assertEquals(ndc[2], clip[6] / clip[7]);
+
+        float[] screen = new float[points.length];
+        viewProjection.projectToScreen(points, screen, 3, 799.0f, 599.0f);
+        viewProjection.transformPoints(points, dst, 3);
+        for (int i = 0; i < 3; i++) {
+            assertEquals((dst[3 * i] + 1.0f) * 0.5f * 799.0f, screen[3 * i], 1e-3f);
+            assertEquals((1.0f - dst[3 * i + 1]) * 0.5f * 599.0f, screen[3 * i + 1], 1e-3f);
+            assertEquals(dst[3 * i + 2], screen[3 * i + 2]);
+        }
+    }
+}
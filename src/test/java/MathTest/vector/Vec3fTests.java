@@ -0,0 +1,103 @@
+package MathTest.vector;
+
+import Math.cam.Camera;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vec3f;
+import Math.vector.Vector3D;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Vec3fTests {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static void assertBitEquals(Vector3D expected, Vec3f actual) {
+        assertEquals(Float.floatToIntBits(expected.getX()), Float.floatToIntBits(actual.getX()));
+        assertEquals(Float.floatToIntBits(expected.getY()), Float.floatToIntBits(actual.getY()));
+        assertEquals(Float.floatToIntBits(expected.getZ()), Float.floatToIntBits(actual.getZ()));
+    }
+
+    @Test
+    void mutableOperationsMatchImmutableTest() {
+        Vector3D a = new Vector3D(0.3f, -1.7f, 2.9f);
+        Vector3D b = new Vector3D(-4.1f, 0.25f, 1.3f);
+        Vec3f ma = new Vec3f(a);
+        Vec3f mb = new Vec3f(b);
+        Vec3f dst = new Vec3f();
+
+        assertBitEquals(a.add(b), ma.addInto(mb, dst));
+        assertBitEquals(a.subtract(b), ma.subtractInto(mb, dst));
+        assertBitEquals(a.multiply(0.37f), ma.multiplyInto(0.37f, dst));
+        assertBitEquals(a.add(b.multiply(0.37f)), ma.addScaledInto(mb, 0.37f, dst));
+        assertBitEquals(a.cross(b), ma.crossInto(mb, dst));
+        assertBitEquals(a.normalize(), ma.normalizeInto(dst));
+        assertEquals(a.dot(b), ma.dot(mb));
+        assertEquals(a.length(), ma.length());
+
+        // Приёмник может совпадать с аргументом
+        assertBitEquals(a.cross(b), ma.crossInto(mb, ma));
+        assertThrows(ArithmeticException.class, () -> new Vec3f().normalizeInto(dst));
+    }
+
+    @Test
+    void matrixMultiplyIntoMatchesMultiplyTest() {
+        Camera camera = new Camera(new Vector3D(1.5f, 2.0f, 4.0f), new Vector3D(0.2f, -0.3f, 0.1f));
+        Matrix4x4 model = Matrix4x4.translation(0.5f, -1.0f, 2.0f);
+
+        Matrix4x4 expected = camera.getProjectionMatrix().multiply(camera.getViewMatrix().multiply(model));
+
+        Matrix4x4 view = camera.getViewMatrixInto(Matrix4x4.zero());
+        Matrix4x4 modelView = view.multiplyInto(model, Matrix4x4.zero());
+        Matrix4x4 actual = camera.getProjectionMatrixInto(Matrix4x4.zero()).multiplyInto(modelView, Matrix4x4.zero());
+
+        for (int row = 0; row < 4; row++) {
+            for (int col = 0; col < 4; col++) {
+                assertEquals(expected.get(row, col), actual.get(row, col));
+            }
+        }
+
+        Vector3D point = new Vector3D(0.7f, 0.1f, -0.4f);
+        assertBitEquals(expected.multiply(point), actual.multiplyPointInto(new Vec3f(point), new Vec3f()));
+
+        // Приёмник может совпадать с множителем
+        Matrix4x4 aliased = camera.getProjectionMatrixInto(Matrix4x4.zero());
+        aliased.multiplyInto(modelView, aliased);
+        assertEquals(actual, aliased);
+    }
+
+    @Test
+    void mutableApiDoesNotAllocateTest() {
+        Camera camera = new Camera(new Vector3D(1.5f, 2.0f, 4.0f), new Vector3D(0.2f, -0.3f, 0.1f));
+        Matrix4x4 view = Matrix4x4.zero();
+        Matrix4x4 projection = Matrix4x4.zero();
+        Matrix4x4 viewProjection = Matrix4x4.zero();
+        Vec3f a = new Vec3f(0.3f, -1.7f, 2.9f);
+        Vec3f b = new Vec3f(-4.1f, 0.25f, 1.3f);
+        Vec3f dst = new Vec3f();
+
+        Runnable work = () -> {
+            for (int i = 0; i < 10_000; i++) {
+                camera.getViewMatrixInto(view);
+                camera.getProjectionMatrixInto(projection);
+                projection.multiplyInto(view, viewProjection);
+                viewProjection.multiplyPointInto(a, dst);
+                a.crossInto(b, dst).normalizeInto(dst).addScaledInto(a, 0.5f, dst);
+            }
+        };
+        // Прогрев: до компиляции JIT интерпретатор может выделять память сам
+        for (int i = 0; i < 20; i++) {
+            work.run();
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long before = THREADS.getThreadAllocatedBytes(threadId);
+        work.run();
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
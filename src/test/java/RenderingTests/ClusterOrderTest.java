@@ -0,0 +1,127 @@
+package RenderingTests;
+
+import Interface.model.CompactMesh;
+import Interface.model.Model;
+import Math.cam.Camera;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vector3D;
+import RenderingModes.ClusterOrder;
+import RenderingModes.FrameBuffer;
+import RenderingModes.RenderContext;
+import RenderingModes.RenderEngine;
+import RenderingModes.RenderStatistics;
+import RenderingModes.RenderingModes;
+import RenderingModes.TileRasterizer;
+import RenderingModes.VertexProcessor;
+import RenderingModes.ZBuffer;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ClusterOrderTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+
+    // Квадрат расстояния от точки до центра грани
+    private static float distanceSquared(CompactMesh mesh, int face, Vector3D point) {
+        int start = mesh.getFaceStart(face);
+        int count = mesh.getFaceSize(face);
+        float[] positions = mesh.getPositions();
+        float x = 0.0f;
+        float y = 0.0f;
+        float z = 0.0f;
+        for (int i = start; i < start + count; i++) {
+            int p = 3 * mesh.getVertexIndices()[i];
+            x += positions[p];
+            y += positions[p + 1];
+            z += positions[p + 2];
+        }
+        float dx = x / count - point.getX();
+        float dy = y / count - point.getY();
+        float dz = z / count - point.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    private static float distanceSquared(Vector3D a, Vector3D b) {
+        float dx = a.getX() - b.getX();
+        float dy = a.getY() - b.getY();
+        float dz = a.getZ() - b.getZ();
+        return dx * dx + dy * dy + dz * dz;
+    }
+
+    @Test
+    void testFacesAreOrderedFrontToBack() {
+        CompactMesh mesh = TileRasterizerTest.createSphere(64, 32).getCompactMesh();
+        Vector3D camera = new Vector3D(0.4f, 0.3f, 2.5f);
+        ClusterOrder order = new ClusterOrder();
+
+        int[] faces = order.getFaceOrder(mesh, Matrix4x4.identity(), camera);
+        assertTrue(order.getClusterCount() > 4);
+
+        // Каждая грань встречается ровно один раз
+        boolean[] seen = new boolean[mesh.getFaceCount()];
+        for (int face : faces) {
+            assertFalse(seen[face]);
+            seen[face] = true;
+        }
+        assertEquals(mesh.getFaceCount(), faces.length);
+
+        // Первая грань - на ближней к камере половине сферы, последняя - на дальней
+        float center = distanceSquared(camera, new Vector3D(0, 0, 0));
+        float first = distanceSquared(mesh, faces[0], camera);
+        float last = distanceSquared(mesh, faces[faces.length - 1], camera);
+        assertTrue(first < center && last > center, first + " / " + last);
+    }
+
+    @Test
+    void testOrderIsCachedUntilCameraMoves() {
+        CompactMesh mesh = TileRasterizerTest.createSphere(64, 32).getCompactMesh();
+        ClusterOrder order = new ClusterOrder();
+        Matrix4x4 modelMatrix = Matrix4x4.identity();
+
+        order.getFaceOrder(mesh, modelMatrix, new Vector3D(0.4f, 0.3f, 2.5f));
+        assertEquals(1, order.getSortCount());
+
+        // Смещение меньше порога и повтор с той же камерой не пересортировывают
+        order.getFaceOrder(mesh, modelMatrix, new Vector3D(0.4f, 0.3f, 2.5f));
+        order.getFaceOrder(mesh, modelMatrix, new Vector3D(0.401f, 0.3f, 2.5f));
+        assertEquals(1, order.getSortCount());
+
+        order.getFaceOrder(mesh, modelMatrix, new Vector3D(-2.0f, 0.3f, 0.5f));
+        assertEquals(2, order.getSortCount());
+
+        // Новая матрица модели сдвигает центры кластеров
+        order.getFaceOrder(mesh, Matrix4x4.translation(0.0f, 1.0f, 0.0f), new Vector3D(-2.0f, 0.3f, 0.5f));
+        assertEquals(3, order.getSortCount());
+    }
+
+    private static int[] render(Model model, ClusterOrder order) {
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xff000000);
+        RenderingModes modes = new RenderingModes(false, true, false, false);
+
+        RenderStatistics.reset();
+        RenderContext context = new RenderContext(frameBuffer, new ZBuffer(WIDTH, HEIGHT), new TileRasterizer(1),
+                new VertexProcessor());
+        RenderEngine.render(context, camera, model.getCompactMesh(), null, null, Color.GRAY, modes,
+                Matrix4x4.identity(), null, order);
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testFrontToBackReducesWrittenFragments() {
+        Model sphere = TileRasterizerTest.createSphere(64, 32);
+
+        int[] fileOrder = render(sphere, null);
+        long fileOrderWritten = RenderStatistics.getFragmentsWritten();
+        int[] sorted = render(sphere, new ClusterOrder());
+        long sortedWritten = RenderStatistics.getFragmentsWritten();
+
+        // Без отсечения задние грани при сортировке отбрасывает тест глубины
+        assertArrayEquals(fileOrder, sorted);
+        assertTrue(sortedWritten < fileOrderWritten, sortedWritten + " / " + fileOrderWritten);
+    }
+}
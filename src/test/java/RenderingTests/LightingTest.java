@@ -0,0 +1,52 @@
+package RenderingTests;
+
+import RenderingModes.FrameBuffer;
+import RenderingModes.Lighting;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LightingTest {
+
+    @Test
+    void testFixedIntensity() {
+        assertEquals(0, Lighting.toFixedIntensity(0.0f));
+        assertEquals(Lighting.INTENSITY_ONE, Lighting.toFixedIntensity(1.0f));
+        assertEquals(128, Lighting.toFixedIntensity(0.5f));
+        assertEquals(0, Lighting.toFixedIntensity(-0.3f));
+        assertEquals(Lighting.INTENSITY_ONE, Lighting.toFixedIntensity(1.7f));
+    }
+
+    // Целочисленное освещение отличается от варианта в double не больше чем на 1 в канале
+    @Test
+    void testPackedShadingMatchesDouble() {
+        Lighting lighting = new Lighting(null, null, 0.3f, 0.7f);
+        int[] texels = {0xFFC08040, 0xFFFFFFFF, 0xFF000000, 0x7F102030, 0x01FF80FF, 0x00FFFFFF};
+
+        for (int texel : texels) {
+            for (int step = 0; step <= 100; step++) {
+                float intensity = step / 100.0f;
+                Color color = Color.rgb((texel >> 16) & 0xFF, (texel >> 8) & 0xFF, texel & 0xFF,
+                        (texel >>> 24) / 255.0);
+                int expected = FrameBuffer.toArgb(lighting.shadeColor(color, intensity));
+                int actual = lighting.shadePacked(texel, Lighting.toFixedIntensity(intensity));
+                for (int shift = 0; shift < 32; shift += 8) {
+                    int difference = ((expected >>> shift) & 0xFF) - ((actual >>> shift) & 0xFF);
+                    assertTrue(Math.abs(difference) <= 1,
+                            Integer.toHexString(texel) + " at " + intensity + ": "
+                                    + Integer.toHexString(expected) + " vs " + Integer.toHexString(actual));
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPackedShadingClampsBrightChannels() {
+        Lighting lighting = new Lighting(null, null, 0.8f, 0.9f);
+
+        assertEquals(0xFFFFFFFF, lighting.shadePacked(0xFFFFFFFF, Lighting.INTENSITY_ONE));
+        assertEquals(0xFFFF0000 | (0xCC << 8), lighting.shadePacked(0xFFFF0000 | (0x78 << 8), Lighting.INTENSITY_ONE));
+        assertEquals(FrameBuffer.premultiply(0x80FFFFFF), lighting.shadePacked(0x80FFFFFF, Lighting.INTENSITY_ONE));
+    }
+}
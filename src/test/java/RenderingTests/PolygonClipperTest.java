@@ -0,0 +1,64 @@
+package RenderingTests;
+
+import RenderingModes.PolygonClipper;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+class PolygonClipperTest {
+
+    private static final int NEAR_AND_FAR = 0b11;
+
+    @Test
+    void testTriangleCrossingNearPlaneBecomesQuad() {
+        // Одна вершина за ближней плоскостью (z < -w), вес - дополнительный атрибут
+        float[] vertices = new float[9 * 5];
+        float[][] source = {
+                {0, 0, -3, 1, 0},
+                {1, 0, 0, 1, 1},
+                {0, 1, 0, 1, 2}
+        };
+        for (int i = 0; i < source.length; i++) {
+            System.arraycopy(source[i], 0, vertices, i * 5, 5);
+        }
+
+        int count = PolygonClipper.clipPolygon(vertices, 3, 5, NEAR_AND_FAR);
+
+        assertEquals(4, count);
+        for (int i = 0; i < count; i++) {
+            float z = vertices[i * 5 + 2];
+            float w = vertices[i * 5 + 3];
+            assertTrue(z >= -w - 1e-6f, "vertex " + i);
+        }
+        // Вершина 0 заменена точками пересечения рёбер 2-0 и 0-1 с плоскостью z = -w,
+        // атрибут интерполирован вдоль ребра
+        assertEquals(4.0f / 3.0f, vertices[4], 1e-6f);
+        assertEquals(2.0f / 3.0f, vertices[5 + 4], 1e-6f);
+    }
+
+    @Test
+    void testPolygonBehindNearPlaneIsRemoved() {
+        float[] vertices = new float[9 * 4];
+        float[] source = {
+                0, 0, -2, 1,
+                1, 0, -2, 1,
+                0, 1, -2, 1
+        };
+        System.arraycopy(source, 0, vertices, 0, source.length);
+
+        assertEquals(0, PolygonClipper.clipPolygon(vertices, 3, 4, NEAR_AND_FAR));
+    }
+
+    @Test
+    void testLineClippedAgainstFarPlane() {
+        float[] a = {0, 0, 0, 1};
+        float[] b = {0, 0, 3, 1};
+        float[] range = new float[2];
+
+        assertTrue(PolygonClipper.clipLine(a, b, NEAR_AND_FAR, range));
+        assertEquals(0.0f, range[0], 1e-6f);
+        assertEquals(1.0f / 3.0f, range[1], 1e-6f);
+
+        float[] c = {0, 0, 2, 1};
+        assertFalse(PolygonClipper.clipLine(c, b, NEAR_AND_FAR, range));
+    }
+}
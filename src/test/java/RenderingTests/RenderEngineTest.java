@@ -0,0 +1,533 @@
+package RenderingTests;
+
+import Interface.model.Model;
+import Interface.model.Polygon;
+import Math.cam.Camera;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vector3D;
+import RenderingModes.FrameBuffer;
+import RenderingModes.Lighting;
+import RenderingModes.RenderContext;
+import RenderingModes.RenderEngine;
+import RenderingModes.RenderStatistics;
+import RenderingModes.RenderingModes;
+import RenderingModes.ShadingCache;
+import RenderingModes.TileRasterizer;
+import RenderingModes.VertexProcessor;
+import RenderingModes.VisibilityBuffer;
+import RenderingModes.ZBuffer;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderEngineTest {
+
+    private static final int WIDTH = 200;
+    private static final int HEIGHT = 150;
+
+    private static int[] render(Model model, RenderingModes.CullMode cullMode) {
+        return render(model, cullMode, new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0)));
+    }
+
+    private static int[] render(Model model, RenderingModes.CullMode cullMode, Camera camera) {
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xff000000);
+
+        RenderingModes modes = new RenderingModes(false, true, false, false);
+        modes.setCullMode(cullMode);
+
+        RenderStatistics.reset();
+        RenderEngine.render(frameBuffer, camera, model, null, null, Color.GRAY, modes, Matrix4x4.identity());
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testBackFaceCullingKeepsClosedMeshImage() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+
+        int[] all = render(sphere, RenderingModes.CullMode.NONE);
+        assertEquals(0, RenderStatistics.getTrianglesCulled());
+
+        int[] culled = render(sphere, RenderingModes.CullMode.BACK);
+        assertArrayEquals(all, culled);
+        assertTrue(RenderStatistics.getTrianglesCulled() > 0);
+    }
+
+    @Test
+    void testFrontAndBackCullingSplitTriangles() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        long triangles = 2L * sphere.getPolygons().size();
+
+        render(sphere, RenderingModes.CullMode.BACK);
+        long culledBack = RenderStatistics.getTrianglesCulled();
+        render(sphere, RenderingModes.CullMode.FRONT);
+        long culledFront = RenderStatistics.getTrianglesCulled();
+
+        // Вырожденные на экране грани отсекаются в обоих режимах
+        assertTrue(culledBack > 0 && culledFront > 0);
+        assertTrue(culledBack + culledFront >= triangles);
+    }
+
+    @Test
+    void testCameraInsideMeshIsClipped() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        Camera camera = new Camera(new Vector3D(0.2f, 0.1f, 0.3f), new Vector3D(0, 0, -1));
+
+        // Изнутри сферы видны только её внутренние (задние) грани
+        int[] pixels = render(sphere, RenderingModes.CullMode.NONE, camera);
+
+        assertTrue(RenderStatistics.getPolygonsOutsideFrustum() > 0);
+        int gray = FrameBuffer.toArgb(Color.GRAY);
+        for (int pixel : pixels) {
+            assertEquals(gray, pixel);
+        }
+    }
+
+    // Источник света общий: его смена тоже сбрасывает кэш освещённости
+    private static final Lighting LIGHTING = new Lighting(null, null, 0.3f, 0.7f);
+
+    private static int[] renderLit(Model model, Camera camera, RenderingModes.ShadingFrequency frequency,
+                                   VertexProcessor vertexProcessor, ShadingCache cache) {
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xff000000);
+        RenderingModes modes = new RenderingModes(false, true, false, true);
+        modes.setShadingFrequency(frequency);
+
+        RenderContext context = new RenderContext(frameBuffer, new ZBuffer(WIDTH, HEIGHT), new TileRasterizer(1),
+                vertexProcessor);
+        RenderEngine.render(context, camera, model.getCompactMesh(), null, LIGHTING, Color.GRAY, modes,
+                Matrix4x4.identity(), cache, null);
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testShadingFrequencies() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        VertexProcessor vertexProcessor = new VertexProcessor();
+
+        int[] phong = renderLit(sphere, camera, RenderingModes.ShadingFrequency.PHONG, vertexProcessor, null);
+        int[] gouraud = renderLit(sphere, camera, RenderingModes.ShadingFrequency.GOURAUD, vertexProcessor, null);
+        int[] flat = renderLit(sphere, camera, RenderingModes.ShadingFrequency.FLAT, vertexProcessor, null);
+
+        long covered = 0;
+        long gouraudError = 0;
+        long flatError = 0;
+        HashSet<Integer> flatColors = new HashSet<>();
+        HashSet<Integer> phongColors = new HashSet<>();
+        for (int i = 0; i < phong.length; i++) {
+            // Покрытие от частоты затенения не зависит
+            assertEquals(phong[i] == 0xff000000, gouraud[i] == 0xff000000);
+            assertEquals(phong[i] == 0xff000000, flat[i] == 0xff000000);
+            covered += phong[i] != 0xff000000 ? 1 : 0;
+            gouraudError += Math.abs((phong[i] & 0xFF) - (gouraud[i] & 0xFF));
+            flatError += Math.abs((phong[i] & 0xFF) - (flat[i] & 0xFF));
+            flatColors.add(flat[i]);
+            phongColors.add(phong[i]);
+        }
+
+        // Гуро в среднем отличается от попиксельного освещения гладкой сферы меньше
+        // чем на единицу в канале, плоское - в несколько раз сильнее
+        assertTrue(covered > 0);
+        assertTrue(gouraudError < covered, "gouraud error " + gouraudError);
+        assertTrue(flatError > 3 * gouraudError, "flat error " + flatError);
+        assertTrue(flatError < 8 * covered, "flat error " + flatError);
+        // Не больше одного цвета на видимую грань
+        assertTrue(flatColors.size() <= sphere.getPolygons().size() + 1);
+        assertTrue(phongColors.size() > flatColors.size());
+    }
+
+    @Test
+    void testShadingCacheSkipsUnchangedInputs() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        VertexProcessor vertexProcessor = new VertexProcessor();
+        ShadingCache cache = new ShadingCache();
+
+        int[] first = renderLit(sphere, camera, RenderingModes.ShadingFrequency.GOURAUD, vertexProcessor, cache);
+        assertTrue(vertexProcessor.hasWorldData());
+
+        // Те же входы: мировые данные не нужны, кадр тот же
+        int[] second = renderLit(sphere, camera, RenderingModes.ShadingFrequency.GOURAUD, vertexProcessor, cache);
+        assertFalse(vertexProcessor.hasWorldData());
+        assertArrayEquals(first, second);
+
+        // Камера сдвинулась - освещённость пересчитывается
+        camera.setPosition(new Vector3D(0.5f, 0.3f, 2.5f));
+        renderLit(sphere, camera, RenderingModes.ShadingFrequency.GOURAUD, vertexProcessor, cache);
+        assertTrue(vertexProcessor.hasWorldData());
+
+        // Смена частоты тоже сбрасывает кэш
+        renderLit(sphere, camera, RenderingModes.ShadingFrequency.FLAT, vertexProcessor, cache);
+        assertTrue(vertexProcessor.hasWorldData());
+        renderLit(sphere, camera, RenderingModes.ShadingFrequency.FLAT, vertexProcessor, cache);
+        assertFalse(vertexProcessor.hasWorldData());
+    }
+
+    // Две перекрывающиеся освещённые сферы с каркасом; visibility == null - прямое затенение
+    private static int[] renderOverlapping(Model model, RenderingModes.RasterizationAlgorithm algorithm,
+                                           RenderingModes.RasterizationBackend backend, int threads,
+                                           VisibilityBuffer visibility, boolean hierarchicalDepth) {
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xff000000);
+        ZBuffer zBuffer = new ZBuffer(WIDTH, HEIGHT);
+        TileRasterizer tileRasterizer = new TileRasterizer(threads);
+        RenderingModes modes = new RenderingModes(true, true, false, true);
+        modes.setRasterizationAlgorithm(algorithm);
+        modes.setRasterizationBackend(backend);
+        modes.setHierarchicalDepth(hierarchicalDepth);
+
+        RenderStatistics.reset();
+        if (visibility != null) {
+            visibility.begin(WIDTH, HEIGHT);
+        }
+        RenderContext context = new RenderContext(frameBuffer, zBuffer, tileRasterizer, new VertexProcessor());
+        context.setVisibility(visibility);
+        // Ближняя сфера перекрывает уже записанные фрагменты средней,
+        // у дальней перекрытые фрагменты отбрасывает тест глубины
+        Matrix4x4[] placements = {
+                Matrix4x4.translation(0.3f, 0.0f, -0.5f),
+                Matrix4x4.identity(),
+                Matrix4x4.translation(-0.3f, 0.1f, -1.0f)
+        };
+        for (Matrix4x4 placement : placements) {
+            RenderEngine.render(context, camera, model.getCompactMesh(), null, LIGHTING, Color.GRAY, modes, placement,
+                    null, null);
+        }
+        if (visibility != null) {
+            visibility.resolve(frameBuffer, tileRasterizer);
+        }
+        tileRasterizer.setParallelism(1);
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testDeferredShadingMatchesForward() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        VisibilityBuffer visibility = new VisibilityBuffer();
+
+        for (RenderingModes.RasterizationAlgorithm algorithm : RenderingModes.RasterizationAlgorithm.values()) {
+            for (RenderingModes.RasterizationBackend backend : RenderingModes.RasterizationBackend.values()) {
+                for (int threads : new int[]{1, 4}) {
+                    int[] forward = renderOverlapping(sphere, algorithm, backend, threads, null, false);
+                    long written = RenderStatistics.getFragmentsWritten();
+                    assertEquals(written, RenderStatistics.getFragmentsShaded());
+
+                    int[] deferred = renderOverlapping(sphere, algorithm, backend, threads, visibility, false);
+                    assertArrayEquals(forward, deferred, algorithm + ", " + backend + ", threads " + threads);
+                    assertEquals(written, RenderStatistics.getFragmentsWritten());
+
+                    // Затенён каждый видимый пиксель заливки ровно один раз
+                    long visible = 0;
+                    for (int y = 0; y < HEIGHT; y++) {
+                        for (int x = 0; x < WIDTH; x++) {
+                            visible += visibility.getId(x, y) != VisibilityBuffer.EMPTY ? 1 : 0;
+                        }
+                    }
+                    assertTrue(visible > 0);
+                    assertEquals(visible, RenderStatistics.getFragmentsShaded());
+                    assertTrue(visible < written, visible + " shaded of " + written + " written");
+                }
+            }
+        }
+    }
+
+    @Test
+    void testHierarchicalDepthKeepsImage() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+
+        for (RenderingModes.RasterizationBackend backend : RenderingModes.RasterizationBackend.values()) {
+            int[] plain = renderOverlapping(sphere, RenderingModes.RasterizationAlgorithm.EDGE_FUNCTION,
+                    backend, 1, null, false);
+            assertEquals(0, RenderStatistics.getPixelsHiZSkipped());
+
+            // Дальняя сфера частично закрыта ближними: часть её блоков отбрасывается целиком
+            int[] hierarchical = renderOverlapping(sphere, RenderingModes.RasterizationAlgorithm.EDGE_FUNCTION,
+                    backend, 1, null, true);
+            assertArrayEquals(plain, hierarchical, backend.toString());
+            assertTrue(RenderStatistics.getPixelsHiZSkipped() > 0, backend.toString());
+        }
+    }
+
+    // Квадрат перед камерой на белом фоне: один полигон, на экране - два треугольника веера
+    private static int[] renderQuad(boolean drawWireframe, RenderingModes.RasterizationAlgorithm algorithm) {
+        Model quad = new Model();
+        quad.getVertices().add(new Vector3D(-1, -1, 0));
+        quad.getVertices().add(new Vector3D(1, -1, 0));
+        quad.getVertices().add(new Vector3D(1, 1, 0));
+        quad.getVertices().add(new Vector3D(-1, 1, 0));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(Arrays.asList(0, 1, 2, 3)));
+        quad.getPolygons().add(polygon);
+
+        Camera camera = new Camera(new Vector3D(0, 0, 3), new Vector3D(0, 0, 0));
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xffffffff);
+        RenderingModes modes = new RenderingModes(drawWireframe, true, false, false);
+        modes.setRasterizationAlgorithm(algorithm);
+
+        RenderStatistics.reset();
+        RenderEngine.render(frameBuffer, camera, quad, null, null, Color.GRAY, modes, Matrix4x4.identity());
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testWireframeOverlayDrawsPolygonEdgesInFillPass() {
+        int gray = FrameBuffer.toArgb(Color.GRAY);
+        int black = FrameBuffer.toArgb(Color.BLACK);
+
+        for (RenderingModes.RasterizationAlgorithm algorithm : RenderingModes.RasterizationAlgorithm.values()) {
+            int[] filled = renderQuad(false, algorithm);
+            long tested = RenderStatistics.getFragmentsTested();
+            int[] overlay = renderQuad(true, algorithm);
+
+            // Каркас не добавляет ни одного теста глубины
+            assertEquals(tested, RenderStatistics.getFragmentsTested(), algorithm.toString());
+
+            // Каркас рисуется только поверх заливки
+            int wire = 0;
+            for (int i = 0; i < overlay.length; i++) {
+                if (overlay[i] == black) {
+                    assertEquals(gray, filled[i], algorithm + ", pixel " + i);
+                    wire++;
+                } else {
+                    assertEquals(filled[i], overlay[i], algorithm + ", pixel " + i);
+                }
+            }
+            assertTrue(wire > 0);
+
+            // Граница полигона - линия каркаса, диагональ веера через центр - нет
+            int row = HEIGHT / 2 * WIDTH;
+            int left = 0;
+            while (overlay[row + left] == 0xffffffff) {
+                left++;
+            }
+            assertEquals(black, overlay[row + left], algorithm.toString());
+            assertEquals(gray, overlay[row + left + 2], algorithm.toString());
+            assertEquals(gray, overlay[row + WIDTH / 2], algorithm.toString());
+        }
+    }
+
+    // Кадр в области большего буфера (динамическое разрешение) совпадает с кадром
+    // в буфере своего размера: растеризаторы адресуют строки через stride
+    @Test
+    void testViewportMatchesCompactBuffer() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        int width = WIDTH * 3 / 5;
+        int height = HEIGHT * 3 / 5;
+
+        for (RenderingModes.RasterizationBackend backend : RenderingModes.RasterizationBackend.values()) {
+            for (boolean deferred : new boolean[]{false, true}) {
+                // Без освещения и каркаса векторный путь заливает строки одним цветом
+                RenderingModes modes = new RenderingModes(deferred, true, false, deferred);
+                modes.setRasterizationBackend(backend);
+                FrameBuffer compact = new FrameBuffer(width, height);
+                FrameBuffer viewport = new FrameBuffer(WIDTH, HEIGHT);
+                viewport.clear(0xff00ff00);
+                viewport.setViewport(width, height);
+
+                for (FrameBuffer frameBuffer : new FrameBuffer[]{compact, viewport}) {
+                    frameBuffer.clear(0xff000000);
+                    TileRasterizer tileRasterizer = new TileRasterizer(1);
+                    VisibilityBuffer visibility = deferred ? new VisibilityBuffer() : null;
+                    if (visibility != null) {
+                        visibility.begin(width, height);
+                    }
+                    RenderContext context = new RenderContext(frameBuffer, new ZBuffer(width, height),
+                            tileRasterizer, new VertexProcessor());
+                    context.setVisibility(visibility);
+                    RenderEngine.render(context, camera, sphere.getCompactMesh(), null, LIGHTING, Color.GRAY,
+                            modes, Matrix4x4.identity(), null, null);
+                    if (visibility != null) {
+                        visibility.resolve(frameBuffer, tileRasterizer);
+                    }
+                }
+
+                for (int y = 0; y < HEIGHT; y++) {
+                    for (int x = 0; x < WIDTH; x++) {
+                        int pixel = viewport.getPixels()[y * viewport.getStride() + x];
+                        if (x < width && y < height) {
+                            assertEquals(compact.getPixel(x, y), pixel, backend + " " + x + ", " + y);
+                        } else if (x > width || y > height) {
+                            // За областью и соседними с ней столбцом и строкой буфер не тронут
+                            assertEquals(0xff00ff00, pixel, backend + " " + x + ", " + y);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Наклонный квадрат уходит за ближнюю плоскость: полигон отсекается.
+    // reversed - обход по часовой стрелке, квадрат повёрнут к камере задней стороной
+    private static int[] renderClippedQuad(boolean reversed, boolean drawWireframe,
+                                           RenderingModes.CullMode cullMode) {
+        Model quad = new Model();
+        quad.getVertices().add(new Vector3D(-1, -1, -2));
+        quad.getVertices().add(new Vector3D(1, -1, -2));
+        quad.getVertices().add(new Vector3D(1, 1, 4));
+        quad.getVertices().add(new Vector3D(-1, 1, 4));
+        Polygon polygon = new Polygon();
+        polygon.setVertexIndices(new ArrayList<>(reversed ? Arrays.asList(0, 3, 2, 1) : Arrays.asList(0, 1, 2, 3)));
+        quad.getPolygons().add(polygon);
+
+        Camera camera = new Camera(new Vector3D(0, 0, 3), new Vector3D(0, 0, 0));
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xffffffff);
+        RenderingModes modes = new RenderingModes(drawWireframe, true, false, false);
+        modes.setCullMode(cullMode);
+
+        RenderStatistics.reset();
+        RenderEngine.render(frameBuffer, camera, quad, null, null, Color.GRAY, modes, Matrix4x4.identity());
+        assertEquals(1, RenderStatistics.getPolygonsClipped());
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testWireframeOverlayFollowsCullingOfClippedPolygons() {
+        int gray = FrameBuffer.toArgb(Color.GRAY);
+        int black = FrameBuffer.toArgb(Color.BLACK);
+
+        // Отброшенный отсечённый полигон не оставляет и каркаса
+        for (int pixel : renderClippedQuad(true, true, RenderingModes.CullMode.BACK)) {
+            assertEquals(0xffffffff, pixel);
+        }
+        for (int pixel : renderClippedQuad(false, true, RenderingModes.CullMode.FRONT)) {
+            assertEquals(0xffffffff, pixel);
+        }
+
+        // Видимый отсечённый полигон рисует каркас в самих треугольниках и только
+        // по своим рёбрам: рёбра отсечения и диагонали веера в каркас не входят
+        for (boolean reversed : new boolean[]{false, true}) {
+            RenderingModes.CullMode cullMode = reversed ? RenderingModes.CullMode.FRONT : RenderingModes.CullMode.BACK;
+            int[] filled = renderClippedQuad(reversed, false, cullMode);
+            int[] overlay = renderClippedQuad(reversed, true, cullMode);
+
+            int wire = 0;
+            for (int i = 0; i < overlay.length; i++) {
+                if (overlay[i] == black) {
+                    assertEquals(gray, filled[i], "pixel " + i);
+                    wire++;
+                } else {
+                    assertEquals(filled[i], overlay[i], "pixel " + i);
+                }
+            }
+            assertTrue(wire > 0);
+
+            // Квадрат выходит за верхний край экрана: отсечённый край не становится каркасом
+            int left = WIDTH / 4;
+            for (int x = left; x < WIDTH - left; x++) {
+                assertEquals(gray, overlay[x], "x " + x);
+            }
+        }
+    }
+
+    // Освещённая заливка одной и той же сетки в двух разрешениях: треугольников столько же,
+    // фрагментов в 16 раз больше. Память, выделяемая за кадр, от числа фрагментов не зависит
+    @Test
+    void testLitFragmentsDoNotAllocate() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        long[] small = measureLitFrame(sphere, WIDTH, HEIGHT);
+        long[] large = measureLitFrame(sphere, 4 * WIDTH, 4 * HEIGHT);
+
+        long extraFragments = large[1] - small[1];
+        long extraBytes = large[0] - small[0];
+        assertTrue(extraFragments > 100_000);
+        assertTrue(extraBytes < extraFragments / 10,
+                extraBytes + " bytes for " + extraFragments + " extra fragments");
+    }
+
+    // После прогрева кадр на одном потоке не создаёт объектов ни на треугольник, ни на пиксель:
+    // прямое и отложенное затенение, все частоты освещения, каркас обоими способами, отсечение
+    @Test
+    void testSteadyStateFrameDoesNotAllocate() {
+        Model sphere = TileRasterizerTest.createSphere(32, 16);
+        Camera outside = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        // Ближняя плоскость проходит сквозь сферу: часть полигонов отсекается
+        Camera clipping = new Camera(new Vector3D(0.4f, 0.3f, 1.3f), new Vector3D(0, 0, 0));
+        clipping.setNearPlane(0.5f);
+
+        for (Camera camera : new Camera[]{outside, clipping}) {
+            for (RenderingModes.ShadingFrequency frequency : RenderingModes.ShadingFrequency.values()) {
+                for (RenderingModes.WireframeMode wireframe : RenderingModes.WireframeMode.values()) {
+                    for (boolean deferred : new boolean[]{false, true}) {
+                        long allocated = measureFrame(sphere, camera, frequency, wireframe, deferred);
+                        assertTrue(allocated < 1024, allocated + " bytes: " + frequency + ", " + wireframe
+                                + (deferred ? ", deferred" : "") + (camera == clipping ? ", clipped" : ""));
+                        assertTrue(RenderStatistics.getFragmentsWritten() > 0);
+                        assertEquals(camera == clipping, RenderStatistics.getPolygonsClipped() > 0);
+                    }
+                }
+            }
+        }
+    }
+
+    // Выделено байт за последний из 30 кадров
+    private static long measureFrame(Model model, Camera camera, RenderingModes.ShadingFrequency frequency,
+                                     RenderingModes.WireframeMode wireframe, boolean deferred) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        ZBuffer zBuffer = new ZBuffer(WIDTH, HEIGHT);
+        TileRasterizer tileRasterizer = new TileRasterizer(1);
+        VertexProcessor vertexProcessor = new VertexProcessor();
+        ShadingCache cache = new ShadingCache();
+        VisibilityBuffer visibility = deferred ? new VisibilityBuffer() : null;
+        RenderContext context = new RenderContext(frameBuffer, zBuffer, tileRasterizer, vertexProcessor);
+        context.setVisibility(visibility);
+        Matrix4x4 modelMatrix = Matrix4x4.identity();
+        RenderingModes modes = new RenderingModes(true, true, false, true);
+        modes.setShadingFrequency(frequency);
+        modes.setWireframeMode(wireframe);
+
+        long allocated = 0;
+        for (int frame = 0; frame < 30; frame++) {
+            RenderStatistics.reset();
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+            zBuffer.clear();
+            if (visibility != null) {
+                visibility.begin(WIDTH, HEIGHT);
+            }
+            RenderEngine.render(context, camera, model.getCompactMesh(), null, LIGHTING, Color.GRAY, modes,
+                    modelMatrix, cache, null);
+            if (visibility != null) {
+                visibility.resolve(frameBuffer, tileRasterizer);
+            }
+            allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+        }
+        return allocated;
+    }
+
+    // {выделено байт, записано фрагментов} за один кадр после прогрева
+    private static long[] measureLitFrame(Model model, int width, int height) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        Lighting lighting = new Lighting(camera.getPosition(), camera.getTarget(), 0.3f, 0.7f);
+        FrameBuffer frameBuffer = new FrameBuffer(width, height);
+        ZBuffer zBuffer = new ZBuffer(width, height);
+        TileRasterizer tileRasterizer = new TileRasterizer(1);
+        RenderContext context = new RenderContext(frameBuffer, zBuffer, tileRasterizer, new VertexProcessor());
+        Matrix4x4 modelMatrix = Matrix4x4.identity();
+        RenderingModes modes = new RenderingModes(false, true, false, true);
+
+        long allocated = 0;
+        for (int frame = 0; frame < 30; frame++) {
+            zBuffer.clear();
+            RenderStatistics.reset();
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+            RenderEngine.render(context, camera, model.getCompactMesh(), null, lighting, Color.GRAY, modes,
+                    modelMatrix, null, null);
+            allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+        }
+        return new long[]{allocated, RenderStatistics.getFragmentsWritten()};
+    }
+}
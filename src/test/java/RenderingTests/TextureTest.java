@@ -0,0 +1,168 @@
+package RenderingTests;
+
+import RenderingModes.FrameBuffer;
+import RenderingModes.Texture;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextureTest {
+
+    // Тексель (x, y) кодирует свои координаты в каналах R и G
+    private static Texture createTexture(int width, int height) {
+        int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                argb[y * width + x] = 0xFF000000 | (x << 16) | (y << 8);
+            }
+        }
+        return new Texture(argb, width, height);
+    }
+
+    // Центр текселя (x, y); строка 0 - верх изображения, v = 1
+    private static float u(int x, int width) {
+        return (x + 0.5f) / width;
+    }
+
+    private static float v(int y, int height) {
+        return 1.0f - (y + 0.5f) / height;
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {4, 5})
+    void testWrapModes(int size) {
+        Texture texture = createTexture(size, size);
+        float u = u(1, size);
+        float v = v(2, size);
+        int texel = 0xFF000000 | (1 << 16) | (2 << 8);
+
+        assertEquals(texel, texture.sample(u, v, Texture.Filter.NEAREST, Texture.Wrap.CLAMP));
+
+        // Повтор: сдвиг на целое число периодов не меняет тексель
+        assertEquals(texel, texture.sample(u + 3, v - 2, Texture.Filter.NEAREST, Texture.Wrap.REPEAT));
+        assertEquals(texel, texture.sample(u - 1, v + 1, Texture.Filter.NEAREST, Texture.Wrap.REPEAT));
+
+        // Отражение: за правой границей тексели идут в обратном порядке
+        int mirrored = 0xFF000000 | ((size - 2) << 16) | (2 << 8);
+        assertEquals(mirrored, texture.sample(u + 1, v, Texture.Filter.NEAREST, Texture.Wrap.MIRROR));
+        assertEquals(texel, texture.sample(u + 2, v, Texture.Filter.NEAREST, Texture.Wrap.MIRROR));
+
+        // Ограничение: всё за пределами [0, 1] берётся с края
+        int corner = 0xFF000000 | ((size - 1) << 16) | ((size - 1) << 8);
+        assertEquals(corner, texture.sample(7.0f, -3.0f, Texture.Filter.NEAREST, Texture.Wrap.CLAMP));
+    }
+
+    @Test
+    void testBilinearFiltering() {
+        int[] argb = {0xFF000000, 0x80FF40C8, 0xFF000000, 0x80FF40C8};
+        Texture texture = new Texture(argb, 2, 2);
+
+        // В центре текселя фильтр возвращает сам тексель
+        assertEquals(0x80FF40C8, texture.sample(0.75f, 0.75f, Texture.Filter.BILINEAR, Texture.Wrap.CLAMP));
+
+        // Посередине между текселями - среднее по каждому каналу, включая альфу
+        int middle = texture.sample(0.5f, 0.75f, Texture.Filter.BILINEAR, Texture.Wrap.CLAMP);
+        assertEquals(0xBF, middle >>> 24);
+        assertEquals(0x7F, (middle >> 16) & 0xFF);
+        assertEquals(0x20, (middle >> 8) & 0xFF);
+        assertEquals(0x64, middle & 0xFF);
+
+        // С повтором левый край смешивается с правым текселем
+        assertEquals(middle, texture.sample(0.0f, 0.75f, Texture.Filter.BILINEAR, Texture.Wrap.REPEAT));
+    }
+
+    @Test
+    void testMipChain() {
+        Texture texture = createTexture(5, 3);
+        assertEquals(3, texture.getLevelCount());
+        assertEquals(2, texture.getLevelWidth(1));
+        assertEquals(1, texture.getLevelHeight(1));
+        assertEquals(1, texture.getLevelWidth(2));
+
+        // Уровень 1: блоки 2x3 и 3x3 исходных текселей, среднее по каналам
+        int left = texture.sample(0.25f, 0.5f, 1.0f, Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.NEAREST);
+        int right = texture.sample(0.75f, 0.5f, 1.0f, Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.NEAREST);
+        assertEquals(0xFF000000 | (1 << 16) | (1 << 8), left);   // x: (0 + 1) / 2 -> 1, y: 1
+        assertEquals(0xFF000000 | (3 << 16) | (1 << 8), right);  // x: (2 + 3 + 4) / 3
+
+        // Последний уровень - один тексель со средним всего изображения
+        int last = texture.sample(0.1f, 0.9f, 10.0f, Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.NEAREST);
+        assertEquals(0xFF000000 | (2 << 16) | (1 << 8), last);
+    }
+
+    @Test
+    void testLevelOfDetail() {
+        Texture texture = createTexture(64, 32);
+
+        // Шаг пикселя в один тексель - уровень 0, в четыре - уровень 2
+        assertEquals(0.0f, texture.levelOfDetail(1.0f / 64, 0, 0, 1.0f / 32), 0.1f);
+        assertEquals(2.0f, texture.levelOfDetail(4.0f / 64, 0, 0, 1.0f / 32), 0.1f);
+        // Решает больший из двух шагов
+        assertEquals(3.0f, texture.levelOfDetail(0, 0, 0, 8.0f / 32), 0.1f);
+        // При увеличении берётся исходное изображение
+        assertTrue(texture.levelOfDetail(0.1f / 64, 0, 0, 0.1f / 32) < 0.0f);
+        int base = texture.sample(0.3f, 0.6f, Texture.Filter.NEAREST, Texture.Wrap.REPEAT);
+        assertEquals(base, texture.sample(0.3f, 0.6f, -3.0f,
+                Texture.Filter.NEAREST, Texture.Wrap.REPEAT, Texture.Mipmap.LINEAR));
+    }
+
+    @Test
+    void testTrilinearBlendsLevels() {
+        int[] argb = {0xFF000000, 0xFFFFFFFF, 0xFFFFFFFF, 0xFF000000};
+        Texture texture = new Texture(argb, 2, 2);
+        float u = 0.25f;
+        float v = 0.75f;
+
+        assertEquals(0xFF000000, texture.sample(u, v, 0.0f,
+                Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.LINEAR));
+        // Среднее 2x2 округляется вверх: 0xFF * 2 / 4 -> 0x80
+        assertEquals(0xFF808080, texture.sample(u, v, 1.0f,
+                Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.LINEAR));
+        assertEquals(0xFF404040, texture.sample(u, v, 0.5f,
+                Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.LINEAR));
+        // Без смешивания выбирается ближайший уровень
+        assertEquals(0xFF808080, texture.sample(u, v, 0.6f,
+                Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.NEAREST));
+        assertEquals(0xFF000000, texture.sample(u, v, 0.6f,
+                Texture.Filter.NEAREST, Texture.Wrap.CLAMP, Texture.Mipmap.NONE));
+    }
+
+    @Test
+    void testPremultipliedTexelMatchesColor() {
+        int[] texels = {0xFFC08040, 0x7F102030, 0x00FFFFFF};
+
+        for (int texel : texels) {
+            Color color = Color.rgb((texel >> 16) & 0xFF, (texel >> 8) & 0xFF, texel & 0xFF,
+                    (texel >>> 24) / 255.0);
+            assertEquals(FrameBuffer.toArgb(color), FrameBuffer.premultiply(texel));
+        }
+    }
+
+    @Test
+    void testSamplingDoesNotAllocate() {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Texture texture = createTexture(64, 48);
+
+        long allocated = 0;
+        int sum = 0;
+        // Первые проходы прогревают JIT
+        for (int pass = 0; pass < 20; pass++) {
+            long before = threads.getThreadAllocatedBytes(Thread.currentThread().threadId());
+            for (int i = 0; i < 10_000; i++) {
+                float u = i * 0.0137f - 20.0f;
+                sum += texture.sample(u, -u, Texture.Filter.BILINEAR, Texture.Wrap.MIRROR);
+                sum += texture.sample(u, u, Texture.Filter.NEAREST, Texture.Wrap.REPEAT);
+            }
+            allocated = threads.getThreadAllocatedBytes(Thread.currentThread().threadId()) - before;
+        }
+
+        assertNotEquals(1, sum);
+        assertTrue(allocated < 1024, "allocated " + allocated + " bytes");
+    }
+}
@@ -0,0 +1,119 @@
+package RenderingTests;
+
+import Interface.model.Model;
+import Interface.model.Polygon;
+import Math.cam.Camera;
+import Math.matrix.Matrix4x4;
+import Math.vector.Vector3D;
+import RenderingModes.FrameBuffer;
+import RenderingModes.Lighting;
+import RenderingModes.NormalCalculator;
+import RenderingModes.RenderContext;
+import RenderingModes.RenderEngine;
+import RenderingModes.RenderingModes;
+import RenderingModes.TileRasterizer;
+import RenderingModes.VertexProcessor;
+import RenderingModes.ZBuffer;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+class TileRasterizerTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 200;
+
+    // UV-сфера: много мелких треугольников, пересекающих границы тайлов
+    static Model createSphere(int slices, int stacks) {
+        Model model = new Model();
+        for (int i = 0; i <= stacks; i++) {
+            double phi = Math.PI * i / stacks;
+            for (int j = 0; j < slices; j++) {
+                double theta = 2 * Math.PI * j / slices;
+                model.getVertices().add(new Vector3D(
+                        (float) (Math.sin(phi) * Math.cos(theta)),
+                        (float) Math.cos(phi),
+                        (float) (Math.sin(phi) * Math.sin(theta))));
+            }
+        }
+        for (int i = 0; i < stacks; i++) {
+            for (int j = 0; j < slices; j++) {
+                int a = i * slices + j;
+                int b = i * slices + (j + 1) % slices;
+                int c = (i + 1) * slices + (j + 1) % slices;
+                int d = (i + 1) * slices + j;
+                Polygon quad = new Polygon();
+                quad.setVertexIndices(new ArrayList<>(Arrays.asList(a, b, c, d)));
+                model.getPolygons().add(quad);
+            }
+        }
+        NormalCalculator.recalculateNormals(model);
+        return model;
+    }
+
+    private static int[] render(Model model, RenderingModes modes, int threads) {
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        Lighting lighting = new Lighting(camera.getPosition(), camera.getTarget(), 0.3f, 0.7f);
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xff000000);
+
+        TileRasterizer tileRasterizer = new TileRasterizer(threads);
+        ZBuffer zBuffer = new ZBuffer(WIDTH, HEIGHT);
+        RenderContext context = new RenderContext(frameBuffer, zBuffer, tileRasterizer, new VertexProcessor());
+        RenderEngine.render(context, camera, model.getCompactMesh(), null, lighting, Color.GRAY, modes,
+                Matrix4x4.identity(), null, null);
+        return frameBuffer.getPixels().clone();
+    }
+
+    @Test
+    void testParallelOutputMatchesSerial() {
+        Model sphere = createSphere(48, 24);
+        RenderingModes modes = new RenderingModes(true, true, false, true);
+
+        int[] serial = render(sphere, modes, 1);
+        for (int threads : new int[]{2, 3, 8}) {
+            assertArrayEquals(serial, render(sphere, modes, threads), "threads = " + threads);
+        }
+    }
+
+    @Test
+    void testParallelVertexStageMatchesSerial() {
+        // Больше порога VertexProcessor: вершины обрабатываются несколькими задачами
+        Model sphere = createSphere(160, 80);
+        RenderingModes modes = new RenderingModes(false, true, false, true);
+
+        assertArrayEquals(render(sphere, modes, 1), render(sphere, modes, 4));
+    }
+
+    @Test
+    void testParallelOutputIsStableBetweenRuns() {
+        Model sphere = createSphere(32, 16);
+        RenderingModes modes = new RenderingModes(true, false, false, false);
+
+        int[] first = render(sphere, modes, 4);
+        int[] second = render(sphere, modes, 4);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void testCancelledRasterizerDrawsNothing() {
+        FrameBuffer frameBuffer = new FrameBuffer(WIDTH, HEIGHT);
+        frameBuffer.clear(0xff000000);
+        int[] background = frameBuffer.getPixels().clone();
+        Camera camera = new Camera(new Vector3D(0.4f, 0.3f, 2.5f), new Vector3D(0, 0, 0));
+        RenderingModes modes = new RenderingModes(true, true, false, false);
+
+        for (int threads : new int[]{1, 4}) {
+            TileRasterizer tileRasterizer = new TileRasterizer(threads);
+            tileRasterizer.setCancelled(true);
+            RenderContext context = new RenderContext(frameBuffer, new ZBuffer(WIDTH, HEIGHT), tileRasterizer,
+                    new VertexProcessor());
+            RenderEngine.render(context, camera, createSphere(32, 16).getCompactMesh(), null, null, Color.GRAY,
+                    modes, Matrix4x4.identity(), null, null);
+            assertArrayEquals(background, frameBuffer.getPixels(), "threads = " + threads);
+        }
+    }
+}
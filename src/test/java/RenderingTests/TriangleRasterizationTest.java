@@ -0,0 +1,164 @@
+package RenderingTests;
+
+import RenderingModes.FrameBuffer;
+import RenderingModes.Lighting;
+import RenderingModes.RenderStatistics;
+import RenderingModes.RenderingModes;
+import RenderingModes.ScreenVertex;
+import RenderingModes.TriangleRasterization;
+import RenderingModes.ZBuffer;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class TriangleRasterizationTest {
+
+    private static final int SIZE = 16;
+
+    private static int fill(FrameBuffer frameBuffer, ScreenVertex a, ScreenVertex b, ScreenVertex c,
+                            Color color, RenderingModes modes) {
+        ZBuffer zBuffer = new ZBuffer(SIZE, SIZE);
+        TriangleRasterization.fillTriangle(frameBuffer, zBuffer, a, b, c, SIZE, SIZE,
+                null, null, color, null, modes);
+
+        int argb = FrameBuffer.toArgb(color);
+        int count = 0;
+        for (int pixel : frameBuffer.getPixels()) {
+            if (pixel == argb) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    void testSharedEdgeIsFilledOnce() {
+        RenderingModes modes = new RenderingModes(false, true, false, false);
+
+        // Квадрат 2..10 из двух треугольников с общей диагональю
+        ScreenVertex p0 = new ScreenVertex(2, 2, 0);
+        ScreenVertex p1 = new ScreenVertex(10, 2, 0);
+        ScreenVertex p2 = new ScreenVertex(10, 10, 0);
+        ScreenVertex p3 = new ScreenVertex(2, 10, 0);
+
+        int first = fill(new FrameBuffer(SIZE, SIZE), p0, p1, p2, Color.RED, modes);
+        int second = fill(new FrameBuffer(SIZE, SIZE), p0, p2, p3, Color.RED, modes);
+
+        // Пиксели с целыми координатами внутри [2, 10) x [2, 10): каждый ровно один раз
+        assertEquals(8 * 8, first + second);
+    }
+
+    // Треугольник за заполненным буфером глубины отбрасывается по охватывающему
+    // прямоугольнику целиком: считаются все его блоки, а не только пересечённые рёбрами
+    @Test
+    void testOccludedTriangleIsRejectedBeforeWalk() {
+        int size = 32;
+        RenderingModes modes = new RenderingModes(false, true, false, false);
+        modes.setHierarchicalDepth(true);
+        FrameBuffer frameBuffer = new FrameBuffer(size, size);
+        frameBuffer.clear(0xff000000);
+        ZBuffer zBuffer = new ZBuffer(size, size);
+        zBuffer.setHierarchical(true);
+
+        ScreenVertex p0 = new ScreenVertex(-1, -1, 0);
+        ScreenVertex p1 = new ScreenVertex(size + 1, -1, 0);
+        ScreenVertex p2 = new ScreenVertex(size + 1, size + 1, 0);
+        ScreenVertex p3 = new ScreenVertex(-1, size + 1, 0);
+        TriangleRasterization.fillTriangle(frameBuffer, zBuffer, p0, p1, p2, size, size,
+                null, null, Color.RED, null, modes);
+        TriangleRasterization.fillTriangle(frameBuffer, zBuffer, p0, p2, p3, size, size,
+                null, null, Color.RED, null, modes);
+        int[] covered = frameBuffer.getPixels().clone();
+
+        // Узкий треугольник вдоль диагонали: рёбра пересекают только часть блоков 4 x 4
+        RenderStatistics.reset();
+        TriangleRasterization.fillTriangle(frameBuffer, zBuffer,
+                new ScreenVertex(0, 0, 0.5f), new ScreenVertex(31, 29, 0.5f), new ScreenVertex(29, 31, 0.5f),
+                size, size, null, null, Color.BLUE, null, modes);
+
+        assertArrayEquals(covered, frameBuffer.getPixels());
+        assertEquals(1, RenderStatistics.getTrianglesHiZRejected());
+        assertEquals(16, RenderStatistics.getBlocksHiZRejected());
+        assertEquals(0, RenderStatistics.getFragmentsTested());
+    }
+
+    @Test
+    void testWindingDoesNotMatter() {
+        RenderingModes modes = new RenderingModes(false, true, false, false);
+
+        ScreenVertex a = new ScreenVertex(1.3f, 1.7f, 0);
+        ScreenVertex b = new ScreenVertex(13.2f, 4.1f, 0);
+        ScreenVertex c = new ScreenVertex(5.5f, 12.9f, 0);
+
+        FrameBuffer ccw = new FrameBuffer(SIZE, SIZE);
+        FrameBuffer cw = new FrameBuffer(SIZE, SIZE);
+        fill(ccw, a, b, c, Color.WHITE, modes);
+        fill(cw, a, c, b, Color.WHITE, modes);
+
+        assertArrayEquals(ccw.getPixels(), cw.getPixels());
+    }
+
+    @Test
+    void testEdgeFunctionMatchesBarycentricInterior() {
+        RenderingModes edgeModes = new RenderingModes(false, true, false, false);
+        RenderingModes legacyModes = new RenderingModes(false, true, false, false);
+        legacyModes.setRasterizationAlgorithm(RenderingModes.RasterizationAlgorithm.BARYCENTRIC);
+
+        ScreenVertex a = new ScreenVertex(0.5f, 0.5f, 0);
+        ScreenVertex b = new ScreenVertex(14.5f, 3.5f, 0);
+        ScreenVertex c = new ScreenVertex(4.5f, 14.5f, 0);
+
+        // Вершины не попадают в центры пикселей: покрытие обоих путей совпадает
+        FrameBuffer edge = new FrameBuffer(SIZE, SIZE);
+        FrameBuffer legacy = new FrameBuffer(SIZE, SIZE);
+        fill(edge, a, b, c, Color.WHITE, edgeModes);
+        fill(legacy, a, b, c, Color.WHITE, legacyModes);
+
+        assertArrayEquals(legacy.getPixels(), edge.getPixels());
+    }
+
+    // Накладывающиеся треугольники с разной глубиной на буфере, не кратном блоку 8x8
+    private static int[] fillRandom(RenderingModes.RasterizationBackend backend, ZBuffer.Precision precision,
+                                    boolean shaded) {
+        int width = 61;
+        int height = 43;
+        FrameBuffer frameBuffer = new FrameBuffer(width, height);
+        ZBuffer zBuffer = new ZBuffer(width, height, precision);
+        Lighting lighting = shaded ? new Lighting(null, null, 0.3f, 0.7f) : null;
+        RenderingModes modes = new RenderingModes(false, true, false, false);
+        modes.setRasterizationBackend(backend);
+
+        Random random = new Random(7);
+        for (int i = 0; i < 100; i++) {
+            ScreenVertex[] v = new ScreenVertex[3];
+            for (int k = 0; k < 3; k++) {
+                float x = random.nextFloat() * (width + 10) - 5;
+                float y = random.nextFloat() * (height + 10) - 5;
+                float z = random.nextFloat() * 2 - 1;
+                v[k] = new ScreenVertex(x, y, z, 1.0f, null, null, null, shaded ? random.nextFloat() : null);
+            }
+            Color color = Color.hsb(i * 37 % 360, 0.8, 0.9);
+            TriangleRasterization.fillTriangle(frameBuffer, zBuffer, v[0], v[1], v[2], width, height,
+                    null, lighting, color, null, modes);
+        }
+        return frameBuffer.getPixels();
+    }
+
+    @Test
+    void testVectorBackendMatchesScalar() {
+        // Модуль подключается в pom.xml (argLine surefire); без него сравнивать не с чем
+        assumeTrue(TriangleRasterization.isVectorBackendAvailable());
+
+        for (ZBuffer.Precision precision : ZBuffer.Precision.values()) {
+            for (boolean shaded : new boolean[]{false, true}) {
+                int[] scalar = fillRandom(RenderingModes.RasterizationBackend.SCALAR, precision, shaded);
+                int[] vector = fillRandom(RenderingModes.RasterizationBackend.VECTOR, precision, shaded);
+                assertArrayEquals(scalar, vector, precision + (shaded ? " shaded" : " flat"));
+            }
+        }
+    }
+}
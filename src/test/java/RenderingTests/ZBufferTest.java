@@ -0,0 +1,122 @@
+package RenderingTests;
+
+import RenderingModes.ZBuffer;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ZBufferTest {
+
+    @ParameterizedTest
+    @EnumSource(ZBuffer.Precision.class)
+    void testNearerDepthWins(ZBuffer.Precision precision) {
+        ZBuffer zBuffer = new ZBuffer(4, 4, precision);
+
+        assertTrue(zBuffer.testAndSet(1, 1, 0.5));
+        assertFalse(zBuffer.testAndSet(1, 1, 0.6));
+        assertTrue(zBuffer.testAndSet(1, 1, 0.2));
+        assertEquals(0.2, zBuffer.getDepth(1, 1), 1e-6);
+    }
+
+    @ParameterizedTest
+    @EnumSource(ZBuffer.Precision.class)
+    void testClearResetsDepth(ZBuffer.Precision precision) {
+        ZBuffer zBuffer = new ZBuffer(4, 4, precision);
+
+        // Очистка многократно, включая переполнение номера поколения
+        for (int frame = 0; frame < 600; frame++) {
+            zBuffer.clear();
+            assertEquals(Double.POSITIVE_INFINITY, zBuffer.getDepth(2, 3));
+            assertTrue(zBuffer.testAndSet(2, 3, 0.9), "frame " + frame);
+            assertFalse(zBuffer.testAndSet(2, 3, 0.95));
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(ZBuffer.Precision.class)
+    void testResizeKeepsBufferUsable(ZBuffer.Precision precision) {
+        ZBuffer zBuffer = new ZBuffer(4, 4, precision);
+        zBuffer.testAndSet(0, 0, 0.1);
+
+        zBuffer.resize(8, 2);
+
+        assertEquals(8, zBuffer.getWidth());
+        assertEquals(2, zBuffer.getHeight());
+        assertEquals(Double.POSITIVE_INFINITY, zBuffer.getDepth(0, 0));
+        assertTrue(zBuffer.testAndSet(7, 1, 0.3));
+        assertFalse(zBuffer.testAndSet(7, 2, 0.3));
+    }
+
+    // Уменьшение и обратное увеличение в пределах прежних массивов: значения
+    // меньшего кадра не остаются в большем ни при какой точности
+    @ParameterizedTest
+    @EnumSource(ZBuffer.Precision.class)
+    void testShrinkAndGrowStartsEmpty(ZBuffer.Precision precision) {
+        ZBuffer zBuffer = new ZBuffer(8, 8, precision);
+        zBuffer.setHierarchical(true);
+
+        zBuffer.resize(4, 4);
+        for (int y = 0; y < 4; y++) {
+            for (int x = 0; x < 4; x++) {
+                assertTrue(zBuffer.testAndSet(x, y, 0.1));
+            }
+        }
+        assertEquals(0.1, zBuffer.getBlockMaxDepth(0, 0), 1e-6);
+
+        zBuffer.resize(8, 8);
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                assertEquals(Double.POSITIVE_INFINITY, zBuffer.getDepth(x, y), x + ", " + y);
+            }
+        }
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.getBlockMaxDepth(0, 0));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ZBuffer.Precision.class)
+    void testHierarchicalDepthTracksFarthestPixel(ZBuffer.Precision precision) {
+        ZBuffer zBuffer = new ZBuffer(16, 8, precision);
+        zBuffer.setHierarchical(true);
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.getBlockMaxDepth(0, 0));
+
+        // Блок (0, 0) заполнен целиком, в блоке (1, 0) остались пустые пиксели
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 8; x++) {
+                zBuffer.testAndSet(x, y, x == 3 && y == 5 ? 0.5 : 0.1);
+            }
+        }
+        zBuffer.testAndSet(9, 2, 0.1);
+
+        assertEquals(0.5, zBuffer.getBlockMaxDepth(0, 0), 1e-6);
+        assertTrue(zBuffer.isOccluded(0, 0, 7, 7, 0.6));
+        assertFalse(zBuffer.isOccluded(0, 0, 7, 7, 0.4));
+        assertFalse(zBuffer.isOccluded(0, 0, 12, 7, 0.6));
+
+        zBuffer.testAndSet(3, 5, 0.2);
+        assertEquals(0.2, zBuffer.getBlockMaxDepth(0, 0), 1e-6);
+
+        zBuffer.clear();
+        assertFalse(zBuffer.isOccluded(0, 0, 7, 7, 0.6));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ZBuffer.Precision.class)
+    void testHierarchicalDepthEnabledAfterWrites(ZBuffer.Precision precision) {
+        ZBuffer zBuffer = new ZBuffer(16, 8, precision);
+        assertFalse(zBuffer.isHierarchical());
+
+        // Глубины записаны без учёта блоков: при включении заполненность пересчитывается
+        for (int y = 0; y < 8; y++) {
+            for (int x = 0; x < 7; x++) {
+                zBuffer.testAndSet(x, y, 0.3);
+            }
+        }
+        zBuffer.setHierarchical(true);
+        assertEquals(Float.POSITIVE_INFINITY, zBuffer.getBlockMaxDepth(0, 0));
+
+        for (int y = 0; y < 8; y++) {
+            zBuffer.testAndSet(7, y, 0.1);
+        }
+        assertEquals(0.3, zBuffer.getBlockMaxDepth(0, 0), 1e-6);
+    }
+}